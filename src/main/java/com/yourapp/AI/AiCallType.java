@@ -0,0 +1,10 @@
+package com.yourapp.AI;
+
+/**
+ * Nature d'un appel à l'IA : chaque type a ses propres délais (connexion, lecture, total)
+ */
+public enum AiCallType {
+    ANALYSIS,
+    CHAT,
+    HEALTH_CHECK
+}
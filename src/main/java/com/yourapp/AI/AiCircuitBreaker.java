@@ -0,0 +1,152 @@
+package com.yourapp.AI;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Disjoncteur d'un provider IA (fermé / ouvert / semi-ouvert).
+ * Les derniers appels sont conservés dans une fenêtre glissante ; un appel en échec ou plus lent
+ * que le seuil compte comme mauvais. Au-delà du taux toléré, le circuit s'ouvre et les appels
+ * sont refusés immédiatement, puis un appel d'essai est autorisé après le délai d'ouverture.
+ */
+@Slf4j
+public class AiCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final boolean[] window;          // true = appel en échec ou trop lent
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallMillis;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int recorded = 0;                // nombre d'appels dans la fenêtre
+    private int next = 0;                    // prochaine case de la fenêtre
+    private int badCalls = 0;
+    private long openedAt = 0;
+    private boolean trialInFlight = false;
+    private String lastError;
+
+    public AiCircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                            Duration slowCall, Duration openDuration) {
+        this.name = name;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallMillis = slowCall.toMillis();
+        this.openMillis = openDuration.toMillis();
+    }
+
+    /**
+     * Un appel peut-il être tenté ? En semi-ouvert, un seul appel d'essai à la fois.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+            log.info("🔌 Circuit {} semi-ouvert : appel d'essai autorisé", name);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess(long latencyMillis) {
+        boolean slow = latencyMillis > slowCallMillis;
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            if (slow) {
+                open("appel d'essai trop lent (" + latencyMillis + " ms)");
+            } else {
+                close();
+            }
+            return;
+        }
+        record(slow);
+    }
+
+    public synchronized void onFailure(long latencyMillis, String error) {
+        lastError = error;
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            open("échec de l'appel d'essai");
+            return;
+        }
+        record(true);
+    }
+
+    /**
+     * Remettre le circuit à zéro (réinitialisation manuelle)
+     */
+    public synchronized void reset() {
+        close();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("state", state.name());
+        info.put("calls", recorded);
+        info.put("failureRate", recorded > 0 ? badCalls * 100.0 / recorded : 0.0);
+        if (state == State.OPEN) {
+            info.put("retryInMs", Math.max(0, openMillis - (System.currentTimeMillis() - openedAt)));
+        }
+        if (lastError != null) {
+            info.put("lastError", lastError);
+        }
+        return info;
+    }
+
+    private void record(boolean bad) {
+        if (recorded == window.length && window[next]) {
+            badCalls--;
+        }
+        window[next] = bad;
+        if (bad) {
+            badCalls++;
+        }
+        next = (next + 1) % window.length;
+        recorded = Math.min(recorded + 1, window.length);
+
+        if (bad && state == State.CLOSED && recorded >= minimumCalls
+                && badCalls * 100.0 / recorded >= failureRateThreshold) {
+            open(badCalls + "/" + recorded + " appels en échec ou trop lents");
+        }
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        log.warn("⛔ Circuit {} ouvert ({}) : appels suspendus pendant {} s", name, reason, openMillis / 1000);
+    }
+
+    private void close() {
+        if (state != State.CLOSED) {
+            log.info("✅ Circuit {} refermé", name);
+        }
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        badCalls = 0;
+        trialInFlight = false;
+        Arrays.fill(window, false);
+    }
+}
@@ -1,24 +1,28 @@
 package com.yourapp.AI;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.ResourceAccessException;
 
-import java.net.SocketTimeoutException;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 @Component
 @Slf4j
 public class AiClient {
 
+    // Chaîne de providers par ordre de préférence, ex. "ollama,gemini,openai"
     @Value("${ai.provider:ollama}")
     private String provider;
 
@@ -28,125 +32,437 @@ public class AiClient {
     @Value("${ai.ollama.api-path:/api/generate}")
     private String ollamaApiPath;
 
-    @Value("${ai.api.url:}")
-    private String apiUrl;
-
-    @Value("${ai.api.key:}")
-    private String apiKey;
-
     @Value("${ai.model:llama3}")
     private String model;
 
+    // Paramètres propres à chaque provider de la chaîne (par défaut ceux de ai.api / ai.model)
+    @Value("${ai.gemini.api-url:${ai.api.url:}}")
+    private String geminiApiUrl;
+
+    @Value("${ai.gemini.api-key:${ai.api.key:}}")
+    private String geminiApiKey;
+
+    @Value("${ai.openai.api-url:${ai.api.url:}}")
+    private String openAiApiUrl;
+
+    @Value("${ai.openai.api-key:${ai.api.key:}}")
+    private String openAiApiKey;
+
+    @Value("${ai.openai.model:${ai.model:llama3}}")
+    private String openAiModel;
+
+    @Value("${ai.ollama.model:${ai.model:llama3}}")
+    private String ollamaModel;
+
+    // Modèle gardé chargé entre deux appels : Ollama réutilise alors le préfixe de prompt déjà évalué
+    @Value("${ai.ollama.keep-alive:30m}")
+    private String ollamaKeepAlive;
+
+    // Regroupe les requêtes d'un même template sur le cache de prompt d'OpenAI
+    @Value("${ai.openai.prompt-cache-key-enabled:true}")
+    private boolean openAiPromptCacheKey;
+
     @Value("${ai.max-tokens:2000}")
     private Integer maxTokens;
 
     @Value("${ai.temperature:0.7}")
     private Double temperature;
 
+    // "enabled" : réponses simulées (tests) ; sinon providers réels uniquement, sans repli automatique
     @Value("${ai.simulation.mode:auto}")
     private String simulationMode;
 
-    @Value("${ai.ollama.timeout:300000}")
-    private int timeoutMs;
-
     @Value("${ai.retry.max-attempts:3}")
     private int maxRetryAttempts;
 
     @Value("${ai.retry.backoff-delay:1000}")
     private int retryBackoffDelay;
 
-    private final RestTemplate restTemplate;
-    private boolean forceSimulation = false;
+    // Attente maximale entre deux tentatives ; un Retry-After plus long fait basculer sur le provider suivant
+    @Value("${ai.retry.max-delay-ms:30000}")
+    private long retryMaxDelay;
 
-    public AiClient() {
-        // Configuration du RestTemplate avec timeout personnalisé
-        this.restTemplate = createRestTemplateWithTimeout();
-    }
+    @Value("${ai.circuit-breaker.window-size:20}")
+    private int breakerWindowSize;
+
+    @Value("${ai.circuit-breaker.minimum-calls:5}")
+    private int breakerMinimumCalls;
+
+    @Value("${ai.circuit-breaker.failure-rate-threshold:50}")
+    private double breakerFailureRate;
+
+    @Value("${ai.circuit-breaker.slow-call-ms:180000}")
+    private long breakerSlowCallMs;
+
+    @Value("${ai.circuit-breaker.open-duration-seconds:60}")
+    private long breakerOpenSeconds;
+
+    @Value("${ai.streaming.enabled:true}")
+    private boolean streamingEnabled;
+
+    // Réponse contrainte par un schéma JSON quand la requête en porte un (voir AiResponseSchema)
+    @Value("${ai.structured-output.enabled:true}")
+    private boolean structuredOutput;
+
+    @Value("${ai.structured-output.ollama-json-mode-only:false}")
+    private boolean ollamaJsonModeOnly;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AiHttpTransport transport;
+    private final AiResponseCache responseCache;
+    private final AiRateLimiter rateLimiter;
+    private final Map<String, AiCircuitBreaker> breakers = new ConcurrentHashMap<>();
 
     /**
-     * Crée un RestTemplate avec des timeouts configurés
+     * Résultat d'un appel : provider qui a répondu, et réponses simulées (jamais mises en cache)
      */
-    private RestTemplate createRestTemplateWithTimeout() {
-        org.springframework.http.client.SimpleClientHttpRequestFactory factory =
-                new org.springframework.http.client.SimpleClientHttpRequestFactory();
+    private record Completion(String text, boolean simulated, String provider) {
+    }
 
-        factory.setConnectTimeout(Duration.ofMillis(timeoutMs));
-        factory.setReadTimeout(Duration.ofMillis(timeoutMs));
+    /**
+     * Réponse d'un provider et tokens réellement consommés (0 si non communiqués)
+     */
+    private record ProviderReply(String text, int totalTokens) {
+    }
 
-        return new RestTemplate(factory);
+    public AiClient(AiHttpTransport transport, AiResponseCache responseCache, AiRateLimiter rateLimiter) {
+        this.transport = transport;
+        this.responseCache = responseCache;
+        this.rateLimiter = rateLimiter;
     }
 
     /**
      * Point d'entrée principal pour envoyer une requête à l'IA
      */
     public String sendRequest(String prompt) {
-        log.info("📤 Envoi requête IA | provider={} | model={}", provider, model);
+        return sendRequest(AiRequest.of(prompt));
+    }
+
+    /**
+     * Envoyer une requête à l'IA. Les requêtes liées à un template passent par le cache de réponses.
+     */
+    public String sendRequest(AiRequest request) {
+        String cacheKey = cacheKey(request);
+
+        String cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        Completion completion = complete(request);
+        cacheCompletion(cacheKey, request, completion);
+        return completion.text();
+    }
+
+    /**
+     * Envoyer une requête en flux : chaque morceau de texte généré est transmis au consommateur
+     */
+    public String streamRequest(String prompt, Consumer<String> onToken) {
+        return streamRequest(AiRequest.of(prompt), token -> {
+            onToken.accept(token);
+            return true;
+        });
+    }
+
+    /**
+     * Envoyer une requête en flux (NDJSON pour Ollama, SSE pour OpenAI et Gemini).
+     * onToken retourne false pour interrompre la génération, par exemple quand le plafond
+     * de problèmes est atteint. Seules les réponses lues jusqu'au bout sont mises en cache.
+     *
+     * @return le texte reçu (partiel si le flux a été interrompu)
+     */
+    public String streamRequest(AiRequest request, Predicate<String> onToken) {
+        String cacheKey = cacheKey(request);
+
+        String cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            onToken.test(cached);
+            return cached;
+        }
+
+        // Flux sur le premier provider dont le circuit est fermé ; sinon appel classique avec bascule
+        String candidate = (!streamingEnabled || shouldSimulate()) ? null : acquireFirstAvailable();
+        if (candidate == null) {
+            return completeInOneChunk(request, cacheKey, onToken);
+        }
+
+        log.info("📤 Envoi requête IA en flux | provider={} | model={}", candidate, modelFor(candidate));
+
+        AiCircuitBreaker breaker = breakerFor(candidate);
+        AtomicInteger usage = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        long[] firstTokenAt = {0};
+        StringBuilder text = new StringBuilder();
+        Predicate<String> sink = token -> {
+            if (text.isEmpty()) {
+                firstTokenAt[0] = System.currentTimeMillis();
+            }
+            text.append(token);
+            return onToken.test(token);
+        };
+
+        boolean completed;
+        try {
+            // L'attente du quota ne compte pas dans la latence du provider
+            AiRateLimiter.Permit permit = acquireQuota(candidate, request);
+            start = System.currentTimeMillis();
+
+            completed = switch (candidate) {
+                case "openai" -> streamOpenAi(request, sink, usage);
+                case "ollama" -> streamOllama(request, sink, usage);
+                case "gemini" -> streamGemini(request, sink, usage);
+                default -> throw new IllegalStateException("Provider IA inconnu: " + candidate);
+            };
+            rateLimiter.reconcile(permit, usage.get());
+            // Latence du flux : délai avant le premier morceau, pas la durée de génération
+            breaker.onSuccess((firstTokenAt[0] > 0 ? firstTokenAt[0] : System.currentTimeMillis()) - start);
+        } catch (AiTransportException e) {
+            recordFailure(breaker, e, System.currentTimeMillis() - start);
+            if (text.isEmpty()) {
+                // Rien reçu : on retombe sur l'appel classique (tentatives et bascule de provider)
+                log.warn("⚠️ Flux IA indisponible ({}), bascule sur un appel non streamé", e.getMessage());
+                return completeInOneChunk(request, cacheKey, onToken);
+            }
+            throw new RuntimeException("Flux IA interrompu après " + text.length() + " caractères: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            breaker.onFailure(System.currentTimeMillis() - start, e.getMessage());
+            if (text.isEmpty()) {
+                // Configuration manquante (clé API)... : même bascule que l'appel classique
+                log.warn("⚠️ Flux IA impossible sur {} ({}), bascule sur un appel non streamé", candidate, e.getMessage());
+                return completeInOneChunk(request, cacheKey, onToken);
+            }
+            throw e;
+        }
+
+        log.info("✅ Flux IA terminé: {} caractères{}", text.length(), completed ? "" : " (interrompu)");
+        if (completed) {
+            cacheCompletion(cacheKey, request, new Completion(text.toString(), false, candidate));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Réponse complète transmise en un seul morceau (simulation, flux désactivé ou indisponible)
+     */
+    private String completeInOneChunk(AiRequest request, String cacheKey, Predicate<String> onToken) {
+        Completion completion = complete(request);
+        cacheCompletion(cacheKey, request, completion);
+        onToken.test(completion.text());
+        return completion.text();
+    }
+
+    /**
+     * La clé de cache est calculée pour le provider principal : les réponses obtenues
+     * par bascule sur un autre provider ne sont pas mises en cache.
+     */
+    private String cacheKey(AiRequest request) {
+        String primary = providerChain().get(0);
+        return responseCache.keyFor(primary, modelFor(primary), temperature, request);
+    }
+
+    private void cacheCompletion(String cacheKey, AiRequest request, Completion completion) {
+        if (!completion.simulated() && providerChain().get(0).equals(completion.provider())) {
+            responseCache.put(cacheKey, request, completion.text());
+        }
+    }
+
+    /**
+     * Appeler les providers dans l'ordre de la chaîne. Chaque provider a son disjoncteur :
+     * un circuit ouvert est sauté sans attendre ; les erreurs transitoires (timeout, 429, 5xx)
+     * sont retentées avec un backoff exponentiel aléatoire qui respecte Retry-After,
+     * les autres font basculer directement sur le provider suivant.
+     */
+    private Completion complete(AiRequest request) {
+        String prompt = request.getPrompt();
+        AiCallType callType = request.getCallType();
 
         if (shouldSimulate()) {
             log.info("🎭 Mode simulation activé");
-            return simulateAiResponse(prompt);
+            return new Completion(simulateAiResponse(prompt), true, null);
         }
 
-        // Tentatives avec retry
-        for (int attempt = 1; attempt <= maxRetryAttempts; attempt++) {
-            try {
-                String result = switch (provider.toLowerCase()) {
-                    case "openai" -> callOpenAi(prompt);
-                    case "ollama" -> callOllama(prompt);
-                    case "gemini" -> callGemini(prompt);
-                    default -> throw new IllegalStateException("Provider IA inconnu: " + provider);
-                };
-
-                if (result != null && !result.trim().isEmpty()) {
-                    log.info("✅ Réponse IA reçue avec succès (tentative {}/{})", attempt, maxRetryAttempts);
-                    return result;
+        List<String> chain = providerChain();
+        Exception lastError = null;
+
+        for (String candidate : chain) {
+            AiCircuitBreaker breaker = breakerFor(candidate);
+            log.info("📤 Envoi requête IA | provider={} | model={} | type={}", candidate, modelFor(candidate), callType);
+
+            for (int attempt = 1; attempt <= maxRetryAttempts; attempt++) {
+                if (!breaker.tryAcquire()) {
+                    log.warn("⛔ Circuit {} ouvert, provider ignoré", candidate);
+                    break;
                 }
 
-            } catch (ResourceAccessException e) {
-                if (e.getCause() instanceof SocketTimeoutException) {
-                    log.warn("⏱️ Timeout lors de la tentative {} sur {}", attempt, maxRetryAttempts);
-                    if (attempt < maxRetryAttempts) {
-                        sleepWithBackoff(attempt);
-                        continue;
+                long start = System.currentTimeMillis();
+                try {
+                    AiRateLimiter.Permit permit = acquireQuota(candidate, request);
+                    start = System.currentTimeMillis();
+
+                    String result = call(candidate, request, permit);
+                    if (result == null || result.trim().isEmpty()) {
+                        throw new AiTransportException("Réponse IA vide", 502, null);
                     }
-                }
-                throw new RuntimeException("Erreur de connexion à l'API IA: " + e.getMessage(), e);
-            } catch (HttpClientErrorException | HttpServerErrorException e) {
-                log.error("❌ Erreur HTTP {} lors de la tentative {}: {}",
-                        e.getStatusCode(), attempt, e.getMessage());
-                if (attempt < maxRetryAttempts) {
-                    sleepWithBackoff(attempt);
-                    continue;
-                }
-                throw new RuntimeException("Erreur API IA: " + e.getStatusCode() + " - " + e.getMessage(), e);
-            } catch (Exception e) {
-                log.error("❌ Erreur inattendue lors de la tentative {}: {}", attempt, e.getMessage());
-                if (attempt < maxRetryAttempts) {
-                    sleepWithBackoff(attempt);
-                    continue;
-                }
+                    breaker.onSuccess(System.currentTimeMillis() - start);
+                    log.info("✅ Réponse IA reçue de {} (tentative {}/{})", candidate, attempt, maxRetryAttempts);
+                    return new Completion(result, false, candidate);
+
+                } catch (AiTransportException e) {
+                    recordFailure(breaker, e, System.currentTimeMillis() - start);
+                    lastError = e;
 
-                // En mode auto, basculer en simulation après tous les retry échoués
-                if ("auto".equalsIgnoreCase(simulationMode)) {
-                    log.warn("🔄 Basculement automatique en mode SIMULATION après {} échecs.", maxRetryAttempts);
-                    forceSimulation = true;
-                    return simulateAiResponse(prompt);
+                    if (!isRetryable(e) || attempt == maxRetryAttempts) {
+                        log.error("❌ {} en échec (tentative {}/{}): {}", candidate, attempt, maxRetryAttempts, e.getMessage());
+                        break;
+                    }
+                    long delay = retryDelay(attempt, e);
+                    if (delay < 0) {
+                        log.warn("⏳ {} demande d'attendre {} s, bascule sur le provider suivant",
+                                candidate, e.getRetryAfter().toSeconds());
+                        break;
+                    }
+                    log.warn("⚠️ {} : {} (tentative {}/{}), nouvel essai dans {} ms",
+                            candidate, e.getMessage(), attempt, maxRetryAttempts, delay);
+                    sleep(delay);
+
+                } catch (IllegalStateException e) {
+                    // Configuration manquante (clé API) : inutile de réessayer ce provider
+                    breaker.onFailure(System.currentTimeMillis() - start, e.getMessage());
+                    lastError = e;
+                    log.error("❌ {} non configuré: {}", candidate, e.getMessage());
+                    break;
+
+                } catch (RuntimeException e) {
+                    breaker.onFailure(System.currentTimeMillis() - start, e.getMessage());
+                    lastError = e;
+                    log.error("❌ Erreur inattendue de {} (tentative {}/{}): {}",
+                            candidate, attempt, maxRetryAttempts, e.getMessage());
+                    if (attempt == maxRetryAttempts) {
+                        break;
+                    }
+                    sleep(retryDelay(attempt, null));
                 }
-                throw new RuntimeException("Erreur lors de l'appel à l'API IA: " + e.getMessage(), e);
+            }
+
+            if (chain.indexOf(candidate) < chain.size() - 1) {
+                log.warn("🔀 Bascule du provider {} vers le suivant de la chaîne", candidate);
             }
         }
 
-        throw new RuntimeException("Toutes les tentatives ont échoué");
+        // Aucun repli sur la simulation : des problèmes fictifs seraient enregistrés comme résultats réels.
+        // L'échec remonte (document en ERROR) et les circuits se referment d'eux-mêmes (demi-ouverture).
+        if (lastError == null) {
+            throw new RuntimeException("Aucun provider IA disponible (circuits ouverts): " + chain);
+        }
+        throw new RuntimeException("Erreur API IA (" + String.join(" → ", chain) + "): " + lastError.getMessage(), lastError);
     }
 
     /**
-     * Délai exponentiel avec backoff pour les retry
+     * Un appel au provider, quota (RPM/TPM) déjà obtenu ; la consommation réelle corrige l'estimation
      */
-    private void sleepWithBackoff(int attempt) {
+    private String call(String candidate, AiRequest request, AiRateLimiter.Permit permit) {
+        ProviderReply reply = switch (candidate) {
+            case "openai" -> callOpenAi(request);
+            case "ollama" -> callOllama(request);
+            case "gemini" -> callGemini(request);
+            default -> throw new IllegalStateException("Provider IA inconnu: " + candidate);
+        };
+        rateLimiter.reconcile(permit, reply.totalTokens());
+        return reply.text();
+    }
+
+    /**
+     * Schéma à imposer à la réponse, null si le mode structuré est désactivé ou la requête en texte libre
+     */
+    private AiResponseSchema schemaFor(AiRequest request) {
+        return structuredOutput ? request.getResponseSchema() : null;
+    }
+
+    private AiRateLimiter.Permit acquireQuota(String candidate, AiRequest request) {
+        int estimated = AiRateLimiter.estimateTokens(request.getPrompt(), maxTokens);
+        return rateLimiter.acquire(candidate, modelFor(candidate), estimated, request.getAuditId());
+    }
+
+    // =============================
+    // RÉSILIENCE (CHAÎNE, DISJONCTEURS, BACKOFF)
+    // =============================
+
+    /**
+     * Providers configurés dans ai.provider, par ordre de préférence
+     */
+    private List<String> providerChain() {
+        List<String> chain = Arrays.stream(provider.split(","))
+                .map(name -> name.trim().toLowerCase())
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+        return chain.isEmpty() ? List.of("ollama") : chain;
+    }
+
+    private String modelFor(String candidate) {
+        return switch (candidate) {
+            case "openai" -> openAiModel;
+            case "ollama" -> ollamaModel;
+            default -> model;
+        };
+    }
+
+    private AiCircuitBreaker breakerFor(String candidate) {
+        return breakers.computeIfAbsent(candidate, name -> new AiCircuitBreaker(name,
+                breakerWindowSize, breakerMinimumCalls, breakerFailureRate,
+                Duration.ofMillis(breakerSlowCallMs), Duration.ofSeconds(breakerOpenSeconds)));
+    }
+
+    /**
+     * Premier provider de la chaîne dont le circuit accepte un appel (l'autorisation est consommée)
+     */
+    private String acquireFirstAvailable() {
+        for (String candidate : providerChain()) {
+            if (breakerFor(candidate).tryAcquire()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Les erreurs imputables à la requête (400, 404...) ne dégradent pas la santé du provider
+     */
+    private void recordFailure(AiCircuitBreaker breaker, AiTransportException e, long latencyMillis) {
+        int status = e.getStatusCode();
+        boolean providerFault = e.isNetworkError() || status >= 500 || status == 401 || status == 403
+                || status == 408 || status == 429;
+        if (providerFault) {
+            breaker.onFailure(latencyMillis, e.getMessage());
+        } else {
+            breaker.onSuccess(latencyMillis);
+        }
+    }
+
+    private static boolean isRetryable(AiTransportException e) {
+        int status = e.getStatusCode();
+        return e.isTimeout() || status == 408 || status == 429 || status >= 500;
+    }
+
+    /**
+     * Délai avant la tentative suivante : Retry-After s'il est fourni, sinon backoff exponentiel
+     * avec gigue (moitié fixe, moitié aléatoire) pour ne pas resynchroniser les appels parallèles.
+     *
+     * @return le délai en ms, ou -1 si le serveur demande d'attendre plus que ai.retry.max-delay-ms
+     */
+    private long retryDelay(int attempt, AiTransportException e) {
+        if (e != null && e.getRetryAfter() != null) {
+            long requested = e.getRetryAfter().toMillis();
+            return requested > retryMaxDelay ? -1 : requested;
+        }
+        long exponential = Math.min(retryMaxDelay, retryBackoffDelay * (1L << Math.min(attempt - 1, 20)));
+        return exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+    }
+
+    private void sleep(long delayMillis) {
         try {
-            long delay = retryBackoffDelay * (long) Math.pow(2, attempt - 1);
-            log.info("⏳ Attente de {} ms avant la tentative suivante", delay);
-            Thread.sleep(Math.min(delay, 10000)); // Max 10 secondes
+            Thread.sleep(delayMillis);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException("Interruption pendant le backoff", e);
@@ -156,23 +472,50 @@ public class AiClient {
     // =============================
     // GOOGLE GEMINI (AI Studio)
     // =============================
-    private String callGemini(String prompt) {
-        if (apiKey == null || apiKey.isBlank()) {
+    private ProviderReply callGemini(AiRequest request) {
+        if (geminiApiKey == null || geminiApiKey.isBlank()) {
             throw new IllegalStateException("Clé API Gemini manquante dans la configuration.");
         }
 
         // L'API Google requiert la clé en paramètre d'URL
-        String urlWithKey = apiUrl + "?key=" + apiKey;
+        String urlWithKey = geminiApiUrl + "?key=" + geminiApiKey;
+
+        JsonNode response = transport.postJson(urlWithKey, Map.of(), geminiBody(request), request.getCallType());
+        return new ProviderReply(extractGeminiResponse(response),
+                response.path("usageMetadata").path("totalTokenCount").asInt(0));
+    }
+
+    private boolean streamGemini(AiRequest request, Predicate<String> sink, AtomicInteger usage) {
+        if (geminiApiKey == null || geminiApiKey.isBlank()) {
+            throw new IllegalStateException("Clé API Gemini manquante dans la configuration.");
+        }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        // Même modèle, méthode streamGenerateContent au format SSE
+        String streamUrl = geminiApiUrl.replace(":generateContent", ":streamGenerateContent")
+                + "?alt=sse&key=" + geminiApiKey;
 
+        return transport.postStream(streamUrl, Map.of(), geminiBody(request), request.getCallType(), line -> {
+            JsonNode event = readSseEvent(line);
+            if (event == null) {
+                return true;
+            }
+            // Chaque événement porte le cumul de consommation
+            int total = event.path("usageMetadata").path("totalTokenCount").asInt(0);
+            if (total > 0) {
+                usage.set(total);
+            }
+            String token = event.path("candidates").path(0).path("content").path("parts").path(0).path("text").asText("");
+            return token.isEmpty() || sink.test(token);
+        });
+    }
+
+    private Map<String, Object> geminiBody(AiRequest request) {
         // Construction du corps spécifique à Gemini (v1 / v1beta)
         Map<String, Object> body = new HashMap<>();
 
         // Structure : contents -> parts -> text
         Map<String, Object> textPart = new HashMap<>();
-        textPart.put("text", prompt);
+        textPart.put("text", request.getPrompt());
 
         Map<String, Object> content = new HashMap<>();
         content.put("parts", List.of(textPart));
@@ -183,24 +526,25 @@ public class AiClient {
         Map<String, Object> generationConfig = new HashMap<>();
         generationConfig.put("temperature", temperature);
         generationConfig.put("maxOutputTokens", maxTokens);
+        AiResponseSchema schema = schemaFor(request);
+        if (schema != null) {
+            generationConfig.put("responseMimeType", "application/json");
+            generationConfig.put("responseSchema", schema.toGeminiSchema());
+        }
         body.put("generationConfig", generationConfig);
 
-        return extractGeminiResponse(send(urlWithKey, body, headers));
+        return body;
     }
 
-    @SuppressWarnings("unchecked")
-    private String extractGeminiResponse(Map<String, Object> response) {
+    private String extractGeminiResponse(JsonNode response) {
         try {
-            List<Map<String, Object>> candidates = (List<Map<String, Object>>) response.get("candidates");
-            if (candidates == null || candidates.isEmpty()) {
+            JsonNode candidates = response.path("candidates");
+            if (!candidates.isArray() || candidates.isEmpty()) {
                 throw new RuntimeException("Aucun candidat trouvé dans la réponse Gemini.");
             }
 
-            Map<String, Object> firstCandidate = candidates.get(0);
-            Map<String, Object> content = (Map<String, Object>) firstCandidate.get("content");
-            List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
-
-            return (String) parts.get(0).get("text");
+            JsonNode parts = candidates.get(0).path("content").path("parts");
+            return parts.get(0).get("text").asText();
         } catch (Exception e) {
             log.error("❌ Erreur lors de l'extraction de la réponse Gemini. Structure reçue: {}", response);
             throw new RuntimeException("Format de réponse Gemini invalide", e);
@@ -210,38 +554,76 @@ public class AiClient {
     // =============================
     // OPENAI
     // =============================
-    private String callOpenAi(String prompt) {
-        if (apiKey == null || apiKey.isBlank()) {
+    private ProviderReply callOpenAi(AiRequest request) {
+        if (openAiApiKey == null || openAiApiKey.isBlank()) {
             throw new IllegalStateException("Clé API OpenAI manquante dans la configuration.");
         }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(apiKey);
+        Map<String, String> headers = Map.of("Authorization", "Bearer " + openAiApiKey);
+
+        JsonNode response = transport.postJson(openAiApiUrl, headers, openAiBody(request), request.getCallType());
+        return new ProviderReply(extractOpenAiResponse(response), response.path("usage").path("total_tokens").asInt(0));
+    }
+
+    private boolean streamOpenAi(AiRequest request, Predicate<String> sink, AtomicInteger usage) {
+        if (openAiApiKey == null || openAiApiKey.isBlank()) {
+            throw new IllegalStateException("Clé API OpenAI manquante dans la configuration.");
+        }
 
+        Map<String, Object> body = openAiBody(request);
+        body.put("stream", true);
+        // Dernier événement : consommation de tokens (choices vide)
+        body.put("stream_options", Map.of("include_usage", true));
+
+        Map<String, String> headers = Map.of("Authorization", "Bearer " + openAiApiKey);
+        return transport.postStream(openAiApiUrl, headers, body, request.getCallType(), line -> {
+            JsonNode event = readSseEvent(line);
+            if (event == null) {
+                return true;
+            }
+            if (event.path("usage").has("total_tokens")) {
+                usage.set(event.path("usage").path("total_tokens").asInt(0));
+            }
+            String token = event.path("choices").path(0).path("delta").path("content").asText("");
+            return token.isEmpty() || sink.test(token);
+        });
+    }
+
+    private Map<String, Object> openAiBody(AiRequest request) {
         Map<String, Object> body = new HashMap<>();
-        body.put("model", model);
-        body.put("messages", List.of(Map.of("role", "user", "content", prompt)));
+        body.put("model", openAiModel);
+        body.put("messages", List.of(Map.of("role", "user", "content", request.getPrompt())));
         body.put("max_tokens", maxTokens);
         body.put("temperature", temperature);
+        if (openAiPromptCacheKey && request.getTemplateId() != null) {
+            body.put("prompt_cache_key", "audit-template-" + request.getTemplateId());
+        }
 
-        return extractOpenAiResponse(send(apiUrl, body, headers));
+        AiResponseSchema schema = schemaFor(request);
+        if (schema != null) {
+            body.put("response_format", Map.of(
+                    "type", "json_schema",
+                    "json_schema", Map.of(
+                            "name", schema.getName(),
+                            "strict", true,
+                            "schema", schema.toJsonSchema(true))));
+        }
+        return body;
     }
 
-    @SuppressWarnings("unchecked")
-    private String extractOpenAiResponse(Map<String, Object> response) {
+    private String extractOpenAiResponse(JsonNode response) {
         try {
-            List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
-            if (choices == null || choices.isEmpty()) {
+            JsonNode choices = response.path("choices");
+            if (!choices.isArray() || choices.isEmpty()) {
                 throw new RuntimeException("Aucun choix dans la réponse OpenAI");
             }
 
-            Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
+            JsonNode message = choices.get(0).get("message");
             if (message == null) {
                 throw new RuntimeException("Format de réponse OpenAI invalide: message manquant");
             }
 
-            return (String) message.get("content");
+            return message.path("content").asText();
         } catch (Exception e) {
             log.error("❌ Erreur lors de l'extraction de la réponse OpenAI. Structure reçue: {}", response);
             throw new RuntimeException("Format de réponse OpenAI invalide", e);
@@ -251,36 +633,76 @@ public class AiClient {
     // =============================
     // OLLAMA (Local)
     // =============================
-    private String callOllama(String prompt) {
+    private ProviderReply callOllama(AiRequest request) {
+        String fullUrl = ollamaBaseUrl + ollamaApiPath;
+        String prompt = request.getPrompt();
+        Map<String, Object> body = ollamaBody(request, false);
+
+        log.debug("🌐 Appel Ollama à: {}", fullUrl);
+        log.debug("📝 Prompt: {}", prompt.substring(0, Math.min(200, prompt.length())) + "...");
+
+        try {
+            JsonNode response = transport.postJson(fullUrl, Map.of(), body, request.getCallType());
+            return new ProviderReply(extractOllamaResponse(response), ollamaUsage(response));
+        } catch (AiTransportException e) {
+            if (e.isNetworkError() && !e.isTimeout()) {
+                log.error("🔌 Impossible de se connecter à Ollama. Vérifiez que le service est démarré à {}", ollamaBaseUrl);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Flux Ollama : une ligne JSON par morceau généré ({"response": "...", "done": false})
+     */
+    private boolean streamOllama(AiRequest request, Predicate<String> sink, AtomicInteger usage) {
         String fullUrl = ollamaBaseUrl + ollamaApiPath;
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        return transport.postStream(fullUrl, Map.of(), ollamaBody(request, true), request.getCallType(), line -> {
+            JsonNode chunk = readJson(line);
+            if (chunk == null) {
+                return true;
+            }
+            if (chunk.hasNonNull("error")) {
+                throw new AiTransportException("Erreur Ollama: " + chunk.get("error").asText(), 500, null);
+            }
+            if (chunk.path("done").asBoolean(false)) {
+                usage.set(ollamaUsage(chunk));
+            }
+            String token = chunk.path("response").asText("");
+            return token.isEmpty() || sink.test(token);
+        });
+    }
 
+    private Map<String, Object> ollamaBody(AiRequest request, boolean stream) {
         Map<String, Object> body = new HashMap<>();
-        body.put("model", model);
-        body.put("prompt", prompt);
-        body.put("stream", false);
+        body.put("model", ollamaModel);
+        body.put("prompt", request.getPrompt());
+        body.put("stream", stream);
+        body.put("keep_alive", ollamaKeepAlive);
+
+        // Ollama >= 0.5 accepte un JSON Schema ; "json" seul pour les versions antérieures
+        AiResponseSchema schema = schemaFor(request);
+        if (schema != null) {
+            body.put("format", ollamaJsonModeOnly ? "json" : schema.toJsonSchema(false));
+        }
         body.put("options", Map.of(
                 "temperature", temperature,
                 "num_predict", maxTokens
         ));
+        return body;
+    }
 
-        log.debug("🌐 Appel Ollama à: {}", fullUrl);
-        log.debug("📝 Prompt: {}", prompt.substring(0, Math.min(200, prompt.length())) + "...");
-
-        try {
-            return extractOllamaResponse(send(fullUrl, body, headers));
-        } catch (ResourceAccessException e) {
-            log.error("🔌 Impossible de se connecter à Ollama. Vérifiez que le service est démarré à {}", ollamaBaseUrl);
-            throw new RuntimeException("Ollama n'est pas démarré ou inaccessible", e);
-        }
+    /**
+     * Tokens du prompt et de la génération (réponse finale d'Ollama)
+     */
+    private static int ollamaUsage(JsonNode response) {
+        return response.path("prompt_eval_count").asInt(0) + response.path("eval_count").asInt(0);
     }
 
-    @SuppressWarnings("unchecked")
-    private String extractOllamaResponse(Map<String, Object> response) {
+    private String extractOllamaResponse(JsonNode response) {
         try {
-            String responseText = (String) response.get("response");
+            String responseText = response.path("response").asText(null);
             if (responseText == null || responseText.trim().isEmpty()) {
                 throw new RuntimeException("Réponse Ollama vide");
             }
@@ -294,30 +716,34 @@ public class AiClient {
     }
 
     // =============================
-    // COMMUNICATION HTTP
+    // LECTURE DES FLUX
     // =============================
-    private Map<String, Object> send(String url, Map<String, Object> body, HttpHeaders headers) {
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
-        log.debug("🌐 Envoi HTTP POST à: {}", url);
-
-        ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.POST, entity, Map.class);
 
-        if (!response.getStatusCode().is2xxSuccessful()) {
-            throw new RuntimeException("Réponse API invalide, code HTTP : " + response.getStatusCode());
+    /**
+     * Événement SSE "data: {...}" ; null pour les commentaires, les autres champs et "[DONE]"
+     */
+    private JsonNode readSseEvent(String line) {
+        if (!line.startsWith("data:")) {
+            return null;
         }
+        String payload = line.substring(5).trim();
+        return "[DONE]".equals(payload) ? null : readJson(payload);
+    }
 
-        if (response.getBody() == null) {
-            throw new RuntimeException("Réponse API vide");
+    private JsonNode readJson(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            log.warn("⚠️ Morceau de flux illisible ignoré: {}", e.getMessage());
+            return null;
         }
-
-        return response.getBody();
     }
 
     // =============================
     // MODE SIMULATION / STATUS
     // =============================
     private boolean shouldSimulate() {
-        return "enabled".equalsIgnoreCase(simulationMode) || forceSimulation;
+        return "enabled".equalsIgnoreCase(simulationMode);
     }
 
     private String simulateAiResponse(String prompt) {
@@ -358,7 +784,10 @@ public class AiClient {
     public boolean testConnection() {
         try {
             String testPrompt = "Test de connexion. Réponds simplement par 'OK'.";
-            String response = sendRequest(testPrompt);
+            String response = sendRequest(AiRequest.builder()
+                    .prompt(testPrompt)
+                    .callType(AiCallType.HEALTH_CHECK)
+                    .build());
             return response != null && response.contains("OK");
         } catch (Exception e) {
             log.error("❌ Test de connexion IA échoué: {}", e.getMessage());
@@ -372,9 +801,16 @@ public class AiClient {
     public Map<String, Object> getStatus() {
         Map<String, Object> status = new HashMap<>();
         status.put("provider", provider);
-        status.put("model", model);
+        status.put("providers", providerChain());
+        status.put("model", modelFor(providerChain().get(0)));
         status.put("simulationMode", simulationMode);
-        status.put("forceSimulation", forceSimulation);
+        status.put("structuredOutput", structuredOutput);
+        status.put("responseCache", responseCache.getStatistics());
+
+        Map<String, Object> circuits = new LinkedHashMap<>();
+        providerChain().forEach(name -> circuits.put(name, breakerFor(name).snapshot()));
+        status.put("circuitBreakers", circuits);
+        status.put("rateLimits", rateLimiter.getStatistics());
 
         try {
             status.put("connected", testConnection());
@@ -385,12 +821,4 @@ public class AiClient {
 
         return status;
     }
-
-    /**
-     * Réinitialiser le mode simulation
-     */
-    public void resetSimulation() {
-        forceSimulation = false;
-        log.info("🔄 Mode simulation réinitialisé");
-    }
 }
\ No newline at end of file
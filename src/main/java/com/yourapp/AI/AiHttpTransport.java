@@ -0,0 +1,232 @@
+package com.yourapp.AI;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Couche de transport HTTP commune aux appels IA.
+ * Toutes les requêtes partagent le pool de connexions du client "aiHttpClient" ;
+ * chaque type d'appel a ses propres délais de connexion, de lecture et total.
+ */
+@Component
+@Slf4j
+public class AiHttpTransport {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final Map<AiCallType, OkHttpClient> clients = new EnumMap<>(AiCallType.class);
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final int maxConnectionsPerHost;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public AiHttpTransport(
+            OkHttpClient aiHttpClient,
+            @Value("${ai.http.max-connections-per-host:8}") int maxConnectionsPerHost,
+            @Value("${ai.http.analysis.connect-timeout-ms:10000}") long analysisConnect,
+            @Value("${ai.http.analysis.read-timeout-ms:${ai.ollama.timeout:300000}}") long analysisRead,
+            @Value("${ai.http.analysis.call-timeout-ms:600000}") long analysisCall,
+            @Value("${ai.http.chat.connect-timeout-ms:10000}") long chatConnect,
+            @Value("${ai.http.chat.read-timeout-ms:30000}") long chatRead,
+            @Value("${ai.http.chat.call-timeout-ms:45000}") long chatCall,
+            @Value("${ai.http.health-check.connect-timeout-ms:5000}") long healthConnect,
+            @Value("${ai.http.health-check.read-timeout-ms:15000}") long healthRead,
+            @Value("${ai.http.health-check.call-timeout-ms:20000}") long healthCall) {
+
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+
+        // Clients dérivés : même pool de connexions et dispatcher, délais propres au type d'appel
+        clients.put(AiCallType.ANALYSIS, withTimeouts(aiHttpClient, analysisConnect, analysisRead, analysisCall));
+        clients.put(AiCallType.CHAT, withTimeouts(aiHttpClient, chatConnect, chatRead, chatCall));
+        clients.put(AiCallType.HEALTH_CHECK, withTimeouts(aiHttpClient, healthConnect, healthRead, healthCall));
+    }
+
+    private static OkHttpClient withTimeouts(OkHttpClient base, long connectMs, long readMs, long callMs) {
+        return base.newBuilder()
+                .connectTimeout(connectMs, TimeUnit.MILLISECONDS)
+                .readTimeout(readMs, TimeUnit.MILLISECONDS)
+                .writeTimeout(readMs, TimeUnit.MILLISECONDS)
+                .callTimeout(callMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Envoyer un POST JSON et retourner la réponse JSON
+     */
+    public JsonNode postJson(String url, Map<String, String> headers, Object body, AiCallType callType) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Corps de requête IA non sérialisable", e);
+        }
+
+        Request request = new Request.Builder()
+                .url(url)
+                .headers(Headers.of(headers))
+                .post(RequestBody.create(json, JSON))
+                .build();
+
+        String responseBody = execute(request, callType);
+        try {
+            return objectMapper.readTree(responseBody);
+        } catch (JsonProcessingException e) {
+            throw new AiTransportException("Réponse API non JSON: " + e.getOriginalMessage(), 200, null);
+        }
+    }
+
+    /**
+     * Envoyer un POST JSON et lire la réponse ligne par ligne (NDJSON ou Server-Sent Events).
+     * La lecture s'arrête quand onLine retourne false : l'appel est alors annulé et la génération
+     * interrompue côté serveur.
+     *
+     * @return true si le flux a été lu jusqu'au bout, false s'il a été interrompu
+     */
+    public boolean postStream(String url, Map<String, String> headers, Object body, AiCallType callType,
+                              Predicate<String> onLine) {
+        Request request;
+        try {
+            request = new Request.Builder()
+                    .url(url)
+                    .headers(Headers.of(headers))
+                    .post(RequestBody.create(objectMapper.writeValueAsString(body), JSON))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Corps de requête IA non sérialisable", e);
+        }
+
+        HttpUrl httpUrl = request.url();
+        Semaphore permits = acquire(httpUrl);
+
+        log.debug("🌐 Flux HTTP POST à: {}{} ({})", httpUrl.host(), httpUrl.encodedPath(), callType);
+        Call call = clients.get(callType).newCall(request);
+        try (Response response = call.execute()) {
+            ResponseBody responseBody = response.body();
+            if (!response.isSuccessful() || responseBody == null) {
+                String content = responseBody != null ? responseBody.string() : "";
+                throw new AiTransportException(
+                        "Erreur HTTP " + response.code() + ": " + abbreviate(content),
+                        response.code(), parseRetryAfter(response.header("Retry-After")));
+            }
+
+            BufferedSource source = responseBody.source();
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                if (!line.isBlank() && !onLine.test(line)) {
+                    call.cancel();
+                    log.info("✂️ Flux interrompu par le client ({})", httpUrl.host());
+                    return false;
+                }
+            }
+            return true;
+
+        } catch (SocketTimeoutException e) {
+            throw new AiTransportException("Timeout " + callType + " vers " + httpUrl.host(), true, e);
+        } catch (InterruptedIOException e) {
+            throw new AiTransportException("Délai total dépassé " + callType + " vers " + httpUrl.host(), true, e);
+        } catch (IOException e) {
+            throw new AiTransportException("Erreur de connexion à " + httpUrl.host() + ": " + e.getMessage(), false, e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Semaphore acquire(HttpUrl url) {
+        Semaphore permits = hostPermits.computeIfAbsent(url.host(), host -> new Semaphore(maxConnectionsPerHost));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiTransportException("Appel IA interrompu", false, e);
+        }
+        return permits;
+    }
+
+    /**
+     * Exécuter la requête sur le client du type d'appel, en bornant les appels simultanés par hôte
+     */
+    private String execute(Request request, AiCallType callType) {
+        HttpUrl url = request.url();
+        Semaphore permits = acquire(url);
+
+        log.debug("🌐 Envoi HTTP POST à: {}{} ({})", url.host(), url.encodedPath(), callType);
+        try (Response response = clients.get(callType).newCall(request).execute()) {
+            ResponseBody body = response.body();
+            String content = body != null ? body.string() : "";
+
+            if (!response.isSuccessful()) {
+                log.warn("⚠️ Réponse HTTP {} de {} ({})", response.code(), url.host(), response.protocol());
+                throw new AiTransportException(
+                        "Erreur HTTP " + response.code() + ": " + abbreviate(content),
+                        response.code(), parseRetryAfter(response.header("Retry-After")));
+            }
+
+            if (content.isBlank()) {
+                throw new AiTransportException("Réponse API vide", response.code(), null);
+            }
+            return content;
+
+        } catch (SocketTimeoutException e) {
+            throw new AiTransportException("Timeout " + callType + " vers " + url.host(), true, e);
+        } catch (InterruptedIOException e) {
+            // callTimeout dépassé (délai total de l'appel)
+            throw new AiTransportException("Délai total dépassé " + callType + " vers " + url.host(), true, e);
+        } catch (IOException e) {
+            throw new AiTransportException("Erreur de connexion à " + url.host() + ": " + e.getMessage(), false, e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * En-tête Retry-After : nombre de secondes ou date HTTP
+     */
+    static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException ignored) {
+            // format date HTTP
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration delay = Duration.between(ZonedDateTime.now(date.getZone()), date);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String abbreviate(String content) {
+        return content.length() <= 300 ? content : content.substring(0, 300) + "...";
+    }
+}
@@ -0,0 +1,116 @@
+package com.yourapp.AI;
+
+import com.yourapp.model.AuditIssue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Fusion des problèmes détectés sur plusieurs morceaux d'un même document.
+ * Deux problèmes sont considérés identiques s'ils ont le même type, une description quasi
+ * identique (similarité de Jaccard sur les mots) et une localisation compatible.
+ */
+@Component
+@Slf4j
+public class AiIssueDeduplicator {
+
+    @Value("${app.audit.chunking.dedup-similarity:0.8}")
+    private double similarityThreshold;
+
+    /**
+     * Dédupliquer une liste de problèmes en conservant le premier et en complétant ses champs manquants
+     */
+    public List<AuditIssue> deduplicate(List<AuditIssue> issues) {
+        List<AuditIssue> kept = new ArrayList<>();
+        List<Set<String>> keptTokens = new ArrayList<>();
+
+        for (AuditIssue issue : issues) {
+            Set<String> tokens = tokenize(issue.getDescription());
+            int duplicateOf = -1;
+
+            for (int i = 0; i < kept.size(); i++) {
+                if (isSameIssue(kept.get(i), keptTokens.get(i), issue, tokens)) {
+                    duplicateOf = i;
+                    break;
+                }
+            }
+
+            if (duplicateOf < 0) {
+                kept.add(issue);
+                keptTokens.add(tokens);
+            } else {
+                complete(kept.get(duplicateOf), issue);
+            }
+        }
+
+        if (kept.size() < issues.size()) {
+            log.info("🧹 {} doublon(s) supprimé(s) sur {} problèmes", issues.size() - kept.size(), issues.size());
+        }
+        return kept;
+    }
+
+    private boolean isSameIssue(AuditIssue a, Set<String> aTokens, AuditIssue b, Set<String> bTokens) {
+        if (!normalize(a.getIssueType()).equals(normalize(b.getIssueType()))) {
+            return false;
+        }
+        if (!locationsCompatible(a.getPageNumber(), b.getPageNumber())) {
+            return false;
+        }
+        return jaccard(aTokens, bTokens) >= similarityThreshold;
+    }
+
+    /**
+     * Pages égales ou voisines (recouvrement entre morceaux), ou localisation inconnue
+     */
+    private boolean locationsCompatible(Integer pageA, Integer pageB) {
+        return pageA == null || pageB == null || Math.abs(pageA - pageB) <= 1;
+    }
+
+    private void complete(AuditIssue target, AuditIssue duplicate) {
+        if (target.getPageNumber() == null) {
+            target.setPageNumber(duplicate.getPageNumber());
+        }
+        if (target.getParagraphNumber() == null) {
+            target.setParagraphNumber(duplicate.getParagraphNumber());
+        }
+        if (target.getSuggestion() == null || target.getSuggestion().isBlank()) {
+            target.setSuggestion(duplicate.getSuggestion());
+        }
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 1.0;
+        }
+        Set<String> intersection = new HashSet<>(a);
+        intersection.retainAll(b);
+        int union = a.size() + b.size() - intersection.size();
+        return (double) intersection.size() / union;
+    }
+
+    private static Set<String> tokenize(String text) {
+        Set<String> tokens = new HashSet<>();
+        for (String token : normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() > 2) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Minuscules sans accents pour comparer des libellés
+     */
+    private static String normalize(String text) {
+        String value = Objects.requireNonNullElse(text, "").toLowerCase(Locale.ROOT).trim();
+        return Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+}
@@ -1,172 +1,334 @@
 package com.yourapp.AI;
 
 import com.yourapp.model.AuditTemplate;
+import com.yourapp.services.extraction.BatchedDocument;
+import com.yourapp.services.extraction.DocumentChunk;
+import com.yourapp.services.rules.LocalRuleEngine;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Constructeur de prompts pour l'intelligence artificielle
- * Génère dynamiquement les prompts en fonction du template et du contenu
+ * Les prompts d'analyse sont des gabarits compilés une fois par version de template d'audit :
+ * tout ce qui ne dépend que du template forme un préfixe statique, et le document est ajouté en dernier,
+ * pour que les providers réutilisent le préfixe d'un document à l'autre (cache de prompt).
+ * Les vérifications couvertes par les règles locales du template sont signalées à l'IA pour qu'elle s'en dispense.
  */
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class AiPromptBuilder {
 
-    /**
-     * Construire un prompt complet pour l'analyse d'un document
-     */
-    public String buildPrompt(AuditTemplate template, String documentContent, String documentName) {
-        log.info("Construction du prompt pour le document: {}", documentName);
+    private static final String ANALYST_INTRO = "Tu es un assistant d'audit documentaire spécialisé. ";
 
-        StringBuilder prompt = new StringBuilder();
+    private static final String DOCUMENT_SOURCE = ANALYST_INTRO + """
+            Ta tâche est d'analyser le document fourni et d'identifier tous les problèmes selon les critères définis.
 
-        // En-tête du prompt
-        prompt.append("Tu es un assistant d'audit documentaire spécialisé. ");
-        prompt.append("Ta tâche est d'analyser le document fourni et d'identifier tous les problèmes selon les critères définis.\n\n");
+            {{template}}{{responseFormat}}{{issueTypes}}{{localChecks}}=== CONSIGNES ===
+            Analyse ce document attentivement et identifie TOUS les problèmes. \
+            Sois précis dans tes descriptions et tes suggestions. \
+            Indique le numéro de page et de paragraphe si possible, \
+            et recopie mot pour mot dans "excerpt" le passage concerné. \
+            Réponds UNIQUEMENT avec le JSON structuré, sans texte avant ou après.
 
-        // Informations sur le template d'analyse
-        prompt.append("=== MODÈLE D'ANALYSE ===\n");
-        prompt.append("Nom du modèle: ").append(template.getName()).append("\n");
+            === DOCUMENT À ANALYSER ===
+            Nom du document: {{documentName}}
+            {{scope}}
+            Contenu:
+            ---
+            {{content}}
+            ---
+            """;
 
-        if (template.getDescription() != null && !template.getDescription().isEmpty()) {
-            prompt.append("Description: ").append(template.getDescription()).append("\n");
-        }
+    private static final String BATCH_SOURCE = ANALYST_INTRO + """
+            Ta tâche est d'analyser séparément chacun des documents fournis \
+            et d'identifier tous les problèmes selon les critères définis.
 
-        if (template.getOrganization() != null && !template.getOrganization().isEmpty()) {
-            prompt.append("Organisation: ").append(template.getOrganization()).append("\n");
-        }
+            {{template}}{{responseFormat}}{{issueTypes}}{{localChecks}}=== CONSIGNES ===
+            Analyse chaque document indépendamment et identifie TOUS les problèmes. \
+            Chaque problème doit indiquer dans "documentId" l'identifiant du document concerné ; \
+            les numéros de page et de paragraphe sont relatifs à ce document. \
+            N'ajoute aucun problème pour un document conforme. \
+            Recopie mot pour mot dans "excerpt" le passage concerné. \
+            Réponds UNIQUEMENT avec le JSON structuré, sans texte avant ou après.
 
-        prompt.append("Nombre de règles: ").append(template.getRuleCount()).append("\n");
+            === DOCUMENTS À ANALYSER ===
+            {{documents}}""";
 
-        // Instructions pour le format de réponse
-        prompt.append("\n=== FORMAT DE RÉPONSE REQUIS ===\n");
-        prompt.append("Tu dois répondre UNIQUEMENT au format JSON suivant, sans texte supplémentaire:\n");
-        prompt.append("{\n");
-        prompt.append("  \"issues\": [\n");
-        prompt.append("    {\n");
-        prompt.append("      \"issueType\": \"Type du problème\",\n");
-        prompt.append("      \"description\": \"Description détaillée du problème\",\n");
-        prompt.append("      \"pageNumber\": 1,\n");
-        prompt.append("      \"paragraphNumber\": 2,\n");
-        prompt.append("      \"suggestion\": \"Suggestion d'amélioration ou correction\"\n");
-        prompt.append("    }\n");
-        prompt.append("  ]\n");
-        prompt.append("}\n\n");
+    private static final PromptTemplate SIMPLE = PromptTemplate.compile("""
+            Analyse le texte suivant et identifie les problèmes:
 
-        // Types de problèmes
-        prompt.append("=== TYPES DE PROBLÈMES POSSIBLES ===\n");
-        prompt.append("- Non-conformité réglementaire\n");
-        prompt.append("- Erreur de formatage\n");
-        prompt.append("- Information manquante\n");
-        prompt.append("- Incohérence dans le contenu\n");
-        prompt.append("- Problème de structure\n");
-        prompt.append("- Erreur grammaticale ou orthographique\n\n");
+            {{content}}
+
+            {{responseFormat}}""");
+
+    private static final PromptTemplate COMPARATIVE = PromptTemplate.compile("""
+            Tu es un assistant d'audit documentaire. Compare les deux documents suivants \
+            selon le modèle d'analyse '{{templateName}}'.
+
+            {{responseFormat}}=== DOCUMENT 1 ===
+            {{document1}}
+
+            === DOCUMENT 2 ===
+            {{document2}}
+
+            Identifie les différences, incohérences et problèmes entre ces documents.
+            """);
+
+    private static final PromptTemplate COMPLIANCE = PromptTemplate.compile("""
+            Tu es un expert en conformité documentaire. \
+            Vérifie la conformité du document suivant par rapport au standard: {{standard}}
+
+            {{criteria}}{{responseFormat}}=== DOCUMENT À VÉRIFIER ===
+            {{content}}
 
-        // Document à analyser
-        prompt.append("=== DOCUMENT À ANALYSER ===\n");
-        prompt.append("Nom du document: ").append(documentName).append("\n\n");
-        prompt.append("Contenu:\n");
-        prompt.append("---\n");
-        prompt.append(documentContent).append("\n");
-        prompt.append("---\n\n");
+            Liste tous les points de non-conformité.
+            """);
 
-        // Instructions finales
-        prompt.append("Analyse ce document attentivement et identifie TOUS les problèmes. ");
-        prompt.append("Sois précis dans tes descriptions et tes suggestions. ");
-        prompt.append("Indique le numéro de page et de paragraphe si possible. ");
-        prompt.append("Réponds UNIQUEMENT avec le JSON structuré, sans texte avant ou après.\n");
+    private static final PromptTemplate QUALITY = PromptTemplate.compile("""
+            Tu es un évaluateur de qualité documentaire. Évalue la qualité du document suivant selon ces aspects:
+            - Clarté et lisibilité
+            - Structure et organisation
+            - Cohérence et logique
+            - Complétude des informations
+            - Respect des bonnes pratiques
 
-        log.debug("Prompt construit avec succès. Longueur: {} caractères", prompt.length());
+            {{criteria}}{{responseFormat}}=== DOCUMENT ===
+            {{content}}
 
-        return prompt.toString();
+            Identifie tous les points d'amélioration et fournis des suggestions concrètes.
+            """);
+
+    // Le schéma de réponse est transmis au provider (voir AiResponseSchema) : le prompt se contente d'un rappel
+    @Value("${ai.structured-output.enabled:true}")
+    private boolean structuredOutput;
+
+    // Vérifications déjà faites localement : retirées du travail demandé à l'IA
+    private final LocalRuleEngine ruleEngine;
+
+    // Gabarits compilés par template d'audit (et type de prompt), recompilés quand le template change
+    private final Map<String, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<>();
+
+    private record CompiledTemplate(LocalDateTime version, PromptTemplate template) {
     }
 
     /**
-     * Construire un prompt simple pour des tests rapides
+     * Taille exacte d'un prompt avant envoi
+     *
+     * @param totalChars  longueur du prompt complet
+     * @param prefixChars longueur du préfixe commun à tous les documents du template
      */
-    public String buildSimplePrompt(String text) {
-        StringBuilder prompt = new StringBuilder();
+    public record PromptSize(int totalChars, int prefixChars) {
 
-        prompt.append("Analyse le texte suivant et identifie les problèmes:\n\n");
-        prompt.append(text).append("\n\n");
-        prompt.append("Réponds au format JSON avec la structure suivante:\n");
-        prompt.append("{\n");
-        prompt.append("  \"issues\": [\n");
-        prompt.append("    {\"issueType\": \"...\", \"description\": \"...\", \"suggestion\": \"...\"}\n");
-        prompt.append("  ]\n");
-        prompt.append("}\n");
+        public int estimatedTokens() {
+            return totalChars / AiRateLimiter.CHARS_PER_TOKEN;
+        }
+    }
 
-        return prompt.toString();
+    /**
+     * Construire un prompt complet pour l'analyse d'un document
+     */
+    public String buildPrompt(AuditTemplate template, String documentContent, String documentName) {
+        log.info("Construction du prompt pour le document: {}", documentName);
+        return documentTemplate(template).render(documentSlots(documentName, null, documentContent));
     }
 
     /**
-     * Construire un prompt pour une analyse comparative
+     * Taille exacte du prompt d'analyse d'un document, sans le construire
      */
-    public String buildComparativePrompt(AuditTemplate template, String document1, String document2) {
-        StringBuilder prompt = new StringBuilder();
+    public PromptSize measurePrompt(AuditTemplate template, String documentContent, String documentName) {
+        PromptTemplate compiled = documentTemplate(template);
+        return new PromptSize(compiled.length(documentSlots(documentName, null, documentContent)),
+                compiled.staticPrefix().length());
+    }
 
-        prompt.append("Tu es un assistant d'audit documentaire. Compare les deux documents suivants ");
-        prompt.append("selon le modèle d'analyse '").append(template.getName()).append("'.\n\n");
+    /**
+     * Construire le prompt d'analyse d'un morceau de document (mode découpé).
+     * La position du morceau est indiquée pour que les numéros de page et de paragraphe restent absolus.
+     */
+    public String buildChunkPrompt(AuditTemplate template, DocumentChunk chunk, String documentName) {
+        log.info("Construction du prompt pour le morceau {}/{} du document: {}",
+                chunk.index() + 1, chunk.total(), documentName);
+
+        StringBuilder scope = new StringBuilder();
+        scope.append("Partie ").append(chunk.index() + 1).append(" sur ").append(chunk.total())
+                .append(" du document (les autres parties sont analysées séparément).\n");
+        if (chunk.firstPage() != null) {
+            scope.append("Cette partie couvre les pages ").append(chunk.firstPage())
+                    .append(" à ").append(chunk.lastPage()).append(".\n");
+        }
+        scope.append("Le premier paragraphe de cette partie est le paragraphe n°")
+                .append(chunk.firstParagraph()).append(" du document.\n");
+
+        return documentTemplate(template).render(documentSlots(documentName, scope.toString(), chunk.text()));
+    }
 
-        prompt.append("=== DOCUMENT 1 ===\n");
-        prompt.append(document1).append("\n\n");
+    /**
+     * Construire un prompt unique pour plusieurs petits documents (mode groupé).
+     * Chaque document est délimité et identifié ; l'IA rattache chaque problème à son documentId.
+     */
+    public String buildBatchPrompt(AuditTemplate template, List<BatchedDocument> documents) {
+        log.info("Construction du prompt groupé pour {} documents", documents.size());
+
+        // Documents à analyser, chacun entre ses délimiteurs
+        StringBuilder body = new StringBuilder();
+        for (BatchedDocument document : documents) {
+            body.append("<<<DOCUMENT documentId=").append(document.documentId())
+                    .append(" nom=\"").append(document.documentName()).append("\">>>\n");
+            body.append(document.content().text()).append("\n");
+            body.append("<<<FIN DU DOCUMENT documentId=").append(document.documentId()).append(">>>\n\n");
+        }
 
-        prompt.append("=== DOCUMENT 2 ===\n");
-        prompt.append(document2).append("\n\n");
+        String prompt = compiled("batch", template, BATCH_SOURCE, true).render(Map.of("documents", body.toString()));
+        log.debug("Prompt groupé construit. Longueur: {} caractères", prompt.length());
+        return prompt;
+    }
 
-        prompt.append("Identifie les différences, incohérences et problèmes entre ces documents.\n");
-        prompt.append("Réponds au format JSON standard avec la liste des problèmes détectés.\n");
+    private PromptTemplate documentTemplate(AuditTemplate template) {
+        return compiled("document", template, DOCUMENT_SOURCE, false);
+    }
 
-        return prompt.toString();
+    private static Map<String, String> documentSlots(String documentName, String scopeNote, String content) {
+        Map<String, String> slots = new HashMap<>();
+        slots.put("documentName", documentName);
+        slots.put("scope", scopeNote);
+        slots.put("content", content);
+        return slots;
     }
 
     /**
-     * Construire un prompt pour une validation de conformité
+     * Gabarit compilé pour ce template d'audit : les sections du template, du format de réponse
+     * et des types de problèmes sont figées dans le texte ; seuls les emplacements du document restent.
+     * Un template non enregistré (sans id) est compilé à chaque appel.
      */
-    public String buildCompliancePrompt(AuditTemplate template, String documentContent, String standard) {
-        StringBuilder prompt = new StringBuilder();
+    private PromptTemplate compiled(String kind, AuditTemplate template, String source, boolean withDocumentId) {
+        if (template.getId() == null) {
+            return compile(template, source, withDocumentId);
+        }
+        CompiledTemplate entry = compiledTemplates.compute(kind + ":" + template.getId(), (key, current) ->
+                current != null && Objects.equals(current.version(), template.getUpdatedAt())
+                        ? current
+                        : new CompiledTemplate(template.getUpdatedAt(), compile(template, source, withDocumentId)));
+        return entry.template();
+    }
 
-        prompt.append("Tu es un expert en conformité documentaire. ");
-        prompt.append("Vérifie la conformité du document suivant par rapport au standard: ");
-        prompt.append(standard).append("\n\n");
+    private PromptTemplate compile(AuditTemplate template, String source, boolean withDocumentId) {
+        log.debug("Compilation du gabarit de prompt pour le template {}", template.getId());
+        return PromptTemplate.compile(source).bind(Map.of(
+                "template", templateSection(template),
+                "responseFormat", responseFormat(withDocumentId),
+                "issueTypes", issueTypes(),
+                "localChecks", ruleEngine.rulesFor(template).promptNote()));
+    }
 
-        if (template.getDescription() != null) {
-            prompt.append("=== CRITÈRES DE CONFORMITÉ ===\n");
-            prompt.append(template.getDescription()).append("\n\n");
+    private String templateSection(AuditTemplate template) {
+        // Informations sur le template d'analyse
+        StringBuilder section = new StringBuilder();
+        section.append("=== MODÈLE D'ANALYSE ===\n");
+        section.append("Nom du modèle: ").append(template.getName()).append("\n");
+
+        if (template.getDescription() != null && !template.getDescription().isEmpty()) {
+            section.append("Description: ").append(template.getDescription()).append("\n");
+        }
+
+        if (template.getOrganization() != null && !template.getOrganization().isEmpty()) {
+            section.append("Organisation: ").append(template.getOrganization()).append("\n");
         }
 
-        prompt.append("=== DOCUMENT À VÉRIFIER ===\n");
-        prompt.append(documentContent).append("\n\n");
+        section.append("Nombre de règles: ").append(template.getRuleCount()).append("\n");
+        return section.toString();
+    }
+
+    private String responseFormat(boolean withDocumentId) {
+        if (structuredOutput) {
+            AiResponseSchema schema = withDocumentId ? AiResponseSchema.BATCH_ISSUES : AiResponseSchema.ISSUES;
+            return "\n=== FORMAT DE RÉPONSE ===\n"
+                    + "JSON {\"issues\": [...]}, chaque problème avec "
+                    + String.join(", ", schema.fieldNames()) + ".\n\n";
+        }
 
-        prompt.append("Liste tous les points de non-conformité au format JSON standard.\n");
+        // Instructions pour le format de réponse
+        return "\n=== FORMAT DE RÉPONSE REQUIS ===\n"
+                + "Tu dois répondre UNIQUEMENT au format JSON suivant, sans texte supplémentaire:\n"
+                + "{\n"
+                + "  \"issues\": [\n"
+                + "    {\n"
+                + (withDocumentId ? "      \"documentId\": 12,\n" : "")
+                + "      \"issueType\": \"Type du problème\",\n"
+                + "      \"description\": \"Description détaillée du problème\",\n"
+                + "      \"pageNumber\": 1,\n"
+                + "      \"paragraphNumber\": 2,\n"
+                + "      \"suggestion\": \"Suggestion d'amélioration ou correction\",\n"
+                + "      \"excerpt\": \"Citation exacte (une phrase) du passage concerné\"\n"
+                + "    }\n"
+                + "  ]\n"
+                + "}\n\n";
+    }
 
-        return prompt.toString();
+    private static String issueTypes() {
+        // Types de problèmes
+        return """
+                === TYPES DE PROBLÈMES POSSIBLES ===
+                - Non-conformité réglementaire
+                - Erreur de formatage
+                - Information manquante
+                - Incohérence dans le contenu
+                - Problème de structure
+                - Erreur grammaticale ou orthographique
+
+                """;
     }
 
     /**
-     * Construire un prompt pour une analyse de qualité
+     * Construire un prompt simple pour des tests rapides
      */
-    public String buildQualityPrompt(AuditTemplate template, String documentContent) {
-        StringBuilder prompt = new StringBuilder();
-
-        prompt.append("Tu es un évaluateur de qualité documentaire. ");
-        prompt.append("Évalue la qualité du document suivant selon ces aspects:\n");
-        prompt.append("- Clarté et lisibilité\n");
-        prompt.append("- Structure et organisation\n");
-        prompt.append("- Cohérence et logique\n");
-        prompt.append("- Complétude des informations\n");
-        prompt.append("- Respect des bonnes pratiques\n\n");
-
-        if (template.getDescription() != null) {
-            prompt.append("Critères d'évaluation: ").append(template.getDescription()).append("\n\n");
-        }
+    public String buildSimplePrompt(String text) {
+        return SIMPLE.render(Map.of("content", text, "responseFormat", responseFormat(false)));
+    }
 
-        prompt.append("=== DOCUMENT ===\n");
-        prompt.append(documentContent).append("\n\n");
+    /**
+     * Construire un prompt pour une analyse comparative
+     */
+    public String buildComparativePrompt(AuditTemplate template, String document1, String document2) {
+        return COMPARATIVE.render(Map.of(
+                "templateName", template.getName(),
+                "responseFormat", responseFormat(false),
+                "document1", document1,
+                "document2", document2));
+    }
 
-        prompt.append("Identifie tous les points d'amélioration et fournis des suggestions concrètes.\n");
-        prompt.append("Réponds au format JSON standard.\n");
+    /**
+     * Construire un prompt pour une validation de conformité
+     */
+    public String buildCompliancePrompt(AuditTemplate template, String documentContent, String standard) {
+        String criteria = template.getDescription() != null
+                ? "=== CRITÈRES DE CONFORMITÉ ===\n" + template.getDescription() + "\n\n" : "";
+        return COMPLIANCE.render(Map.of(
+                "standard", standard,
+                "criteria", criteria,
+                "responseFormat", responseFormat(false),
+                "content", documentContent));
+    }
 
-        return prompt.toString();
+    /**
+     * Construire un prompt pour une analyse de qualité
+     */
+    public String buildQualityPrompt(AuditTemplate template, String documentContent) {
+        String criteria = template.getDescription() != null
+                ? "Critères d'évaluation: " + template.getDescription() + "\n\n" : "";
+        return QUALITY.render(Map.of(
+                "criteria", criteria,
+                "responseFormat", responseFormat(false),
+                "content", documentContent));
     }
 
     /**
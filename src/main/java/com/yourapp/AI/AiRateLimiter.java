@@ -0,0 +1,294 @@
+package com.yourapp.AI;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limiteur de débit côté client, par provider et modèle : un seau de requêtes par minute (RPM)
+ * et un seau de tokens par minute (TPM). Les tokens sont d'abord estimés d'après la taille du prompt
+ * puis corrigés avec la consommation réelle renvoyée par le provider.
+ * Les appels en attente sont servis à tour de rôle par audit, pour qu'un gros audit
+ * n'affame pas les autres.
+ */
+@Component
+@Slf4j
+public class AiRateLimiter {
+
+    // Estimation grossière : ~4 caractères par token
+    static final int CHARS_PER_TOKEN = 4;
+
+    // File des appels sans audit (chat, tests de connexion)
+    private static final String INTERACTIVE_LANE = "interactive";
+
+    @Value("${ai.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.rate-limit.ollama.rpm:0}")
+    private int ollamaRpm;
+
+    @Value("${ai.rate-limit.ollama.tpm:0}")
+    private int ollamaTpm;
+
+    @Value("${ai.rate-limit.gemini.rpm:15}")
+    private int geminiRpm;
+
+    @Value("${ai.rate-limit.gemini.tpm:1000000}")
+    private int geminiTpm;
+
+    @Value("${ai.rate-limit.openai.rpm:500}")
+    private int openAiRpm;
+
+    @Value("${ai.rate-limit.openai.tpm:200000}")
+    private int openAiTpm;
+
+    private final Map<String, ProviderLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Autorisation d'appel : à rendre via reconcile une fois la consommation réelle connue
+     */
+    public record Permit(String key, int estimatedTokens) {
+    }
+
+    /**
+     * Estimer les tokens d'un appel : prompt + sortie maximale réservée
+     */
+    public static int estimateTokens(String prompt, int maxOutputTokens) {
+        return (prompt != null ? prompt.length() : 0) / CHARS_PER_TOKEN + Math.max(0, maxOutputTokens);
+    }
+
+    /**
+     * Attendre qu'un appel soit autorisé pour ce provider/modèle (bloquant, équitable entre audits)
+     */
+    public Permit acquire(String provider, String model, int estimatedTokens, Long auditId) {
+        String key = provider + ":" + model;
+        if (!enabled) {
+            return new Permit(key, estimatedTokens);
+        }
+        ProviderLimiter limiter = limiters.computeIfAbsent(key, k -> createLimiter(k, provider));
+        limiter.acquire(auditId != null ? auditId : INTERACTIVE_LANE, estimatedTokens);
+        return new Permit(key, estimatedTokens);
+    }
+
+    /**
+     * Corriger le seau TPM avec les tokens réellement consommés (0 = inconnu, estimation conservée)
+     */
+    public void reconcile(Permit permit, int actualTokens) {
+        if (permit == null || actualTokens <= 0) {
+            return;
+        }
+        ProviderLimiter limiter = limiters.get(permit.key());
+        if (limiter != null) {
+            limiter.adjustTokens(permit.estimatedTokens() - actualTokens);
+        }
+    }
+
+    /**
+     * Métriques par provider/modèle : profondeur de file, attentes, capacité restante
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        limiters.forEach((key, limiter) -> stats.put(key, limiter.snapshot()));
+        return stats;
+    }
+
+    private ProviderLimiter createLimiter(String key, String provider) {
+        return switch (provider) {
+            case "gemini" -> new ProviderLimiter(key, geminiRpm, geminiTpm);
+            case "openai" -> new ProviderLimiter(key, openAiRpm, openAiTpm);
+            default -> new ProviderLimiter(key, ollamaRpm, ollamaTpm);
+        };
+    }
+
+    /**
+     * Seau à jetons rechargé en continu ; capacité 0 = illimité.
+     * Le solde peut devenir négatif quand la consommation réelle dépasse l'estimation.
+     */
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double refillPerMs;
+        private double available;
+        private long lastRefill = System.currentTimeMillis();
+
+        TokenBucket(int perMinute) {
+            this.capacity = Math.max(0, perMinute);
+            this.refillPerMs = capacity / 60_000.0;
+            this.available = capacity;
+        }
+
+        boolean unlimited() {
+            return capacity == 0;
+        }
+
+        void refill(long now) {
+            available = Math.min(capacity, available + (now - lastRefill) * refillPerMs);
+            lastRefill = now;
+        }
+
+        /**
+         * Délai avant de disposer de la quantité demandée (plafonnée à la capacité), 0 si disponible
+         */
+        long millisUntil(double amount) {
+            if (unlimited()) {
+                return 0;
+            }
+            double needed = Math.min(amount, capacity) - available;
+            return needed <= 0 ? 0 : (long) Math.ceil(needed / refillPerMs);
+        }
+
+        void take(double amount) {
+            if (!unlimited()) {
+                available -= Math.min(amount, capacity);
+            }
+        }
+
+        void give(double amount) {
+            if (!unlimited()) {
+                available = Math.min(capacity, available + amount);
+            }
+        }
+    }
+
+    /**
+     * Limiteur d'un provider/modèle. Les appels en attente sont rangés par audit ;
+     * l'audit en tête de rotation est servi puis repasse en fin de rotation.
+     */
+    private static final class ProviderLimiter {
+        private final String key;
+        private final TokenBucket requests;
+        private final TokenBucket tokens;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final Map<Object, Deque<Object>> waiting = new HashMap<>();  // appels en attente par audit
+        private final Deque<Object> rotation = new ArrayDeque<>();
+
+        private long granted = 0;
+        private long totalWaitMs = 0;
+        private long maxWaitMs = 0;
+        private int maxQueueDepth = 0;
+
+        ProviderLimiter(String key, int rpm, int tpm) {
+            this.key = key;
+            this.requests = new TokenBucket(rpm);
+            this.tokens = new TokenBucket(tpm);
+        }
+
+        void acquire(Object lane, int estimatedTokens) {
+            long arrival = System.currentTimeMillis();
+            Object ticket = new Object();
+
+            lock.lock();
+            try {
+                Deque<Object> queue = waiting.computeIfAbsent(lane, l -> new ArrayDeque<>());
+                if (queue.isEmpty()) {
+                    rotation.addLast(lane);
+                }
+                queue.addLast(ticket);
+                maxQueueDepth = Math.max(maxQueueDepth, queueDepth());
+
+                while (true) {
+                    boolean myTurn = lane.equals(rotation.peekFirst()) && queue.peekFirst() == ticket;
+                    long delay = 50;
+                    if (myTurn) {
+                        long now = System.currentTimeMillis();
+                        requests.refill(now);
+                        tokens.refill(now);
+                        delay = Math.max(requests.millisUntil(1), tokens.millisUntil(estimatedTokens));
+                        if (delay == 0) {
+                            requests.take(1);
+                            tokens.take(estimatedTokens);
+                            grant(lane, queue, now - arrival);
+                            return;
+                        }
+                    }
+                    changed.await(Math.max(1, delay), TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                // Retirer l'appel abandonné de la file
+                Deque<Object> queue = waiting.get(lane);
+                if (queue != null) {
+                    queue.remove(ticket);
+                    if (queue.isEmpty()) {
+                        waiting.remove(lane);
+                        rotation.remove(lane);
+                    }
+                }
+                changed.signalAll();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Attente du quota IA interrompue", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void grant(Object lane, Deque<Object> queue, long waitedMs) {
+            queue.pollFirst();
+            rotation.pollFirst();
+            if (queue.isEmpty()) {
+                waiting.remove(lane);
+            } else {
+                rotation.addLast(lane);
+            }
+
+            granted++;
+            totalWaitMs += waitedMs;
+            maxWaitMs = Math.max(maxWaitMs, waitedMs);
+            if (waitedMs > 1000) {
+                log.info("🚦 Quota {} : appel (file {}) servi après {} ms d'attente", key, lane, waitedMs);
+            }
+            changed.signalAll();
+        }
+
+        void adjustTokens(int delta) {
+            lock.lock();
+            try {
+                tokens.refill(System.currentTimeMillis());
+                if (delta >= 0) {
+                    tokens.give(delta);
+                } else {
+                    tokens.take(-delta);
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int queueDepth() {
+            return waiting.values().stream().mapToInt(Deque::size).sum();
+        }
+
+        Map<String, Object> snapshot() {
+            lock.lock();
+            try {
+                long now = System.currentTimeMillis();
+                requests.refill(now);
+                tokens.refill(now);
+
+                Map<String, Object> info = new LinkedHashMap<>();
+                info.put("queueDepth", queueDepth());
+                info.put("waitingAudits", rotation.size());
+                info.put("maxQueueDepth", maxQueueDepth);
+                info.put("granted", granted);
+                info.put("avgWaitMs", granted > 0 ? totalWaitMs / granted : 0);
+                info.put("maxWaitMs", maxWaitMs);
+                info.put("requestsAvailable", requests.unlimited() ? "illimité" : (long) requests.available);
+                info.put("tokensAvailable", tokens.unlimited() ? "illimité" : (long) tokens.available);
+                return info;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.yourapp.AI;
+
+import com.yourapp.model.AuditTemplate;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Requête envoyée à l'IA : le prompt et le contexte qui l'accompagne
+ * (template utilisé pour la mise en cache des réponses, type d'appel pour les délais,
+ * audit d'origine pour le partage équitable des quotas, schéma imposé à la réponse)
+ */
+@Getter
+@Builder(toBuilder = true)
+public class AiRequest {
+
+    private final String prompt;
+
+    // Template d'audit à l'origine du prompt (null pour le chat ou les tests de connexion)
+    private final Long templateId;
+
+    private final LocalDateTime templateUpdatedAt;
+
+    // Détermine les délais HTTP appliqués (voir AiHttpTransport)
+    @Builder.Default
+    private final AiCallType callType = AiCallType.ANALYSIS;
+
+    // Audit à l'origine de l'appel : les quotas des providers sont servis à tour de rôle par audit
+    private final Long auditId;
+
+    // Schéma JSON imposé à la réponse (structured output) ; null = texte libre
+    private final AiResponseSchema responseSchema;
+
+    /**
+     * Requête simple, sans template (jamais mise en cache)
+     */
+    public static AiRequest of(String prompt) {
+        return AiRequest.builder().prompt(prompt).build();
+    }
+
+    /**
+     * Requête d'analyse construite à partir d'un template d'audit
+     */
+    public static AiRequest forTemplate(String prompt, AuditTemplate template) {
+        return AiRequest.builder()
+                .prompt(prompt)
+                .templateId(template != null ? template.getId() : null)
+                .templateUpdatedAt(template != null ? template.getUpdatedAt() : null)
+                .responseSchema(AiResponseSchema.ISSUES)
+                .build();
+    }
+
+    /**
+     * Même requête rattachée à un audit
+     */
+    public AiRequest withAudit(Long auditId) {
+        return toBuilder().auditId(auditId).build();
+    }
+
+    /**
+     * Même requête avec un autre schéma de réponse
+     */
+    public AiRequest withSchema(AiResponseSchema responseSchema) {
+        return toBuilder().responseSchema(responseSchema).build();
+    }
+}
@@ -0,0 +1,230 @@
+package com.yourapp.AI;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Cache des réponses de l'IA pour les analyses basées sur un template.
+ * Clé : provider, modèle, température, template (id + date de modification) et empreinte du prompt.
+ * Deux niveaux : LRU en mémoire puis fichiers JSON par template sur disque, avec durée de vie.
+ */
+@Component
+@Slf4j
+public class AiResponseCache {
+
+    // Estimation grossière utilisée pour les statistiques de tokens économisés
+    private static final int CHARS_PER_TOKEN = 4;
+
+    @Value("${ai.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.cache.max-memory-entries:500}")
+    private int maxMemoryEntries;
+
+    @Value("${ai.cache.ttl-hours:168}")
+    private long ttlHours;
+
+    @Value("${ai.cache.dir:cache/ai-responses}")
+    private String cacheDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // LRU (ordre d'accès) protégé par le moniteur de l'instance
+    private final LinkedHashMap<String, CachedResponse> memory = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > maxMemoryEntries;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong tokensSaved = new AtomicLong();
+
+    /**
+     * Entrée de cache (sérialisée telle quelle sur disque)
+     */
+    public record CachedResponse(Long templateId, String response, int promptChars, long storedAt) {
+    }
+
+    /**
+     * Clé de cache d'une requête, null si la requête ne doit pas être mise en cache
+     */
+    public String keyFor(String provider, String model, Double temperature, AiRequest request) {
+        if (!enabled || request.getTemplateId() == null) {
+            return null;
+        }
+        String material = String.join("|",
+                provider, model, String.valueOf(temperature),
+                String.valueOf(request.getTemplateId()), String.valueOf(request.getTemplateUpdatedAt()),
+                sha256(request.getPrompt()));
+        return request.getTemplateId() + "-" + sha256(material);
+    }
+
+    /**
+     * Réponse en cache pour cette clé, ou null
+     */
+    public String get(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        CachedResponse cached = getFromMemory(key);
+        if (cached == null) {
+            cached = readFromDisk(key);
+            if (cached != null) {
+                putInMemory(key, cached);
+            }
+        }
+
+        if (cached == null || isExpired(cached)) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        tokensSaved.addAndGet((cached.promptChars() + cached.response().length()) / CHARS_PER_TOKEN);
+        log.info("🗃️ Réponse IA servie depuis le cache (template {})", cached.templateId());
+        return cached.response();
+    }
+
+    /**
+     * Enregistrer une réponse
+     */
+    public void put(String key, AiRequest request, String response) {
+        if (key == null || response == null) {
+            return;
+        }
+        CachedResponse entry = new CachedResponse(request.getTemplateId(), response,
+                request.getPrompt().length(), System.currentTimeMillis());
+        putInMemory(key, entry);
+        writeToDisk(key, entry);
+    }
+
+    /**
+     * Invalider toutes les réponses d'un template (modifié ou supprimé)
+     */
+    public void invalidateTemplate(Long templateId) {
+        if (templateId == null) {
+            return;
+        }
+
+        synchronized (this) {
+            memory.values().removeIf(entry -> templateId.equals(entry.templateId()));
+        }
+
+        Path dir = templateDir(templateId);
+        if (Files.exists(dir)) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            } catch (IOException e) {
+                log.warn("⚠️ Impossible de purger le cache IA du template {}: {}", templateId, e.getMessage());
+            }
+        }
+        log.info("🗑️ Cache des réponses IA invalidé pour le template {}", templateId);
+    }
+
+    /**
+     * Statistiques du cache (hits / misses / tokens économisés)
+     */
+    public Map<String, Object> getStatistics() {
+        long total = hits.get() + misses.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRate", total > 0 ? hits.get() * 100.0 / total : 0.0);
+        stats.put("tokensSaved", tokensSaved.get());
+        synchronized (this) {
+            stats.put("memoryEntries", memory.size());
+        }
+        return stats;
+    }
+
+    private boolean isExpired(CachedResponse entry) {
+        return System.currentTimeMillis() - entry.storedAt() > Duration.ofHours(ttlHours).toMillis();
+    }
+
+    // =============================
+    // NIVEAU MÉMOIRE
+    // =============================
+    private synchronized CachedResponse getFromMemory(String key) {
+        return memory.get(key);
+    }
+
+    private synchronized void putInMemory(String key, CachedResponse entry) {
+        memory.put(key, entry);
+    }
+
+    // =============================
+    // NIVEAU DISQUE
+    // =============================
+    private Path templateDir(Long templateId) {
+        return Paths.get(cacheDir).resolve("template-" + templateId);
+    }
+
+    private Path diskPath(String key) {
+        Long templateId = Long.valueOf(key.substring(0, key.indexOf('-')));
+        return templateDir(templateId).resolve(key + ".json");
+    }
+
+    private CachedResponse readFromDisk(String key) {
+        Path path = diskPath(key);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try {
+            CachedResponse entry = objectMapper.readValue(path.toFile(), CachedResponse.class);
+            if (isExpired(entry)) {
+                Files.deleteIfExists(path);
+                return null;
+            }
+            return entry;
+        } catch (IOException e) {
+            log.warn("⚠️ Entrée de cache IA illisible {}, ignorée: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, CachedResponse entry) {
+        try {
+            Path target = diskPath(key);
+            Files.createDirectories(target.getParent());
+
+            // Écriture dans un fichier temporaire puis déplacement atomique
+            Path tmp = Files.createTempFile(target.getParent(), key, ".tmp");
+            objectMapper.writeValue(tmp.toFile(), entry);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("⚠️ Impossible d'écrire la réponse IA en cache: {}", e.getMessage());
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -1,16 +1,16 @@
 package com.yourapp.AI;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yourapp.model.AuditIssue;
 import com.yourapp.model.Audit;
 import com.yourapp.model.AuditDocument;
+import com.yourapp.services.extraction.ExtractedText;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Parser pour transformer les réponses brutes de l'IA en objets structurés
@@ -19,142 +19,132 @@ import java.util.List;
 @Slf4j
 public class AiResponseParser {
 
-    private final ObjectMapper objectMapper;
+    private final TolerantIssueReader issueReader;
 
     public AiResponseParser() {
-        this.objectMapper = new ObjectMapper();
+        this.issueReader = new TolerantIssueReader();
     }
 
     /**
      * Parser la réponse JSON de l'IA et créer des objets AuditIssue
      */
     public List<AuditIssue> parseResponse(String aiResponse, Audit audit, AuditDocument document) {
+        return parseResponse(aiResponse, audit, document, null);
+    }
+
+    /**
+     * Parser la réponse JSON de l'IA en résolvant les numéros de page à partir du texte du document :
+     * la page est retrouvée via le passage cité ("excerpt"), à défaut celle de l'IA est ramenée dans les bornes.
+     */
+    public List<AuditIssue> parseResponse(String aiResponse, Audit audit, AuditDocument document, ExtractedText source) {
         log.info("Parsing de la réponse IA pour l'audit {}", audit.getId());
 
         List<AuditIssue> issues = new ArrayList<>();
 
-        try {
-            // Nettoyer la réponse (enlever les backticks markdown si présents)
-            String cleanedResponse = cleanJsonResponse(aiResponse);
-
-            log.debug("Réponse nettoyée: {}", cleanedResponse.substring(0, Math.min(200, cleanedResponse.length())));
-
-            // Parser le JSON
-            JsonNode rootNode = objectMapper.readTree(cleanedResponse);
-            JsonNode issuesNode = rootNode.get("issues");
-
-            if (issuesNode == null || !issuesNode.isArray()) {
-                log.warn("Aucun tableau 'issues' trouvé dans la réponse IA");
-                return issues;
-            }
-
-            // Parcourir tous les problèmes
-            for (JsonNode issueNode : issuesNode) {
-                AuditIssue issue = parseIssueNode(issueNode, audit, document);
-                if (issue != null) {
-                    issues.add(issue);
-                }
-            }
-
-            log.info("{} problème(s) parsé(s) avec succès", issues.size());
+        TolerantIssueReader.Result result = issueReader.read(aiResponse);
+        if (!result.arrayFound()) {
+            log.warn("Aucun tableau 'issues' trouvé dans la réponse IA");
+            // Essayer de parser au format texte simple
+            issues.addAll(parseFallbackTextResponse(aiResponse, audit, document));
+            return issues;
+        }
 
-        } catch (Exception e) {
-            log.error("Erreur lors du parsing de la réponse IA", e);
+        // Parcourir tous les problèmes récupérés
+        for (TolerantIssueReader.ParsedIssue parsed : result.issues()) {
+            issues.add(toIssue(parsed, audit, document, source));
+        }
 
-            // En cas d'erreur, essayer de parser au format texte simple
-            issues.addAll(parseFallbackTextResponse(aiResponse, audit, document));
+        if (!result.isClean()) {
+            log.warn("⚠️ Réponse IA abîmée{} : {} problème(s) récupéré(s), {} ignoré(s)",
+                    result.truncated() ? " (tronquée)" : "", issues.size(), result.skipped());
         }
+        log.info("{} problème(s) parsé(s) avec succès", issues.size());
 
         return issues;
     }
 
     /**
-     * Parser un nœud JSON représentant un problème
+     * Parser la réponse d'un prompt groupé et répartir les problèmes par document via "documentId"
+     * (à défaut, via le nom du document). Chaque document du lot a une entrée, éventuellement vide.
+     * Lève une exception si la réponse n'est pas exploitable, pour que l'appelant analyse
+     * les documents un par un.
      */
-    private AuditIssue parseIssueNode(JsonNode issueNode, Audit audit, AuditDocument document) {
-        try {
-            String issueType = getTextValue(issueNode, "issueType", "Problème détecté");
-            String description = getTextValue(issueNode, "description");
-            String suggestion = getTextValue(issueNode, "suggestion");
-            Integer pageNumber = getIntValue(issueNode, "pageNumber");
-            Integer paragraphNumber = getIntValue(issueNode, "paragraphNumber");
-
-            // Créer l'issue
-            AuditIssue issue = new AuditIssue();
-            issue.setAudit(audit);
-            issue.setDocument(document);
-            issue.setIssueType(issueType);
-            issue.setDescription(description);
-            issue.setSuggestion(suggestion);
-            issue.setPageNumber(pageNumber);
-            issue.setParagraphNumber(paragraphNumber);
-            issue.setStatus("Open");
+    public Map<Long, List<AuditIssue>> parseBatchResponse(String aiResponse, Audit audit,
+                                                           Map<Long, AuditDocument> documents,
+                                                           Map<Long, ExtractedText> sources) {
+        log.info("Parsing de la réponse IA groupée ({} documents) pour l'audit {}", documents.size(), audit.getId());
 
-            return issue;
+        Map<Long, List<AuditIssue>> issuesByDocument = new LinkedHashMap<>();
+        documents.keySet().forEach(id -> issuesByDocument.put(id, new ArrayList<>()));
 
-        } catch (Exception e) {
-            log.error("Erreur lors du parsing d'un problème individuel", e);
-            return null;
+        TolerantIssueReader.Result result = issueReader.read(aiResponse);
+        if (!result.arrayFound()) {
+            throw new RuntimeException("Aucun tableau 'issues' dans la réponse IA groupée");
         }
-    }
-
-    /**
-     * Nettoyer la réponse JSON (enlever les backticks markdown, etc.)
-     */
-    private String cleanJsonResponse(String response) {
-        // Enlever les backticks markdown
-        response = response.replaceAll("```json\\s*", "");
-        response = response.replaceAll("```\\s*", "");
-
-        // Trim les espaces
-        response = response.trim();
-
-        // Si la réponse ne commence pas par {, essayer de trouver le début du JSON
-        if (!response.startsWith("{")) {
-            int startIndex = response.indexOf("{");
-            if (startIndex != -1) {
-                response = response.substring(startIndex);
-            }
+        // Réponse tronquée : impossible de savoir quels documents ont perdu des problèmes
+        if (result.truncated()) {
+            throw new RuntimeException("Réponse IA groupée tronquée après " + result.issues().size() + " problème(s)");
         }
 
-        // Si la réponse ne se termine pas par }, essayer de trouver la fin du JSON
-        if (!response.endsWith("}")) {
-            int endIndex = response.lastIndexOf("}");
-            if (endIndex != -1) {
-                response = response.substring(0, endIndex + 1);
+        int unassigned = 0;
+        for (TolerantIssueReader.ParsedIssue parsed : result.issues()) {
+            Long documentId = resolveDocumentId(parsed, documents);
+            if (documentId == null) {
+                unassigned++;
+                continue;
             }
+            issuesByDocument.get(documentId).add(
+                    toIssue(parsed, audit, documents.get(documentId), sources.get(documentId)));
         }
 
-        return response;
+        if (unassigned > 0) {
+            log.warn("⚠️ {} problème(s) ignoré(s) : documentId absent ou inconnu", unassigned);
+        }
+        return issuesByDocument;
     }
 
-    /**
-     * Extraire une valeur texte d'un nœud JSON
-     */
-    private String getTextValue(JsonNode node, String fieldName) {
-        return getTextValue(node, fieldName, null);
+    private Long resolveDocumentId(TolerantIssueReader.ParsedIssue parsed, Map<Long, AuditDocument> documents) {
+        // L'IA renvoie parfois l'identifiant en texte, ou le nom du document
+        String reference = parsed.documentId() != null ? parsed.documentId().trim()
+                : parsed.documentName() != null ? parsed.documentName().trim() : "";
+        for (Map.Entry<Long, AuditDocument> entry : documents.entrySet()) {
+            if (reference.equals(String.valueOf(entry.getKey()))
+                    || reference.equalsIgnoreCase(entry.getValue().getDocumentName())) {
+                return entry.getKey();
+            }
+        }
+        return null;
     }
 
     /**
-     * Extraire une valeur texte d'un nœud JSON avec valeur par défaut
+     * Convertir un problème reçu isolément (objet JSON d'une réponse en flux), null s'il est invalide
      */
-    private String getTextValue(JsonNode node, String fieldName, String defaultValue) {
-        JsonNode fieldNode = node.get(fieldName);
-        if (fieldNode != null && !fieldNode.isNull()) {
-            return fieldNode.asText();
-        }
-        return defaultValue;
+    public AuditIssue parseIssue(String issueJson, Audit audit, AuditDocument document, ExtractedText source) {
+        TolerantIssueReader.ParsedIssue parsed = issueReader.readIssue(issueJson);
+        return parsed != null ? toIssue(parsed, audit, document, source) : null;
     }
 
     /**
-     * Extraire une valeur entière d'un nœud JSON
+     * Créer le problème à partir des champs lus dans la réponse
      */
-    private Integer getIntValue(JsonNode node, String fieldName) {
-        JsonNode fieldNode = node.get(fieldName);
-        if (fieldNode != null && !fieldNode.isNull() && fieldNode.isNumber()) {
-            return fieldNode.asInt();
+    private AuditIssue toIssue(TolerantIssueReader.ParsedIssue parsed, Audit audit, AuditDocument document,
+                               ExtractedText source) {
+        Integer pageNumber = parsed.pageNumber();
+        if (source != null) {
+            pageNumber = source.resolvePage(parsed.excerpt(), pageNumber);
         }
-        return null;
+
+        AuditIssue issue = new AuditIssue();
+        issue.setAudit(audit);
+        issue.setDocument(document);
+        issue.setIssueType(parsed.issueType() != null ? parsed.issueType() : "Problème détecté");
+        issue.setDescription(parsed.description());
+        issue.setSuggestion(parsed.suggestion());
+        issue.setPageNumber(pageNumber);
+        issue.setParagraphNumber(parsed.paragraphNumber());
+        issue.setStatus("Open");
+
+        return issue;
     }
 
     /**
@@ -188,16 +178,7 @@ public class AiResponseParser {
      * Valider la structure de la réponse JSON
      */
     public boolean validateResponse(String response) {
-        try {
-            String cleaned = cleanJsonResponse(response);
-            JsonNode rootNode = objectMapper.readTree(cleaned);
-            JsonNode issuesNode = rootNode.get("issues");
-
-            return issuesNode != null && issuesNode.isArray();
-        } catch (Exception e) {
-            log.error("Réponse JSON invalide", e);
-            return false;
-        }
+        return issueReader.read(response).isClean();
     }
 
     /**
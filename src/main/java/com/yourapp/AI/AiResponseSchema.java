@@ -0,0 +1,126 @@
+package com.yourapp.AI;
+
+import com.yourapp.model.AuditIssue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schéma JSON de la réponse d'analyse ({"issues": [...]}), imposé au modèle en mode "structured output".
+ * Les propriétés reprennent les champs d'AuditIssue renseignés par l'IA (leur type est lu sur l'entité),
+ * plus le passage cité ("excerpt") et, en mode groupé, l'identifiant du document.
+ * Le schéma est rendu dans le dialecte de chaque provider.
+ */
+public final class AiResponseSchema {
+
+    // Réponse d'analyse d'un document (ou d'un morceau)
+    public static final AiResponseSchema ISSUES = new AiResponseSchema("audit_issues", false);
+
+    // Réponse d'un prompt groupé : chaque problème indique son document
+    public static final AiResponseSchema BATCH_ISSUES = new AiResponseSchema("audit_batch_issues", true);
+
+    private record Property(String name, String type, boolean nullable) {
+    }
+
+    private final String name;
+    private final List<Property> properties = new ArrayList<>();
+
+    private AiResponseSchema(String name, boolean withDocumentId) {
+        this.name = name;
+        if (withDocumentId) {
+            properties.add(new Property("documentId", "integer", false));
+        }
+        properties.add(entityProperty("issueType", false));
+        properties.add(entityProperty("description", false));
+        properties.add(entityProperty("pageNumber", true));
+        properties.add(entityProperty("paragraphNumber", true));
+        properties.add(entityProperty("suggestion", false));
+        properties.add(new Property("excerpt", "string", false));
+    }
+
+    /**
+     * Propriété typée d'après le champ de l'entité : un renommage dans AuditIssue casse le schéma au démarrage
+     */
+    private static Property entityProperty(String field, boolean nullable) {
+        Class<?> type;
+        try {
+            type = AuditIssue.class.getDeclaredField(field).getType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Champ AuditIssue absent du schéma de réponse IA: " + field, e);
+        }
+        String jsonType = Number.class.isAssignableFrom(type) || type == int.class || type == long.class
+                ? "integer" : "string";
+        return new Property(field, jsonType, nullable);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Noms des champs attendus pour chaque problème (rappel court dans le prompt)
+     */
+    public List<String> fieldNames() {
+        return properties.stream().map(Property::name).toList();
+    }
+
+    /**
+     * JSON Schema standard (Ollama "format", OpenAI "response_format").
+     * En mode strict (OpenAI), toutes les propriétés sont requises et les valeurs facultatives acceptent null.
+     */
+    public Map<String, Object> toJsonSchema(boolean strict) {
+        Map<String, Object> issueProperties = new LinkedHashMap<>();
+        List<String> required = new ArrayList<>();
+        for (Property property : properties) {
+            Object type = property.nullable() && strict ? List.of(property.type(), "null") : property.type();
+            issueProperties.put(property.name(), Map.of("type", type));
+            if (strict || !property.nullable()) {
+                required.add(property.name());
+            }
+        }
+
+        Map<String, Object> issue = new LinkedHashMap<>();
+        issue.put("type", "object");
+        issue.put("properties", issueProperties);
+        issue.put("required", required);
+        issue.put("additionalProperties", false);
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("type", "object");
+        root.put("properties", Map.of("issues", Map.of("type", "array", "items", issue)));
+        root.put("required", List.of("issues"));
+        root.put("additionalProperties", false);
+        return root;
+    }
+
+    /**
+     * Dialecte Gemini (sous-ensemble OpenAPI : types en majuscules, "nullable")
+     */
+    public Map<String, Object> toGeminiSchema() {
+        Map<String, Object> issueProperties = new LinkedHashMap<>();
+        List<String> required = new ArrayList<>();
+        for (Property property : properties) {
+            Map<String, Object> schema = new LinkedHashMap<>();
+            schema.put("type", property.type().toUpperCase());
+            if (property.nullable()) {
+                schema.put("nullable", true);
+            } else {
+                required.add(property.name());
+            }
+            issueProperties.put(property.name(), schema);
+        }
+
+        Map<String, Object> issue = new LinkedHashMap<>();
+        issue.put("type", "OBJECT");
+        issue.put("properties", issueProperties);
+        issue.put("required", required);
+        issue.put("propertyOrdering", fieldNames());
+
+        return Map.of(
+                "type", "OBJECT",
+                "properties", Map.of("issues", Map.of("type", "ARRAY", "items", issue)),
+                "required", List.of("issues"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.yourapp.AI;
+
+import java.time.Duration;
+
+/**
+ * Échec d'un appel HTTP vers un fournisseur d'IA.
+ * statusCode vaut 0 pour une erreur réseau (connexion refusée, timeout...).
+ */
+public class AiTransportException extends RuntimeException {
+
+    private final int statusCode;
+    private final boolean timeout;
+    private final Duration retryAfter;
+
+    public AiTransportException(String message, int statusCode, Duration retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.timeout = false;
+        this.retryAfter = retryAfter;
+    }
+
+    public AiTransportException(String message, boolean timeout, Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+        this.timeout = timeout;
+        this.retryAfter = null;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Délai demandé par le serveur (en-tête Retry-After), null si absent
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public boolean isNetworkError() {
+        return statusCode == 0;
+    }
+}
@@ -0,0 +1,172 @@
+package com.yourapp.AI;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Vecteurs d'embedding des textes (descriptions de problèmes, morceaux de documents).
+ * Provider "ollama" : endpoint /api/embed de l'instance configurée, par lots ; s'il est injoignable,
+ * repli temporaire sur le provider "local" (hachage des mots et trigrammes, sans modèle ni réseau).
+ * Les vecteurs sont normalisés (norme 1) : le produit scalaire est la similarité cosinus.
+ * Deux vecteurs ne sont comparables que s'ils viennent du même espace (voir {@link Embeddings#space()}).
+ */
+@Component
+@Slf4j
+public class EmbeddingClient {
+
+    @Value("${ai.embedding.provider:ollama}")
+    private String provider;
+
+    @Value("${ai.ollama.base-url:http://localhost:11434}")
+    private String ollamaBaseUrl;
+
+    @Value("${ai.embedding.model:nomic-embed-text}")
+    private String model;
+
+    // Textes envoyés par requête /api/embed
+    @Value("${ai.embedding.batch-size:32}")
+    private int batchSize;
+
+    // Tronqués au-delà (le contexte des modèles d'embedding est court)
+    @Value("${ai.embedding.max-chars:2000}")
+    private int maxChars;
+
+    @Value("${ai.embedding.local-dimensions:512}")
+    private int localDimensions;
+
+    // Après un échec, Ollama n'est pas réessayé avant ce délai
+    @Value("${ai.embedding.retry-after-seconds:300}")
+    private long retryAfterSeconds;
+
+    private final AiHttpTransport transport;
+    private volatile long ollamaUnavailableUntil = 0;
+
+    public EmbeddingClient(AiHttpTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Vecteurs d'une liste de textes et espace dans lequel ils ont été calculés
+     */
+    public record Embeddings(String space, List<float[]> vectors) {
+    }
+
+    public Embeddings embed(List<String> texts) {
+        if (texts.isEmpty()) {
+            return new Embeddings(currentSpace(), List.of());
+        }
+        if ("ollama".equalsIgnoreCase(provider) && System.currentTimeMillis() >= ollamaUnavailableUntil) {
+            try {
+                return new Embeddings(ollamaSpace(), embedWithOllama(texts));
+            } catch (RuntimeException e) {
+                ollamaUnavailableUntil = System.currentTimeMillis() + retryAfterSeconds * 1000;
+                log.warn("⚠️ Embeddings Ollama indisponibles ({}), repli sur l'embedding local pendant {} s",
+                        e.getMessage(), retryAfterSeconds);
+            }
+        }
+        return new Embeddings(localSpace(), texts.stream().map(this::embedLocally).toList());
+    }
+
+    public float[] embed(String text) {
+        return embed(List.of(text)).vectors().get(0);
+    }
+
+    /**
+     * Espace utilisé par le prochain appel (change quand Ollama devient indisponible ou revient)
+     */
+    public String currentSpace() {
+        return "ollama".equalsIgnoreCase(provider) && System.currentTimeMillis() >= ollamaUnavailableUntil
+                ? ollamaSpace() : localSpace();
+    }
+
+    private String ollamaSpace() {
+        return "ollama:" + model;
+    }
+
+    private String localSpace() {
+        return "local:" + localDimensions;
+    }
+
+    private List<float[]> embedWithOllama(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (int from = 0; from < texts.size(); from += batchSize) {
+            List<String> batch = texts.subList(from, Math.min(texts.size(), from + batchSize)).stream()
+                    .map(this::truncate)
+                    .toList();
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("model", model);
+            body.put("input", batch);
+            JsonNode response = transport.postJson(ollamaBaseUrl + "/api/embed", Map.of(), body, AiCallType.ANALYSIS);
+
+            JsonNode embeddings = response.path("embeddings");
+            if (!embeddings.isArray() || embeddings.size() != batch.size()) {
+                throw new IllegalStateException("Réponse /api/embed inattendue (" + embeddings.size()
+                        + " vecteurs pour " + batch.size() + " textes)");
+            }
+            for (JsonNode embedding : embeddings) {
+                float[] vector = new float[embedding.size()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = (float) embedding.get(i).asDouble();
+                }
+                vectors.add(normalize(vector));
+            }
+        }
+        return vectors;
+    }
+
+    /**
+     * Embedding local : hachage signé des mots et des trigrammes de caractères (texte sans accents ni casse).
+     * Suffisant pour rapprocher des formulations proches, sans sémantique fine.
+     */
+    float[] embedLocally(String text) {
+        float[] vector = new float[localDimensions];
+        String normalized = Normalizer.normalize(truncate(text), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+
+        for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() < 2) {
+                continue;
+            }
+            add(vector, "w:" + word, 2f);
+            String padded = " " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                add(vector, padded.substring(i, i + 3), 1f);
+            }
+        }
+        return normalize(vector);
+    }
+
+    private static void add(float[] vector, String feature, float weight) {
+        int hash = feature.hashCode() * 0x9E3779B1;
+        vector[Math.floorMod(hash, vector.length)] += (hash >>> 31) == 0 ? weight : -weight;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float inverse = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inverse;
+            }
+        }
+        return vector;
+    }
+
+    private String truncate(String text) {
+        String value = text != null ? text : "";
+        return value.length() > maxChars ? value.substring(0, maxChars) : value;
+    }
+}
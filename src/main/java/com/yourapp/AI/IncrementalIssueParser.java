@@ -0,0 +1,127 @@
+package com.yourapp.AI;
+
+import java.util.function.Consumer;
+
+/**
+ * Parser incrémental du tableau "issues" d'une réponse IA reçue en flux.
+ * Le texte est fourni morceau par morceau ; chaque objet du tableau est transmis
+ * dès que son accolade fermante arrive, sans attendre la fin de la génération.
+ * Le texte de l'objet est transmis tel quel ; sa lecture (tolérante) revient à l'appelant.
+ * Une instance par réponse (non thread-safe).
+ */
+public class IncrementalIssueParser {
+
+    private static final String ISSUES_KEY = "\"issues\"";
+
+    private final Consumer<String> onIssue;
+    private final StringBuilder buffer = new StringBuilder();
+
+    private int position = 0;       // prochain caractère à examiner
+    private boolean inArray = false;
+    private boolean finished = false;
+    private int depth = 0;          // profondeur des objets à l'intérieur du tableau
+    private int objectStart = -1;
+    private boolean inString = false;
+    private boolean escaped = false;
+    private int issueCount = 0;
+
+    public IncrementalIssueParser(Consumer<String> onIssue) {
+        this.onIssue = onIssue;
+    }
+
+    /**
+     * Ajouter un morceau de texte reçu et émettre les problèmes complets
+     */
+    public void feed(String text) {
+        if (finished || text == null || text.isEmpty()) {
+            return;
+        }
+        buffer.append(text);
+
+        if (!inArray && !locateArray()) {
+            return;
+        }
+
+        while (position < buffer.length() && !finished) {
+            char c = buffer.charAt(position);
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                if (depth == 0) {
+                    objectStart = position;
+                }
+                depth++;
+            } else if (c == '}') {
+                depth--;
+                if (depth == 0 && objectStart >= 0) {
+                    emit(buffer.substring(objectStart, position + 1));
+                    objectStart = -1;
+                }
+            } else if (c == ']' && depth == 0) {
+                finished = true;
+            }
+            position++;
+        }
+
+        compact();
+    }
+
+    /**
+     * Nombre de problèmes émis jusqu'ici
+     */
+    public int getIssueCount() {
+        return issueCount;
+    }
+
+    /**
+     * Le tableau "issues" a-t-il été fermé ?
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Chercher la clé "issues" suivie de '[' ; le parsing démarre juste après
+     */
+    private boolean locateArray() {
+        int key = buffer.indexOf(ISSUES_KEY);
+        if (key < 0) {
+            return false;
+        }
+        int bracket = buffer.indexOf("[", key + ISSUES_KEY.length());
+        if (bracket < 0) {
+            return false;
+        }
+        inArray = true;
+        position = bracket + 1;
+        return true;
+    }
+
+    private void emit(String json) {
+        issueCount++;
+        onIssue.accept(json);
+    }
+
+    /**
+     * Libérer le texte déjà traité qui n'appartient à aucun objet en cours
+     */
+    private void compact() {
+        int keepFrom = objectStart >= 0 ? objectStart : position;
+        if (keepFrom > 0) {
+            buffer.delete(0, keepFrom);
+            position -= keepFrom;
+            if (objectStart >= 0) {
+                objectStart = 0;
+            }
+        }
+    }
+}
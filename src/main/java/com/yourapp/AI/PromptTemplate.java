@@ -0,0 +1,107 @@
+package com.yourapp.AI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gabarit de prompt compilé : le texte source est découpé une fois en segments littéraux
+ * et en emplacements {{nom}}. Le premier segment littéral est le préfixe statique, identique
+ * pour tous les prompts rendus avec ce gabarit (réutilisable par le cache de préfixe des providers).
+ * Immuable, thread-safe.
+ */
+public final class PromptTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final List<String> literals;   // toujours un de plus que d'emplacements
+    private final List<String> slots;
+    private final int literalLength;
+
+    private PromptTemplate(List<String> literals, List<String> slots) {
+        this.literals = List.copyOf(literals);
+        this.slots = List.copyOf(slots);
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    /**
+     * Compiler un texte contenant des emplacements {{nom}}
+     */
+    public static PromptTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            int close = open >= 0 ? source.indexOf(CLOSE, open + OPEN.length()) : -1;
+            if (open < 0 || close < 0) {
+                literals.add(source.substring(position));
+                return new PromptTemplate(literals, slots);
+            }
+            literals.add(source.substring(position, open));
+            slots.add(source.substring(open + OPEN.length(), close).trim());
+            position = close + CLOSE.length();
+        }
+    }
+
+    /**
+     * Nouveau gabarit où les emplacements fournis sont remplacés par leur valeur (fusionnés dans le texte fixe) ;
+     * les autres restent à remplir au rendu
+     */
+    public PromptTemplate bind(Map<String, String> values) {
+        List<String> boundLiterals = new ArrayList<>();
+        List<String> remainingSlots = new ArrayList<>();
+        StringBuilder current = new StringBuilder(literals.get(0));
+        for (int i = 0; i < slots.size(); i++) {
+            String slot = slots.get(i);
+            if (values.containsKey(slot)) {
+                current.append(nullToEmpty(values.get(slot))).append(literals.get(i + 1));
+            } else {
+                boundLiterals.add(current.toString());
+                remainingSlots.add(slot);
+                current = new StringBuilder(literals.get(i + 1));
+            }
+        }
+        boundLiterals.add(current.toString());
+        return new PromptTemplate(boundLiterals, remainingSlots);
+    }
+
+    /**
+     * Texte fixe précédant le premier emplacement
+     */
+    public String staticPrefix() {
+        return literals.get(0);
+    }
+
+    public List<String> slotNames() {
+        return slots;
+    }
+
+    /**
+     * Longueur exacte (en caractères) du prompt rendu avec ces valeurs, sans le construire
+     */
+    public int length(Map<String, String> values) {
+        int length = literalLength;
+        for (String slot : slots) {
+            length += nullToEmpty(values.get(slot)).length();
+        }
+        return length;
+    }
+
+    /**
+     * Rendre le prompt ; un emplacement sans valeur est laissé vide
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder prompt = new StringBuilder(length(values));
+        prompt.append(literals.get(0));
+        for (int i = 0; i < slots.size(); i++) {
+            prompt.append(nullToEmpty(values.get(slots.get(i)))).append(literals.get(i + 1));
+        }
+        return prompt.toString();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
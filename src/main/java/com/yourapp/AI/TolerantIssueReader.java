@@ -0,0 +1,310 @@
+package com.yourapp.AI;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecteur tolérant du tableau "issues" d'une réponse IA, sur le flux de tokens Jackson
+ * (sans arbre JsonNode intermédiaire). Le texte autour du JSON (prose, balises markdown) est ignoré,
+ * la syntaxe approximative des modèles est acceptée (guillemets simples, virgules finales,
+ * retours à la ligne bruts dans les chaînes...) et, en cas d'erreur ou de réponse tronquée,
+ * tous les objets complets lus avant l'erreur sont conservés. Sans état, thread-safe.
+ */
+public class TolerantIssueReader {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_JAVA_COMMENTS)
+            .enable(JsonReadFeature.ALLOW_SINGLE_QUOTES)
+            .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .enable(JsonReadFeature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER)
+            .enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS)
+            .enable(JsonReadFeature.ALLOW_LEADING_PLUS_SIGN_FOR_NUMBERS)
+            .build();
+
+    private static final String ISSUES_FIELD = "issues";
+
+    // Reprises après erreur : borne de sécurité sur les réponses très abîmées
+    private static final int MAX_RESYNCS = 200;
+
+    /**
+     * Problème tel que lu dans la réponse, avant rattachement à l'audit et au document
+     */
+    public record ParsedIssue(String documentId, String documentName, String issueType, String description,
+                              String suggestion, Integer pageNumber, Integer paragraphNumber, String excerpt) {
+
+        boolean isEmpty() {
+            return issueType == null && description == null && suggestion == null;
+        }
+    }
+
+    /**
+     * Résultat de lecture : problèmes récupérés et état de la réponse
+     *
+     * @param arrayFound un tableau de problèmes a été trouvé (même vide)
+     * @param truncated  la réponse s'arrête au milieu du JSON
+     * @param skipped    objets abandonnés car illisibles ou incomplets
+     */
+    public record Result(List<ParsedIssue> issues, boolean arrayFound, boolean truncated, int skipped) {
+
+        public boolean isClean() {
+            return arrayFound && !truncated && skipped == 0;
+        }
+    }
+
+    /**
+     * Lire tous les problèmes récupérables d'une réponse complète ou tronquée
+     */
+    public Result read(String response) {
+        ReadState state = new ReadState(response != null ? response : "");
+        scan(state, false);
+        if (!state.arrayFound) {
+            // Pas d'objet contenant "issues" : le modèle a peut-être renvoyé directement le tableau
+            scan(state, true);
+        }
+        return new Result(state.issues, state.arrayFound, state.truncated, state.skipped);
+    }
+
+    /**
+     * Lire un seul objet problème (réponse en flux), null s'il est illisible ou vide
+     */
+    public ParsedIssue readIssue(String json) {
+        if (json == null) {
+            return null;
+        }
+        int start = json.indexOf('{');
+        if (start < 0) {
+            return null;
+        }
+        try (JsonParser parser = FACTORY.createParser(json.substring(start))) {
+            parser.nextToken();
+            ParsedIssue issue = readIssueObject(parser);
+            return issue.isEmpty() ? null : issue;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Chercher le tableau de problèmes à partir de chaque début de JSON candidat ;
+     * après une erreur dans le tableau, reprendre au prochain objet
+     */
+    private void scan(ReadState state, boolean bareArray) {
+        String text = state.text;
+        int start = bareArray ? nextArrayStart(text, 0) : text.indexOf('{');
+        int attempts = 0;
+
+        while (start >= 0 && attempts++ <= MAX_RESYNCS) {
+            int next;
+            // Reprise dans le tableau : le texte repart d'un objet, remis dans un contexte de tableau
+            int prefix = state.inArray ? 1 : 0;
+            String input = state.inArray ? "[" + text.substring(start) : text.substring(start);
+            try (JsonParser parser = FACTORY.createParser(input)) {
+                if (state.inArray) {
+                    parser.nextToken();
+                    readIssueArray(parser, state);
+                    return;
+                }
+                parser.nextToken();
+                if (bareArray) {
+                    state.enterArray();
+                    readIssueArray(parser, state);
+                    return;
+                }
+                if (findIssuesInObject(parser, state)) {
+                    return;
+                }
+                // Objet sans tableau "issues" (prose contenant des accolades) : chercher plus loin
+                next = start + (int) Math.max(1, parser.currentLocation().getCharOffset());
+            } catch (JsonEOFException e) {
+                state.dropPending();
+                state.truncated = state.inArray;
+                return;
+            } catch (IOException e) {
+                state.dropPending();
+                next = start + Math.max(1, errorOffset(e) - prefix);
+                if (state.inArray) {
+                    start = text.indexOf('{', next);
+                    state.truncated = start < 0;
+                    continue;
+                }
+            }
+            start = bareArray ? nextArrayStart(text, next) : text.indexOf('{', next);
+        }
+    }
+
+    /**
+     * Parcourir un objet jusqu'au tableau "issues" ; true s'il a été lu
+     */
+    private boolean findIssuesInObject(JsonParser parser, ReadState state) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+            if (token == null) {
+                throw new JsonEOFException(parser, null, "Fin de réponse dans un objet");
+            }
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (ISSUES_FIELD.equals(field) && value == JsonToken.START_ARRAY) {
+                state.enterArray();
+                readIssueArray(parser, state);
+                return true;
+            }
+            if (value == JsonToken.START_OBJECT) {
+                if (findIssuesInObject(parser, state)) {
+                    return true;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lire les objets du tableau jusqu'au crochet fermant ; chaque objet complet est conservé aussitôt
+     */
+    private void readIssueArray(JsonParser parser, ReadState state) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new JsonEOFException(parser, null, "Fin de réponse dans le tableau 'issues'");
+            }
+            if (token == JsonToken.START_OBJECT) {
+                state.pending = true;
+                ParsedIssue issue = readIssueObject(parser);
+                state.pending = false;
+                if (issue.isEmpty()) {
+                    state.skipped++;
+                } else {
+                    state.issues.add(issue);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        state.inArray = false;
+    }
+
+    /**
+     * Lire les champs d'un objet problème (le parser est positionné sur l'accolade ouvrante)
+     */
+    private ParsedIssue readIssueObject(JsonParser parser) throws IOException {
+        String documentId = null;
+        String documentName = null;
+        String issueType = null;
+        String description = null;
+        String suggestion = null;
+        Integer pageNumber = null;
+        Integer paragraphNumber = null;
+        String excerpt = null;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+            if (token == null) {
+                throw new JsonEOFException(parser, null, "Fin de réponse dans un problème");
+            }
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "documentId" -> documentId = textValue(parser);
+                case "documentName" -> documentName = textValue(parser);
+                case "issueType", "type" -> issueType = textValue(parser);
+                case "description" -> description = textValue(parser);
+                case "suggestion" -> suggestion = textValue(parser);
+                case "pageNumber", "page" -> pageNumber = intValue(parser);
+                case "paragraphNumber" -> paragraphNumber = intValue(parser);
+                case "excerpt" -> excerpt = textValue(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new ParsedIssue(documentId, documentName, issueType, description,
+                suggestion, pageNumber, paragraphNumber, excerpt);
+    }
+
+    private static String textValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+            return parser.getValueAsString();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Entier, y compris écrit en texte ("3", "page 3")
+     */
+    private static Integer intValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            double value = parser.getValueAsDouble();
+            return Double.isFinite(value) && Math.abs(value) <= Integer.MAX_VALUE ? (int) value : null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String digits = parser.getText().replaceAll("^\\D*(\\d{1,9}).*$", "$1");
+            return digits.chars().allMatch(Character::isDigit) && !digits.isEmpty() ? Integer.parseInt(digits) : null;
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Prochain '[' ouvrant un tableau d'objets (ou vide), pour ne pas confondre avec "[1]" dans la prose
+     */
+    private static int nextArrayStart(String text, int from) {
+        for (int i = text.indexOf('[', from); i >= 0; i = text.indexOf('[', i + 1)) {
+            int j = i + 1;
+            while (j < text.length() && Character.isWhitespace(text.charAt(j))) {
+                j++;
+            }
+            if (j < text.length() && (text.charAt(j) == '{' || text.charAt(j) == ']')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int errorOffset(IOException e) {
+        if (e instanceof StreamReadException readException && readException.getLocation() != null) {
+            long offset = readException.getLocation().getCharOffset();
+            if (offset >= 0) {
+                return (int) Math.max(1, offset);
+            }
+        }
+        return 1;
+    }
+
+    private static final class ReadState {
+        private final String text;
+        private final List<ParsedIssue> issues = new ArrayList<>();
+        private boolean arrayFound = false;
+        private boolean inArray = false;
+        private boolean truncated = false;
+        private boolean pending = false;      // objet en cours de lecture
+        private int skipped = 0;
+
+        ReadState(String text) {
+            this.text = text;
+        }
+
+        void enterArray() {
+            arrayFound = true;
+            inArray = true;
+        }
+
+        void dropPending() {
+            if (pending) {
+                skipped++;
+                pending = false;
+            }
+        }
+    }
+}
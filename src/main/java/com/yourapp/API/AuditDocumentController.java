@@ -1,6 +1,11 @@
 package com.yourapp.API;
 
 import com.yourapp.dto.AuditDocumentDto;
+import com.yourapp.dto.ChunkedUploadRequestDto;
+import com.yourapp.dto.ChunkedUploadStatusDto;
+import com.yourapp.services.storage.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
@@ -10,6 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -24,6 +30,8 @@ public class AuditDocumentController {
     // Injecter le service ici
     // private final AuditDocumentService documentService;
 
+    private final ChunkedUploadService uploadService;
+
     /**
      * Uploader un document pour un audit
      */
@@ -116,4 +124,49 @@ public class AuditDocumentController {
         // return ResponseEntity.ok(document);
         return ResponseEntity.ok(null);
     }
-}
\ No newline at end of file
+
+    /**
+     * Ouvrir un upload reprenable par morceaux
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<ChunkedUploadStatusDto> startChunkedUpload(
+            @Valid @RequestBody ChunkedUploadRequestDto request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.start(request));
+    }
+
+    /**
+     * Envoyer un morceau (corps brut) à la position donnée
+     */
+    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ChunkedUploadStatusDto> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(uploadService.appendChunk(uploadId, offset, request.getInputStream()));
+    }
+
+    /**
+     * État d'un upload : position à laquelle reprendre l'envoi
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<ChunkedUploadStatusDto> getChunkedUploadStatus(@PathVariable String uploadId) {
+        return ResponseEntity.ok(uploadService.status(uploadId));
+    }
+
+    /**
+     * Finaliser un upload : le fichier reçu devient un document de l'audit
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<AuditDocumentDto> completeChunkedUpload(@PathVariable String uploadId) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.complete(uploadId));
+    }
+
+    /**
+     * Abandonner un upload
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> abortChunkedUpload(@PathVariable String uploadId) {
+        uploadService.abort(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+}
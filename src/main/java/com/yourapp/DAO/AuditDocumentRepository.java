@@ -32,4 +32,7 @@ public interface AuditDocumentRepository
     List<AuditDocument> findByAuditIdOrderByUploadedAtDesc(Long auditId);
 
     void deleteByAuditId(Long auditId);
+
+    // Nombre de documents qui référencent un fichier du stockage (adressé par contenu)
+    long countByDocumentPath(String documentPath);
 }
@@ -0,0 +1,318 @@
+package com.yourapp.DAO;
+
+import com.yourapp.model.Audit;
+import com.yourapp.model.AuditDocument;
+import com.yourapp.model.AuditIssue;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Insertion en masse des problèmes d'audit, hors du suivi des entités JPA.
+ * PostgreSQL : COPY ... FROM STDIN (CSV) via le CopyManager du driver, lignes envoyées en flux ;
+ * autres bases : INSERT multi-lignes par lots. Les identifiants sont pris dans la séquence
+ * (blocs de 50, pooled-lo, comme Hibernate) et affectés aux entités. Dans la même transaction,
+ * AuditDocument.issuesCount et Audit.problemsCount sont recalculés pour les documents et audits touchés.
+ * Utilise la connexion de la transaction JPA en cours.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class AuditIssueBulkRepository {
+
+    private static final String SEQUENCE = "audit_issue_id_seq";
+    private static final int ALLOCATION_SIZE = 50;   // = allocationSize de AuditIssue
+    private static final int ROWS_PER_INSERT = 100;
+    private static final int COPY_FLUSH_CHARS = 64 * 1024;
+
+    private static final String COLUMNS = "id, audit_id, document_id, page_number, paragraph_number, issue_type, "
+            + "description, suggestion, status, reported_at, recurrence_of_id";
+    private static final int COLUMN_COUNT = 11;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Insérer les problèmes (sans identifiant) et mettre à jour les compteurs de leurs documents et audits
+     */
+    public void insertAll(List<AuditIssue> issues) {
+        if (issues.isEmpty()) {
+            return;
+        }
+        // Audits et documents créés dans cette transaction doivent exister avant les clés étrangères
+        entityManager.flush();
+
+        LocalDateTime now = LocalDateTime.now();
+        for (AuditIssue issue : issues) {
+            if (issue.getReportedAt() == null) {
+                issue.setReportedAt(now);
+            }
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            List<Long> ids = allocateIds(connection, issues.size());
+            for (int i = 0; i < issues.size(); i++) {
+                issues.get(i).setId(ids.get(i));
+            }
+
+            long start = System.nanoTime();
+            boolean copy = connection.isWrapperFor(PGConnection.class);
+            if (copy) {
+                copyIn(connection.unwrap(PGConnection.class), issues);
+            } else {
+                insertMultiRow(connection, issues);
+            }
+            log.info("📥 {} problèmes insérés en masse ({}) en {} ms", issues.size(),
+                    copy ? "COPY" : "INSERT multi-lignes", (System.nanoTime() - start) / 1_000_000);
+
+            refreshCounts(connection, issues);
+            return null;
+        });
+    }
+
+    /**
+     * Réserver des blocs de la séquence : chaque nextval est le début d'un bloc de ALLOCATION_SIZE
+     */
+    private static List<Long> allocateIds(Connection connection, int count) throws SQLException {
+        int blocks = (count + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+        List<Long> starts = new ArrayList<>(blocks);
+        if (connection.isWrapperFor(PGConnection.class)) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT nextval('" + SEQUENCE + "') FROM generate_series(1, ?)")) {
+                statement.setInt(1, blocks);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        starts.add(rs.getLong(1));
+                    }
+                }
+            }
+        } else {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT nextval('" + SEQUENCE + "')")) {
+                for (int i = 0; i < blocks; i++) {
+                    try (ResultSet rs = statement.executeQuery()) {
+                        rs.next();
+                        starts.add(rs.getLong(1));
+                    }
+                }
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(count);
+        for (long blockStart : starts) {
+            for (int i = 0; i < ALLOCATION_SIZE && ids.size() < count; i++) {
+                ids.add(blockStart + i);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * COPY en CSV : lignes écrites par paquets de ~64 Ko, sans construire tout le flux en mémoire
+     */
+    private static void copyIn(PGConnection connection, List<AuditIssue> issues) throws SQLException {
+        CopyIn copy = connection.getCopyAPI().copyIn("COPY audit_issue (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)");
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_FLUSH_CHARS + 4096);
+            for (AuditIssue issue : issues) {
+                appendCsvRow(buffer, issue);
+                if (buffer.length() >= COPY_FLUSH_CHARS) {
+                    writeToCopy(copy, buffer);
+                }
+            }
+            writeToCopy(copy, buffer);
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    private static void writeToCopy(CopyIn copy, StringBuilder buffer) throws SQLException {
+        if (buffer.length() > 0) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    private static void appendCsvRow(StringBuilder row, AuditIssue issue) {
+        row.append(issue.getId()).append(',')
+                .append(issue.getAudit().getId()).append(',');
+        appendNumber(row, issue.getDocument() != null ? issue.getDocument().getId() : null);
+        row.append(',');
+        appendNumber(row, issue.getPageNumber());
+        row.append(',');
+        appendNumber(row, issue.getParagraphNumber());
+        row.append(',');
+        appendText(row, issue.getIssueType());
+        row.append(',');
+        appendText(row, issue.getDescription());
+        row.append(',');
+        appendText(row, issue.getSuggestion());
+        row.append(',');
+        appendText(row, issue.getStatus());
+        row.append(',');
+        appendText(row, issue.getReportedAt().toString());
+        row.append(',');
+        appendNumber(row, issue.getRecurrenceOfId());
+        row.append('\n');
+    }
+
+    private static void appendNumber(StringBuilder row, Number value) {
+        if (value != null) {
+            row.append(value);
+        }
+    }
+
+    /**
+     * Texte toujours entre guillemets (une valeur vide non citée serait lue comme NULL)
+     */
+    private static void appendText(StringBuilder row, String value) {
+        if (value == null) {
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            if (c != '\0') {
+                row.append(c);
+            }
+        }
+        row.append('"');
+    }
+
+    /**
+     * Repli hors PostgreSQL : INSERT de ROWS_PER_INSERT lignes par instruction
+     */
+    private static void insertMultiRow(Connection connection, List<AuditIssue> issues) throws SQLException {
+        String row = "(" + "?, ".repeat(COLUMN_COUNT - 1) + "?)";
+        for (int from = 0; from < issues.size(); from += ROWS_PER_INSERT) {
+            List<AuditIssue> slice = issues.subList(from, Math.min(from + ROWS_PER_INSERT, issues.size()));
+            String sql = "INSERT INTO audit_issue (" + COLUMNS + ") VALUES "
+                    + String.join(", ", Collections.nCopies(slice.size(), row));
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int index = 1;
+                for (AuditIssue issue : slice) {
+                    statement.setLong(index++, issue.getId());
+                    statement.setLong(index++, issue.getAudit().getId());
+                    setLong(statement, index++, issue.getDocument() != null ? issue.getDocument().getId() : null);
+                    setInt(statement, index++, issue.getPageNumber());
+                    setInt(statement, index++, issue.getParagraphNumber());
+                    statement.setString(index++, issue.getIssueType());
+                    statement.setString(index++, issue.getDescription());
+                    statement.setString(index++, issue.getSuggestion());
+                    statement.setString(index++, issue.getStatus());
+                    statement.setTimestamp(index++, Timestamp.valueOf(issue.getReportedAt()));
+                    setLong(statement, index++, issue.getRecurrenceOfId());
+                }
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Recalculer les compteurs des documents et audits touchés, puis aligner les entités déjà chargées
+     * dans la transaction (sinon Hibernate réécrirait l'ancienne valeur à leur prochaine sauvegarde)
+     */
+    private void refreshCounts(Connection connection, List<AuditIssue> issues) throws SQLException {
+        Map<Long, AuditDocument> documents = new HashMap<>();
+        Map<Long, Audit> audits = new HashMap<>();
+        for (AuditIssue issue : issues) {
+            if (issue.getDocument() != null) {
+                documents.putIfAbsent(issue.getDocument().getId(), issue.getDocument());
+            }
+            audits.putIfAbsent(issue.getAudit().getId(), issue.getAudit());
+        }
+
+        Map<Long, Integer> documentCounts = updateCounts(connection, "auditdocument", "issues_count", "document_id",
+                documents.keySet());
+        Map<Long, Integer> auditCounts = updateCounts(connection, "audit", "problems_count", "audit_id",
+                audits.keySet());
+
+        documents.forEach((id, document) -> {
+            if (entityManager.contains(document) && documentCounts.containsKey(id)) {
+                document.setIssuesCount(documentCounts.get(id));
+            }
+        });
+        audits.forEach((id, audit) -> {
+            if (entityManager.contains(audit) && auditCounts.containsKey(id)) {
+                audit.setProblemsCount(auditCounts.get(id));
+            }
+        });
+    }
+
+    private static Map<Long, Integer> updateCounts(Connection connection, String table, String countColumn,
+                                                   String issueColumn, Collection<Long> ids) throws SQLException {
+        Map<Long, Integer> counts = new HashMap<>();
+        if (ids.isEmpty()) {
+            return counts;
+        }
+        List<Long> keys = new ArrayList<>(ids);
+        String in = "(" + String.join(", ", Collections.nCopies(keys.size(), "?")) + ")";
+
+        try (PreparedStatement update = connection.prepareStatement("UPDATE " + table + " t SET " + countColumn
+                + " = (SELECT COUNT(*) FROM audit_issue i WHERE i." + issueColumn + " = t.id) WHERE t.id IN " + in)) {
+            bindIds(update, keys);
+            update.executeUpdate();
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, " + countColumn + " FROM " + table + " WHERE id IN " + in)) {
+            bindIds(select, keys);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getLong(1), rs.getInt(2));
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static void bindIds(PreparedStatement statement, List<Long> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            statement.setLong(i + 1, ids.get(i));
+        }
+    }
+
+    private static void setLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value != null) {
+            statement.setLong(index, value);
+        } else {
+            statement.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private static void setInt(PreparedStatement statement, int index, Integer value) throws SQLException {
+        if (value != null) {
+            statement.setInt(index, value);
+        } else {
+            statement.setNull(index, Types.INTEGER);
+        }
+    }
+}
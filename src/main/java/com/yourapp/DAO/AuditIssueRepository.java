@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -37,4 +38,14 @@ public interface AuditIssueRepository extends JpaRepository<AuditIssue, Integer>
 
     // 🔹 Issues d’une page précise dans un document
     List<AuditIssue> findByDocumentAndPageNumber(AuditDocument document, Integer pageNumber);
+
+    // 🔹 Issues de tous les audits d’un projet (index de similarité)
+    @Query("SELECT ai FROM AuditIssue ai WHERE ai.audit.projectId = :projectId")
+    List<AuditIssue> findByProjectId(@Param("projectId") Long projectId);
+
+    // 🔹 Issues par identifiants (ceux qui n'existent plus sont ignorés)
+    List<AuditIssue> findByIdIn(Collection<Long> ids);
+
+    // 🔹 Suppression par identifiants (doublons fusionnés)
+    void deleteByIdIn(Collection<Long> ids);
 }
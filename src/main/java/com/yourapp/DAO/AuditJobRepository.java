@@ -0,0 +1,39 @@
+package com.yourapp.DAO;
+
+import com.yourapp.model.AuditJob;
+import com.yourapp.model.AuditJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AuditJobRepository extends JpaRepository<AuditJob, Long> {
+
+    // 🔹 Jobs dans un état donné (reprise au démarrage)
+    List<AuditJob> findByStatus(AuditJobStatus status);
+
+    // 🔹 Dernier job d'un audit
+    Optional<AuditJob> findFirstByAuditIdOrderByCreatedAtDesc(Long auditId);
+
+    // 🔹 Un job est-il déjà en file ou en cours pour cet audit ?
+    boolean existsByAuditIdAndStatusIn(Long auditId, Collection<AuditJobStatus> statuses);
+
+    // 🔹 Incréments atomiques de la progression (appelés depuis plusieurs threads)
+    @Modifying
+    @Transactional
+    @Query("UPDATE AuditJob j SET j.processedDocuments = j.processedDocuments + 1 WHERE j.id = :jobId")
+    void incrementProcessed(@Param("jobId") Long jobId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE AuditJob j SET j.processedDocuments = j.processedDocuments + 1, " +
+            "j.failedDocuments = j.failedDocuments + 1 WHERE j.id = :jobId")
+    void incrementFailed(@Param("jobId") Long jobId);
+}
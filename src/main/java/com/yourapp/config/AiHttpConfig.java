@@ -0,0 +1,39 @@
+package com.yourapp.config;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client HTTP partagé pour les appels aux fournisseurs d'IA (analyse, chatbot, tests de connexion).
+ * Un seul pool de connexions keep-alive, HTTP/2 négocié quand le serveur le supporte (TLS/ALPN).
+ */
+@Configuration
+public class AiHttpConfig {
+
+    @Bean(name = "aiHttpClient")
+    public OkHttpClient aiHttpClient(
+            @Value("${ai.http.max-connections-per-host:8}") int maxConnectionsPerHost,
+            @Value("${ai.http.max-idle-connections:10}") int maxIdleConnections,
+            @Value("${ai.http.keep-alive-seconds:300}") long keepAliveSeconds) {
+
+        // Limite les appels asynchrones ; les appels synchrones sont bornés par AiHttpTransport
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(maxConnectionsPerHost);
+        dispatcher.setMaxRequests(Math.max(dispatcher.getMaxRequests(), maxConnectionsPerHost * 4));
+
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+}
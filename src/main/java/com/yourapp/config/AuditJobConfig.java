@@ -0,0 +1,25 @@
+package com.yourapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Pool de workers exécutant les jobs d'analyse IA en arrière-plan
+ */
+@Configuration
+public class AuditJobConfig {
+
+    @Bean(name = "auditJobExecutor")
+    public ThreadPoolTaskExecutor auditJobExecutor(
+            @Value("${app.audit.max-concurrent-audits:3}") int maxConcurrentAudits) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentAudits);
+        executor.setMaxPoolSize(maxConcurrentAudits);
+        executor.setThreadNamePrefix("audit-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,28 @@
+package com.yourapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Pool de workers pour l'extraction de texte (PDF découpés en plages de pages)
+ */
+@Configuration
+public class ExtractionConfig {
+
+    @Bean(name = "pdfExtractionExecutor")
+    public ThreadPoolTaskExecutor pdfExtractionExecutor(
+            @Value("${app.extraction.pdf.workers:0}") int workers) {
+        // 0 = un worker par cœur disponible
+        int size = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setThreadNamePrefix("pdf-extract-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
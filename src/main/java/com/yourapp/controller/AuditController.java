@@ -347,13 +347,21 @@ public class AuditController {
             return;
         }
 
-        showProgressDialog();
+        showProgressDialog(this::createAuditTask);
+    }
+
+    /**
+     * Tâche suivie dans la boîte de dialogue de progression
+     */
+    @FunctionalInterface
+    private interface ProgressTaskFactory {
+        Task<AuditResponseDto> create(Label statusLabel, Label percentLabel, ProgressBar progressBar);
     }
 
     /**
      * Afficher la boîte de dialogue de progression
      */
-    private void showProgressDialog() {
+    private void showProgressDialog(ProgressTaskFactory taskFactory) {
         Dialog<Void> progressDialog = new Dialog<>();
         progressDialog.setTitle("Progression de l'analyse");
         progressDialog.setHeaderText(null);
@@ -391,7 +399,7 @@ public class AuditController {
         progressDialog.getDialogPane().setContent(dialogContent);
         progressDialog.getDialogPane().lookupButton(closeButtonType).setVisible(false);
 
-        Task<AuditResponseDto> auditTask = createAuditTask(statusLabel, percentLabel, progressBar);
+        Task<AuditResponseDto> auditTask = taskFactory.create(statusLabel, percentLabel, progressBar);
 
         auditTask.setOnSucceeded(e -> {
             progressDialog.close();
@@ -454,7 +462,15 @@ public class AuditController {
                     List<AuditDocumentDto> uploadedDocs = fileUploadService.uploadMultipleFiles(
                             selectedFiles,
                             currentAuditId,
-                            selectedProject.getId()
+                            selectedProject.getId(),
+                            (fileName, completed, total, success) -> {
+                                double progress = 0.4 + 0.2 * completed / total;
+                                Platform.runLater(() -> {
+                                    statusLabel.setText(String.format("Upload des documents... (%d/%d)", completed, total));
+                                    percentLabel.setText(String.format("%d%%", Math.round(progress * 100)));
+                                    progressBar.setProgress(progress);
+                                });
+                            }
                     );
 
                     log.info("✅ {} documents liés au projet {}", uploadedDocs.size(), selectedProject.getName());
@@ -466,39 +482,85 @@ public class AuditController {
                         progressBar.setProgress(0.6);
                     });
 
-                    auditApiService.startAnalysis(currentAuditId);
+                    AuditResponseDto started = auditApiService.startAnalysis(currentAuditId);
 
-                    log.info("✅ Analyse lancée");
+                    log.info("✅ Analyse mise en file (job {})", started.getJobId());
 
-                    // Étape 4: Polling du statut - OPTIMISÉ avec timeout réduit
-                    Platform.runLater(() -> {
-                        statusLabel.setText("Analyse en cours...");
-                        percentLabel.setText("80%");
-                        progressBar.setProgress(0.8);
-                    });
+                    // Étapes 4 et 5: Suivi du job - progression document par document
+                    return awaitAnalysis(started, 0.6, statusLabel, percentLabel, progressBar);
 
-                    // Polling avec timeout de 30 secondes max (au lieu de 60)
-                    AuditResponseDto finalAudit = auditApiService.pollAuditStatus(
-                            currentAuditId, 30, 2
-                    );
+                } catch (Exception e) {
+                    log.error("❌ Erreur lors de l'audit", e);
+                    throw e;
+                }
+            }
+        };
+    }
 
-                    // Étape 5: Terminé
+    /**
+     * Créer la tâche de ré-audit : seuls les documents nouveaux ou modifiés sont ré-analysés
+     */
+    private ProgressTaskFactory createReanalysisTask(Long auditId) {
+        return (statusLabel, percentLabel, progressBar) -> new Task<>() {
+            @Override
+            protected AuditResponseDto call() throws Exception {
+                try {
                     Platform.runLater(() -> {
-                        statusLabel.setText("Analyse terminée ✅");
-                        percentLabel.setText("100%");
-                        progressBar.setProgress(1.0);
+                        statusLabel.setText("Relance de l'analyse IA...");
+                        percentLabel.setText("10%");
+                        progressBar.setProgress(0.1);
                     });
 
-                    return finalAudit;
+                    AuditResponseDto started = auditApiService.startReanalysis(auditId);
+                    currentAuditId = auditId;
+
+                    log.info("✅ Ré-audit mis en file (job {})", started.getJobId());
+
+                    return awaitAnalysis(started, 0.1, statusLabel, percentLabel, progressBar);
 
                 } catch (Exception e) {
-                    log.error("❌ Erreur lors de l'audit", e);
+                    log.error("❌ Erreur lors du ré-audit", e);
                     throw e;
                 }
             }
         };
     }
 
+    /**
+     * Suivre le job d'analyse jusqu'à sa fin, la barre allant de startProgress à 100 %
+     */
+    private AuditResponseDto awaitAnalysis(AuditResponseDto started, double startProgress,
+                                           Label statusLabel, Label percentLabel, ProgressBar progressBar) {
+        Platform.runLater(() -> {
+            statusLabel.setText("Analyse en cours...");
+            percentLabel.setText(String.format("%d%%", Math.round(startProgress * 100)));
+            progressBar.setProgress(startProgress);
+        });
+
+        AuditResponseDto finalAudit = auditApiService.awaitAnalysis(started.getJobId(), job -> {
+            double progress = startProgress + (1 - startProgress) * job.getProgress();
+            Platform.runLater(() -> {
+                statusLabel.setText(String.format("Analyse en cours... (%d/%d documents)",
+                        job.getProcessedDocuments(), job.getTotalDocuments()));
+                percentLabel.setText(String.format("%d%%", Math.round(progress * 100)));
+                progressBar.setProgress(progress);
+            });
+        });
+
+        if (!"COMPLETED".equals(finalAudit.getStatus())) {
+            throw new RuntimeException("L'analyse a échoué (statut: " + finalAudit.getStatus() + ")");
+        }
+
+        // Terminé
+        Platform.runLater(() -> {
+            statusLabel.setText("Analyse terminée ✅");
+            percentLabel.setText("100%");
+            progressBar.setProgress(1.0);
+        });
+
+        return finalAudit;
+    }
+
     /**
      * Créer le résumé du rapport
      */
@@ -751,7 +813,24 @@ public class AuditController {
             resetAuditForm();
         });
 
-        actionButtons.getChildren().addAll(downloadBtn, newAuditBtn);
+        // ♻️ BOUTON RELANCER L'AUDIT (documents nouveaux ou modifiés uniquement)
+        Button reanalyzeBtn = new Button("♻️ Relancer l'Audit");
+        reanalyzeBtn.setStyle("""
+        -fx-background-color: #6366f1;
+        -fx-text-fill: white;
+        -fx-font-weight: 600;
+        -fx-font-size: 14px;
+        -fx-padding: 12 24;
+        -fx-border-radius: 8;
+        -fx-background-radius: 8;
+        -fx-cursor: hand;
+    """);
+        reanalyzeBtn.setOnAction(e -> {
+            resultsDialog.close();
+            showProgressDialog(createReanalysisTask(audit.getId()));
+        });
+
+        actionButtons.getChildren().addAll(downloadBtn, reanalyzeBtn, newAuditBtn);
 
         mainContent.getChildren().addAll(titleLabel, reportBox, tabPane, actionButtons);
         resultsDialog.getDialogPane().setContent(mainContent);
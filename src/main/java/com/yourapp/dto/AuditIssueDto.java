@@ -49,4 +49,6 @@ public class AuditIssueDto {
     private LocalDateTime detectedAt;
 
     private String additionalContext;
+
+    private Long recurrenceOfId; // Même problème déjà relevé dans un audit précédent du projet
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.yourapp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO pour l'état d'un job d'analyse
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditJobDto {
+
+    private Long id;
+
+    private Long auditId;
+
+    private String status; // PENDING, IN_PROGRESS, COMPLETED, FAILED
+
+    private boolean incremental;
+
+    private Integer totalDocuments;
+
+    private Integer processedDocuments;
+
+    private Integer failedDocuments;
+
+    private String errorMessage;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    /**
+     * Progression entre 0.0 et 1.0
+     */
+    public double getProgress() {
+        if (totalDocuments == null || totalDocuments == 0 || processedDocuments == null) {
+            return 0.0;
+        }
+        return Math.min(1.0, processedDocuments / (double) totalDocuments);
+    }
+
+    public boolean isFinished() {
+        return "COMPLETED".equals(status) || "FAILED".equals(status);
+    }
+}
@@ -29,6 +29,8 @@ public class AuditResponseDto {
 
     private String status; // PENDING, IN_PROGRESS, COMPLETED, FAILED
 
+    private Long jobId; // Job d'analyse en cours (AuditJobService)
+
     private LocalDateTime createdAt;
 
     private LocalDateTime completedAt;
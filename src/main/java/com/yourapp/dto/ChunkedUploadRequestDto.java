@@ -0,0 +1,32 @@
+package com.yourapp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * DTO d'ouverture d'un upload par morceaux (reprenable)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkedUploadRequestDto {
+
+    @NotBlank(message = "Le nom du fichier est obligatoire")
+    private String fileName;
+
+    @NotNull(message = "La taille du fichier est obligatoire")
+    @Positive(message = "La taille du fichier doit être positive")
+    private Long size;
+
+    @NotNull(message = "L'identifiant de l'audit est obligatoire")
+    private Long auditId;
+
+    private Long projectId;
+
+    private String sha256; // Empreinte annoncée par le client, vérifiée à la fin de l'upload (facultative)
+}
@@ -0,0 +1,28 @@
+package com.yourapp.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * DTO d'état d'un upload par morceaux : le client reprend l'envoi à receivedBytes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChunkedUploadStatusDto {
+
+    private String uploadId;
+
+    private String fileName;
+
+    private Long size;
+
+    private Long receivedBytes;
+
+    private Long maxChunkBytes;
+
+    private Boolean complete; // Tous les octets sont reçus : l'upload peut être finalisé
+}
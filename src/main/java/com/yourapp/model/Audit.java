@@ -11,7 +11,8 @@ import java.util.List;
 public class Audit {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_seq")
+    @SequenceGenerator(name = "audit_seq", sequenceName = "audit_id_seq", allocationSize = 50)
     private Long id;
 
     // ===== Relations =====
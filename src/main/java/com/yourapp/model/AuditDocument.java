@@ -9,7 +9,8 @@ import java.time.LocalDateTime;
 public class AuditDocument {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "auditdocument_seq")
+    @SequenceGenerator(name = "auditdocument_seq", sequenceName = "auditdocument_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -40,6 +41,18 @@ public class AuditDocument {
     @Column(name = "project_id")
     private Long projectId;
 
+    // SHA-256 du fichier analysé
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Empreinte de la dernière analyse réussie (contenu + version du template)
+    @Column(name = "analysis_fingerprint", length = 64)
+    private String analysisFingerprint;
+
+    // Type MIME détecté d'après la signature du fichier au stockage (voir MimeTypeSniffer)
+    @Column(name = "mime_type")
+    private String mimeType;
+
 
     @PrePersist
     protected void onCreate() {
@@ -105,5 +118,17 @@ public class AuditDocument {
     public Long getProjectId() { return projectId; }
 
     public void setProjectId(Long projectId) { this.projectId = projectId; }
+
+    public String getContentHash() { return contentHash; }
+
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getAnalysisFingerprint() { return analysisFingerprint; }
+
+    public void setAnalysisFingerprint(String analysisFingerprint) { this.analysisFingerprint = analysisFingerprint; }
+
+    public String getMimeType() { return mimeType; }
+
+    public void setMimeType(String mimeType) { this.mimeType = mimeType; }
 }
 
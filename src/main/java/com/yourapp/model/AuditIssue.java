@@ -7,8 +7,10 @@ import java.time.LocalDateTime;
 @Table(name = "audit_issue")
 public class AuditIssue {
 
+    // Identifiants réservés par blocs de 50 (optimiseur pooled-lo) : les INSERT sont regroupés en lots JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_issue_seq")
+    @SequenceGenerator(name = "audit_issue_seq", sequenceName = "audit_issue_id_seq", allocationSize = 50)
     private Long id;
 
 
@@ -43,6 +45,10 @@ public class AuditIssue {
     @Column(name = "reported_at", updatable = false)
     private LocalDateTime reportedAt;
 
+    // Problème d'un audit précédent du même projet dont celui-ci est la récurrence (première occurrence)
+    @Column(name = "recurrence_of_id")
+    private Long recurrenceOfId;
+
     // ===== Hooks Hibernate =====
 
     @PrePersist
@@ -56,6 +62,10 @@ public class AuditIssue {
         return id;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public Audit getAudit() {
         return audit;
     }
@@ -123,4 +133,16 @@ public class AuditIssue {
     public LocalDateTime getReportedAt() {
         return reportedAt;
     }
+
+    public void setReportedAt(LocalDateTime reportedAt) {
+        this.reportedAt = reportedAt;
+    }
+
+    public Long getRecurrenceOfId() {
+        return recurrenceOfId;
+    }
+
+    public void setRecurrenceOfId(Long recurrenceOfId) {
+        this.recurrenceOfId = recurrenceOfId;
+    }
 }
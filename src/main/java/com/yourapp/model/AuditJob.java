@@ -0,0 +1,88 @@
+package com.yourapp.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Job d'analyse IA d'un audit, exécuté en arrière-plan par AuditJobService
+ */
+@Entity
+@Table(name = "audit_job")
+public class AuditJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_job_seq")
+    @SequenceGenerator(name = "audit_job_seq", sequenceName = "audit_job_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "audit_id", nullable = false)
+    private Long auditId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private AuditJobStatus status = AuditJobStatus.PENDING;
+
+    // ===== Compteurs de progression =====
+    @Column(name = "total_documents", nullable = false)
+    private Integer totalDocuments = 0;
+
+    @Column(name = "processed_documents", nullable = false)
+    private Integer processedDocuments = 0;
+
+    @Column(name = "failed_documents", nullable = false)
+    private Integer failedDocuments = 0;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    // Ré-audit : seuls les documents nouveaux ou modifiés sont envoyés à l'IA
+    @Column(nullable = false)
+    private boolean incremental = false;
+
+    // ===== Timestamps =====
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // ===== Getters & Setters =====
+    public Long getId() { return id; }
+
+    public Long getAuditId() { return auditId; }
+    public void setAuditId(Long auditId) { this.auditId = auditId; }
+
+    public AuditJobStatus getStatus() { return status; }
+    public void setStatus(AuditJobStatus status) { this.status = status; }
+
+    public Integer getTotalDocuments() { return totalDocuments; }
+    public void setTotalDocuments(Integer totalDocuments) { this.totalDocuments = totalDocuments; }
+
+    public Integer getProcessedDocuments() { return processedDocuments; }
+    public void setProcessedDocuments(Integer processedDocuments) { this.processedDocuments = processedDocuments; }
+
+    public Integer getFailedDocuments() { return failedDocuments; }
+    public void setFailedDocuments(Integer failedDocuments) { this.failedDocuments = failedDocuments; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public boolean isIncremental() { return incremental; }
+    public void setIncremental(boolean incremental) { this.incremental = incremental; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
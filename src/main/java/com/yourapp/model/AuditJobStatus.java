@@ -0,0 +1,15 @@
+package com.yourapp.model;
+
+/**
+ * États d'un job d'analyse (alignés sur Audit.status)
+ */
+public enum AuditJobStatus {
+    PENDING,
+    IN_PROGRESS,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
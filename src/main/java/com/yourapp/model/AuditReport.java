@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class AuditReport {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_report_seq")
+    @SequenceGenerator(name = "audit_report_seq", sequenceName = "audit_report_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
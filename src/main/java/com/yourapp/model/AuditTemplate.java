@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class AuditTemplate {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_template_seq")
+    @SequenceGenerator(name = "audit_template_seq", sequenceName = "audit_template_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 255)
@@ -23,6 +24,10 @@ public class AuditTemplate {
     @Column(name = "rule_count", nullable = false)
     private Integer ruleCount = 0;
 
+    // Règles vérifiées localement avant l'IA (JSON, voir LocalRuleEngine)
+    @Column(columnDefinition = "TEXT")
+    private String rules;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -66,6 +71,9 @@ public class AuditTemplate {
     public Integer getRuleCount() { return ruleCount; }
     public void setRuleCount(Integer ruleCount) { this.ruleCount = ruleCount; }
 
+    public String getRules() { return rules; }
+    public void setRules(String rules) { this.rules = rules; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
 }
\ No newline at end of file
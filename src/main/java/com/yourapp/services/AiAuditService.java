@@ -1,20 +1,58 @@
 package com.yourapp.services;
 
+import com.yourapp.AI.AiCallType;
 import com.yourapp.AI.AiClient;
+import com.yourapp.AI.AiIssueDeduplicator;
+import com.yourapp.AI.AiRequest;
+import com.yourapp.AI.AiResponseSchema;
 import com.yourapp.AI.AiPromptBuilder;
 import com.yourapp.AI.AiResponseParser;
+import com.yourapp.AI.IncrementalIssueParser;
 import com.yourapp.model.Audit;
 import com.yourapp.model.AuditDocument;
 import com.yourapp.model.AuditIssue;
 import com.yourapp.model.AuditTemplate;
 import com.yourapp.DAO.AuditDocumentRepository;
 import com.yourapp.DAO.AuditTemplateRepository;
+import com.yourapp.services.extraction.BatchedDocument;
+import com.yourapp.services.extraction.DocumentBatcher;
+import com.yourapp.services.extraction.DocumentChunk;
+import com.yourapp.services.extraction.DocumentChunker;
+import com.yourapp.services.extraction.ExtractedText;
+import com.yourapp.services.extraction.NormalizationStats;
+import com.yourapp.services.extraction.NormalizedDocument;
+import com.yourapp.services.extraction.TextNormalizer;
+import com.yourapp.services.rules.LocalRuleEngine;
+import com.yourapp.services.rules.TemplateRules;
+import com.yourapp.services.similarity.IssueSimilarityService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 /**
  * Service responsable de l'intégration avec l'intelligence artificielle
@@ -28,17 +66,63 @@ public class AiAuditService {
     private final AiClient aiClient;
     private final AiPromptBuilder promptBuilder;
     private final AiResponseParser responseParser;
+    private final AiIssueDeduplicator issueDeduplicator;
+    private final DocumentChunker documentChunker;
+    private final DocumentBatcher documentBatcher;
+    private final TextNormalizer textNormalizer;
+    private final LocalRuleEngine ruleEngine;
+    private final IssueSimilarityService similarityService;
     private final AuditDocumentService documentService;
     private final AuditDocumentRepository documentRepository;
     private final AuditTemplateRepository templateRepository;
     private final AuditIssueService issueService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.audit.parallel-analysis:true}")
+    private boolean parallelAnalysis;
+
+    @Value("${app.audit.max-concurrent-documents:${app.audit.max-concurrent-audits:3}}")
+    private int maxConcurrentDocuments;
+
+    @Value("${app.audit.chunking.max-concurrent-chunks:2}")
+    private int maxConcurrentChunks;
+
+    @Value("${ai.streaming.max-issues-per-document:50}")
+    private int maxStreamedIssues;
+
+    /**
+     * Notifié à la fin de chaque document analysé (succès ou échec)
+     */
+    @FunctionalInterface
+    public interface DocumentProgressListener {
+        DocumentProgressListener NONE = (documentId, success) -> { };
+
+        void onDocumentFinished(Long documentId, boolean success);
+    }
 
     /**
      * Analyser un audit complet avec tous ses documents
      */
-    @Transactional
     public void analyzeAudit(Audit audit) {
-        log.info("Démarrage de l'analyse IA pour l'audit {}", audit.getId());
+        analyzeAudit(audit, DocumentProgressListener.NONE);
+    }
+
+    /**
+     * Analyser un audit complet en notifiant la progression document par document
+     */
+    public void analyzeAudit(Audit audit, DocumentProgressListener listener) {
+        analyzeAudit(audit, false, listener);
+    }
+
+    /**
+     * Analyser un audit en notifiant la progression document par document.
+     * En mode incrémental, les documents inchangés depuis leur dernière analyse réussie
+     * (même contenu, même version du template) conservent leurs problèmes sans appel à l'IA ;
+     * sinon, les problèmes existants de chaque document sont supprimés avant sa ré-analyse.
+     * Aucune transaction n'est ouverte pendant les appels à l'IA.
+     */
+    public void analyzeAudit(Audit audit, boolean incremental, DocumentProgressListener listener) {
+        log.info("Démarrage de l'analyse IA{} pour l'audit {}", incremental ? " incrémentale" : "", audit.getId());
 
         try {
             // Récupérer le template (modèle) d'analyse
@@ -52,12 +136,45 @@ public class AiAuditService {
                 throw new RuntimeException("Aucun document à analyser pour l'audit " + audit.getId());
             }
 
-            // Analyser chaque document
-            for (AuditDocument document : documents) {
-                analyzeDocument(audit, document, template);
+            if (incremental) {
+                documents = selectChangedDocuments(documents, template, listener);
+                if (documents.isEmpty()) {
+                    log.info("Aucun document modifié pour l'audit {}, problèmes existants conservés", audit.getId());
+                    return;
+                }
+            } else {
+                // Analyse complète (relance d'un audit en échec comprise) : les problèmes
+                // d'une analyse précédente, même partielle, sont remplacés
+                documents.forEach(document -> issueService.deleteByDocument(document.getId()));
+            }
+
+            // Petits documents regroupés par prompt ; les autres sont analysés un par un
+            List<AuditDocument> singles = new ArrayList<>(documents);
+            // (sans objet si le template est entièrement vérifié par ses règles locales)
+            List<List<BatchedDocument>> batches = ruleEngine.rulesFor(template).localOnly()
+                    ? List.of() : planBatches(documents, singles);
+
+            if (parallelAnalysis && documents.size() > 1) {
+                analyzeDocumentsInParallel(audit, singles, batches, template, listener);
+            } else {
+                for (List<BatchedDocument> batch : batches) {
+                    analyzeBatchIsolated(audit, batch, template, listener);
+                }
+
+                // Analyser chaque document
+                for (AuditDocument document : singles) {
+                    try {
+                        analyzeDocument(audit, document, template);
+                        listener.onDocumentFinished(document.getId(), true);
+                    } catch (RuntimeException e) {
+                        listener.onDocumentFinished(document.getId(), false);
+                        throw e;
+                    }
+                }
             }
 
             log.info("Analyse IA terminée pour l'audit {}", audit.getId());
+            linkSimilarIssues(audit);
 
         } catch (Exception e) {
             log.error("Erreur lors de l'analyse IA de l'audit {}", audit.getId(), e);
@@ -65,6 +182,23 @@ public class AiAuditService {
         }
     }
 
+    /**
+     * Après l'analyse : fusion des doublons de l'audit et rattachement des problèmes récurrents du projet.
+     * Une erreur (embeddings indisponibles...) n'invalide pas l'audit.
+     */
+    private void linkSimilarIssues(Audit audit) {
+        if (!similarityService.isEnabled()) {
+            return;
+        }
+        try {
+            similarityService.deduplicateAudit(audit.getId());
+            similarityService.linkRecurringIssues(audit.getId());
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Recherche des doublons et récurrences impossible pour l'audit {}: {}",
+                    audit.getId(), e.getMessage());
+        }
+    }
+
     /**
      * Analyser un document spécifique
      */
@@ -77,30 +211,17 @@ public class AiAuditService {
             document.setStatus("PROCESSING");
             documentRepository.save(document);
 
-            // Lire le contenu du document
-            String documentContent = documentService.readDocumentContent(document.getId());
-
-            // Construire le prompt avec le template et le contenu du document
-            String prompt = promptBuilder.buildPrompt(template, documentContent, document.getDocumentName());
-
-            log.debug("Prompt construit pour le document {}: {}", document.getId(),
-                    prompt.substring(0, Math.min(200, prompt.length())) + "...");
-
-            // Envoyer la requête à l'IA
-            String aiResponse = aiClient.sendRequest(prompt);
-
-            log.debug("Réponse IA reçue pour le document {}", document.getId());
-
-            // Parser la réponse de l'IA et créer les issues
-            List<AuditIssue> issues = responseParser.parseResponse(aiResponse, audit, document);
+            String contentHash = contentHash(document);
+            List<AuditIssue> issues = requestIssues(audit, document, template);
 
-            // Sauvegarder les issues détectées
-            issueService.saveIssues(issues);
+            // Sauvegarder les issues détectées (celles reçues en flux le sont déjà)
+            issueService.saveIssues(unsaved(issues));
 
             // Mettre à jour le statut du document
             document.setStatus("ANALYZED");
-            document.setAnalyzedAt(java.time.LocalDateTime.now());
+            document.setAnalyzedAt(LocalDateTime.now());
             document.setIssuesCount(issues.size());
+            recordFingerprint(document, contentHash, template);
             documentRepository.save(document);
 
             log.info("Document {} analysé avec succès. {} problèmes détectés.",
@@ -118,6 +239,517 @@ public class AiAuditService {
         }
     }
 
+    /**
+     * Analyser les documents en parallèle, avec au plus maxConcurrentDocuments appels IA simultanés.
+     * Chaque document est traité dans ses propres transactions courtes afin de ne pas
+     * monopoliser une connexion du pool pendant l'appel à l'IA.
+     */
+    private void analyzeDocumentsInParallel(Audit audit, List<AuditDocument> documents,
+                                            List<List<BatchedDocument>> batches, AuditTemplate template,
+                                            DocumentProgressListener listener) {
+        int limit = Math.max(1, Math.min(maxConcurrentDocuments, documents.size() + batches.size()));
+        log.info("Analyse parallèle de {} documents et {} lots pour l'audit {} (max {} simultanés)",
+                documents.size(), batches.size(), audit.getId(), limit);
+
+        Semaphore permits = new Semaphore(limit);
+        List<Future<Integer>> futures = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (AuditDocument document : documents) {
+                Long documentId = document.getId();
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    boolean success = false;
+                    try {
+                        int count = analyzeDocumentIsolated(audit, documentId, template);
+                        success = true;
+                        return count;
+                    } finally {
+                        permits.release();
+                        listener.onDocumentFinished(documentId, success);
+                    }
+                }));
+                labels.add(document.getDocumentName());
+            }
+
+            // Un lot occupe un seul appel IA, donc une seule place
+            for (List<BatchedDocument> batch : batches) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return analyzeBatchIsolated(audit, batch, template, listener);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+                labels.add("lot de " + batch.size() + " documents");
+            }
+
+            // Attendre la fin de tous les documents avant de conclure
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    failures.add(labels.get(i) + ": " + cause.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Analyse parallèle interrompue", e);
+                }
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new RuntimeException(failures.size() + " document(s) en erreur: " + String.join(" | ", failures));
+        }
+    }
+
+    /**
+     * Analyser un document hors de la transaction appelante.
+     * La mise à jour du statut et l'enregistrement des issues se font chacun dans une transaction courte.
+     */
+    private int analyzeDocumentIsolated(Audit audit, Long documentId, AuditTemplate template) {
+        log.info("Analyse du document {} pour l'audit {}", documentId, audit.getId());
+        TransactionTemplate tx = newTransaction();
+
+        // Transaction courte : passage en PROCESSING
+        AuditDocument document = tx.execute(status -> {
+            AuditDocument doc = documentRepository.findById(documentId)
+                    .orElseThrow(() -> new RuntimeException("Document introuvable: " + documentId));
+            doc.setStatus("PROCESSING");
+            return documentRepository.save(doc);
+        });
+
+        List<AuditIssue> issues = new ArrayList<>();
+        try {
+            // Empreinte du contenu effectivement analysé
+            String contentHash = contentHash(document);
+
+            // Appel IA sans transaction ouverte
+            issues.addAll(requestIssues(audit, document, template));
+
+            // Transaction courte : issues restantes + statut ANALYZED
+            tx.executeWithoutResult(status -> {
+                issueService.saveIssues(unsaved(issues));
+                AuditDocument doc = documentRepository.findById(documentId).orElseThrow();
+                doc.setStatus("ANALYZED");
+                doc.setAnalyzedAt(LocalDateTime.now());
+                doc.setIssuesCount(issues.size());
+                recordFingerprint(doc, contentHash, template);
+                documentRepository.save(doc);
+            });
+
+            log.info("Document {} analysé avec succès. {} problèmes détectés.", documentId, issues.size());
+            return issues.size();
+
+        } catch (Exception e) {
+            log.error("Erreur lors de l'analyse du document {}", documentId, e);
+            discardSaved(issues);
+
+            tx.executeWithoutResult(status -> documentRepository.findById(documentId).ifPresent(doc -> {
+                doc.setStatus("ERROR");
+                doc.setErrorMessage(e.getMessage());
+                documentRepository.save(doc);
+            }));
+
+            throw new RuntimeException("Erreur lors de l'analyse du document: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ré-audit : les documents dont l'empreinte correspond à leur dernière analyse réussie gardent
+     * leurs problèmes et sont comptés comme traités ; ceux des autres documents sont supprimés
+     * avant la nouvelle analyse.
+     */
+    private List<AuditDocument> selectChangedDocuments(List<AuditDocument> documents, AuditTemplate template,
+                                                       DocumentProgressListener listener) {
+        List<AuditDocument> changed = new ArrayList<>();
+        for (AuditDocument document : documents) {
+            String fingerprint = analysisFingerprint(contentHash(document), template);
+            if (fingerprint != null && "ANALYZED".equals(document.getStatus())
+                    && fingerprint.equals(document.getAnalysisFingerprint())) {
+                listener.onDocumentFinished(document.getId(), true);
+                continue;
+            }
+            issueService.deleteByDocument(document.getId());
+            changed.add(document);
+        }
+
+        log.info("♻️ Ré-audit: {} document(s) inchangé(s) conservé(s), {} à analyser",
+                documents.size() - changed.size(), changed.size());
+        return changed;
+    }
+
+    /**
+     * SHA-256 du fichier du document (nom du fichier dans le stockage adressé par contenu),
+     * null s'il est illisible (le document sera alors toujours ré-analysé)
+     */
+    private static String contentHash(AuditDocument document) {
+        try {
+            return ExtractionCache.contentHash(Paths.get(document.getDocumentPath()));
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ Empreinte du document {} impossible: {}", document.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Empreinte d'analyse : contenu du fichier + template et date de sa dernière modification
+     */
+    private static String analysisFingerprint(String contentHash, AuditTemplate template) {
+        if (contentHash == null) {
+            return null;
+        }
+        String material = contentHash + "|" + template.getId() + "|" + template.getUpdatedAt();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(material.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static void recordFingerprint(AuditDocument document, String contentHash, AuditTemplate template) {
+        document.setContentHash(contentHash);
+        document.setAnalysisFingerprint(analysisFingerprint(contentHash, template));
+    }
+
+    /**
+     * Choisir les documents analysés en lot : fichiers petits dont le texte extrait est court.
+     * Les documents retenus sont retirés de singles.
+     */
+    private List<List<BatchedDocument>> planBatches(List<AuditDocument> documents, List<AuditDocument> singles) {
+        if (!documentBatcher.isEnabled() || documents.size() < 2) {
+            return List.of();
+        }
+
+        List<BatchedDocument> small = new ArrayList<>();
+        for (AuditDocument document : documents) {
+            if (!documentBatcher.isCandidateFile(fileSize(document))) {
+                continue;
+            }
+            try {
+                NormalizedDocument content = readNormalized(document);
+                if (documentBatcher.isSmall(content.normalized()) && !content.normalized().text().isBlank()) {
+                    small.add(new BatchedDocument(document.getId(), document.getDocumentName(), content));
+                }
+            } catch (RuntimeException e) {
+                // Analysé seul : l'erreur de lecture sera rapportée sur le document
+                log.debug("Document {} exclu des lots: {}", document.getId(), e.getMessage());
+            }
+        }
+        if (small.size() < 2) {
+            return List.of();
+        }
+
+        List<List<BatchedDocument>> batches = documentBatcher.group(small).stream()
+                .filter(batch -> batch.size() > 1)
+                .toList();
+        Set<Long> batched = batches.stream()
+                .flatMap(List::stream)
+                .map(BatchedDocument::documentId)
+                .collect(Collectors.toSet());
+        singles.removeIf(document -> batched.contains(document.getId()));
+        return batches;
+    }
+
+    private static long fileSize(AuditDocument document) {
+        try {
+            return Files.size(Paths.get(document.getDocumentPath()));
+        } catch (IOException | RuntimeException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Analyser un lot de petits documents en un seul appel IA, puis répartir les problèmes par document.
+     * Si la réponse groupée est inexploitable, les documents du lot sont analysés un par un.
+     *
+     * @return le nombre total de problèmes détectés
+     */
+    private int analyzeBatchIsolated(Audit audit, List<BatchedDocument> batch, AuditTemplate template,
+                                     DocumentProgressListener listener) {
+        log.info("Analyse groupée de {} documents pour l'audit {}", batch.size(), audit.getId());
+        TransactionTemplate tx = newTransaction();
+
+        // Transaction courte : passage en PROCESSING
+        Map<Long, AuditDocument> documents = tx.execute(status -> {
+            Map<Long, AuditDocument> byId = new LinkedHashMap<>();
+            for (BatchedDocument entry : batch) {
+                AuditDocument doc = documentRepository.findById(entry.documentId())
+                        .orElseThrow(() -> new RuntimeException("Document introuvable: " + entry.documentId()));
+                doc.setStatus("PROCESSING");
+                byId.put(entry.documentId(), documentRepository.save(doc));
+            }
+            return byId;
+        });
+
+        Map<Long, String> contentHashes = new LinkedHashMap<>();
+        documents.values().forEach(doc -> contentHashes.put(doc.getId(), contentHash(doc)));
+
+        Map<Long, List<AuditIssue>> issuesByDocument;
+        try {
+            // Appel IA sans transaction ouverte
+            String prompt = promptBuilder.buildBatchPrompt(template, batch);
+            String aiResponse = aiClient.sendRequest(AiRequest.forTemplate(prompt, template)
+                    .withSchema(AiResponseSchema.BATCH_ISSUES)
+                    .withAudit(audit.getId()));
+            Map<Long, ExtractedText> sources = batch.stream()
+                    .collect(Collectors.toMap(BatchedDocument::documentId, BatchedDocument::content));
+            issuesByDocument = responseParser.parseBatchResponse(aiResponse, audit, documents, sources);
+            Map<Long, NormalizedDocument> contents = batch.stream()
+                    .collect(Collectors.toMap(BatchedDocument::documentId, BatchedDocument::source));
+            issuesByDocument.forEach((documentId, issues) ->
+                    issues.forEach(issue -> withOriginalParagraph(issue, contents.get(documentId))));
+
+            // Règles locales du template, document par document, sur le texte d'origine
+            TemplateRules rules = ruleEngine.rulesFor(template);
+            Map<Long, ExtractedText> originals = batch.stream()
+                    .collect(Collectors.toMap(BatchedDocument::documentId, BatchedDocument::original));
+            issuesByDocument.forEach((documentId, issues) -> issues.addAll(
+                    ruleEngine.check(rules, audit, documents.get(documentId), originals.get(documentId))));
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Analyse groupée impossible ({}), analyse document par document", e.getMessage());
+            return analyzeOneByOne(audit, batch, template, listener);
+        }
+
+        try {
+            // Transaction courte : issues + statut ANALYZED pour chaque document du lot
+            tx.executeWithoutResult(status -> issuesByDocument.forEach((documentId, issues) -> {
+                issueService.saveIssues(issues);
+                AuditDocument doc = documentRepository.findById(documentId).orElseThrow();
+                doc.setStatus("ANALYZED");
+                doc.setAnalyzedAt(LocalDateTime.now());
+                doc.setIssuesCount(issues.size());
+                recordFingerprint(doc, contentHashes.get(documentId), template);
+                documentRepository.save(doc);
+            }));
+        } catch (RuntimeException e) {
+            log.error("Erreur lors de l'enregistrement du lot de documents", e);
+            tx.executeWithoutResult(status -> documents.keySet().forEach(documentId ->
+                    documentRepository.findById(documentId).ifPresent(doc -> {
+                        doc.setStatus("ERROR");
+                        doc.setErrorMessage(e.getMessage());
+                        documentRepository.save(doc);
+                    })));
+            documents.keySet().forEach(documentId -> listener.onDocumentFinished(documentId, false));
+            throw new RuntimeException("Erreur lors de l'analyse groupée: " + e.getMessage(), e);
+        }
+
+        int total = 0;
+        for (Map.Entry<Long, List<AuditIssue>> entry : issuesByDocument.entrySet()) {
+            total += entry.getValue().size();
+            listener.onDocumentFinished(entry.getKey(), true);
+        }
+        log.info("Lot de {} documents analysé avec succès. {} problèmes détectés.", batch.size(), total);
+        return total;
+    }
+
+    /**
+     * Repli d'un lot : chaque document est analysé avec son propre prompt
+     */
+    private int analyzeOneByOne(Audit audit, List<BatchedDocument> batch, AuditTemplate template,
+                                DocumentProgressListener listener) {
+        int total = 0;
+        List<String> failures = new ArrayList<>();
+        for (BatchedDocument entry : batch) {
+            boolean success = false;
+            try {
+                total += analyzeDocumentIsolated(audit, entry.documentId(), template);
+                success = true;
+            } catch (RuntimeException e) {
+                failures.add(entry.documentName() + ": " + e.getMessage());
+            } finally {
+                listener.onDocumentFinished(entry.documentId(), success);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new RuntimeException(String.join(" | ", failures));
+        }
+        return total;
+    }
+
+    /**
+     * Lire le document, appliquer les règles locales du template, puis interroger l'IA et parser les problèmes détectés.
+     * Les problèmes reçus en flux sont enregistrés au fur et à mesure ; les autres restent à persister.
+     */
+    private List<AuditIssue> requestIssues(Audit audit, AuditDocument document, AuditTemplate template) {
+        // Lire le contenu du document (avec l'index des pages pour localiser les problèmes)
+        NormalizedDocument documentContent = readNormalized(document);
+
+        // Règles locales d'abord, sur le texte d'origine : leurs problèmes sont enregistrés
+        // avec ceux de l'IA, et abandonnés avec eux si l'appel IA échoue
+        TemplateRules rules = ruleEngine.rulesFor(template);
+        List<AuditIssue> localIssues = ruleEngine.check(rules, audit, document, documentContent.original());
+        if (rules.localOnly()) {
+            return localIssues;
+        }
+
+        List<AuditIssue> issues = new ArrayList<>(localIssues);
+        issues.addAll(requestAiIssues(audit, document, template, documentContent));
+        return issues;
+    }
+
+    /**
+     * Lire le document et le normaliser pour le prompt (en-têtes, pieds de page, bordures, espaces)
+     */
+    private NormalizedDocument readNormalized(AuditDocument document) {
+        NormalizedDocument content = textNormalizer.normalize(documentService.readDocument(document.getId()));
+        NormalizationStats stats = content.stats();
+        if (stats.savedChars() > 0) {
+            log.info("🧹 Document {} normalisé : {} → {} caractères (-{} %, ~{} tokens économisés ; "
+                            + "{} en-têtes/pieds, {} numéros de page, {} bordures, {} lignes répétées)",
+                    document.getId(), stats.originalChars(), stats.normalizedChars(),
+                    String.format("%.1f", stats.savedPercent()), stats.estimatedTokensSaved(),
+                    stats.headerFooterLines(), stats.pageNumberLines(), stats.borderLines(), stats.duplicateBlockLines());
+        }
+        return content;
+    }
+
+    /**
+     * Interroger l'IA sur le texte normalisé du document (par morceaux s'il est trop long).
+     * Les numéros de paragraphe sont ramenés à ceux du document d'origine.
+     */
+    private List<AuditIssue> requestAiIssues(Audit audit, AuditDocument document, AuditTemplate template,
+                                             NormalizedDocument normalizedDocument) {
+        ExtractedText documentContent = normalizedDocument.normalized();
+
+        // Document trop long pour un seul prompt : analyse par morceaux
+        if (documentChunker.needsChunking(documentContent.text())) {
+            List<AuditIssue> issues = requestIssuesInChunks(audit, document, template, documentContent);
+            issues.forEach(issue -> withOriginalParagraph(issue, normalizedDocument));
+            return issues;
+        }
+
+        // Construire le prompt avec le template et le contenu du document (préfixe commun aux documents du template)
+        AiPromptBuilder.PromptSize size = promptBuilder.measurePrompt(
+                template, documentContent.text(), document.getDocumentName());
+        log.debug("Prompt du document {} : {} caractères (~{} tokens), dont {} de préfixe commun",
+                document.getId(), size.totalChars(), size.estimatedTokens(), size.prefixChars());
+        String prompt = promptBuilder.buildPrompt(template, documentContent.text(), document.getDocumentName());
+
+        // Réponse lue en flux : chaque problème complet est enregistré sans attendre la fin,
+        // et la génération est interrompue une fois le plafond atteint
+        List<AuditIssue> issues = new ArrayList<>();
+        IncrementalIssueParser parser = new IncrementalIssueParser(json -> {
+            if (issues.size() >= maxStreamedIssues) {
+                return;
+            }
+            AuditIssue issue = responseParser.parseIssue(json, audit, document, documentContent);
+            if (issue != null) {
+                withOriginalParagraph(issue, normalizedDocument);
+                issueService.saveIssues(List.of(issue));
+                issues.add(issue);
+            }
+        });
+
+        String aiResponse;
+        try {
+            // Réponse mise en cache par template et empreinte du prompt
+            AiRequest request = AiRequest.forTemplate(prompt, template).withAudit(audit.getId());
+            aiResponse = aiClient.streamRequest(request, token -> {
+                parser.feed(token);
+                return issues.size() < maxStreamedIssues;
+            });
+        } catch (RuntimeException e) {
+            discardSaved(issues);
+            throw e;
+        }
+
+        log.debug("Réponse IA reçue pour le document {} ({} problèmes en flux)", document.getId(), issues.size());
+
+        if (parser.getIssueCount() == 0 && !parser.isFinished()) {
+            // Pas de tableau "issues" exploitable dans le flux : parsing classique (avec repli texte)
+            List<AuditIssue> parsed = responseParser.parseResponse(aiResponse, audit, document, documentContent);
+            parsed.forEach(issue -> withOriginalParagraph(issue, normalizedDocument));
+            return parsed;
+        }
+        return issues;
+    }
+
+    /**
+     * Paragraphe cité par l'IA (compté sur le texte normalisé, en-têtes de morceaux compris)
+     * renuméroté sur le texte d'origine, comme pour les problèmes des règles locales
+     */
+    private static AuditIssue withOriginalParagraph(AuditIssue issue, NormalizedDocument content) {
+        issue.setParagraphNumber(content.originalParagraph(issue.getParagraphNumber()));
+        return issue;
+    }
+
+    private static List<AuditIssue> unsaved(List<AuditIssue> issues) {
+        return issues.stream().filter(issue -> issue.getId() == null).toList();
+    }
+
+    /**
+     * Supprimer les problèmes déjà enregistrés d'une analyse qui a échoué
+     */
+    private void discardSaved(List<AuditIssue> issues) {
+        List<AuditIssue> saved = issues.stream().filter(issue -> issue.getId() != null).toList();
+        if (saved.isEmpty()) {
+            return;
+        }
+        try {
+            issueService.deleteIssues(saved);
+        } catch (Exception e) {
+            log.warn("⚠️ Impossible de supprimer les {} problèmes partiels: {}", saved.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Analyse map-reduce : chaque morceau est envoyé à l'IA (au plus maxConcurrentChunks à la fois),
+     * puis les problèmes sont fusionnés et dédupliqués (le recouvrement produit des doublons).
+     */
+    private List<AuditIssue> requestIssuesInChunks(Audit audit, AuditDocument document, AuditTemplate template,
+                                                   ExtractedText documentContent) {
+        List<DocumentChunk> chunks = documentChunker.split(documentContent);
+        log.info("Analyse du document {} en {} morceaux", document.getId(), chunks.size());
+
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrentChunks));
+        List<Future<List<AuditIssue>>> futures = new ArrayList<>();
+        List<AuditIssue> issues = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (DocumentChunk chunk : chunks) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        String prompt = promptBuilder.buildChunkPrompt(template, chunk, document.getDocumentName());
+                        String aiResponse = aiClient.sendRequest(
+                                AiRequest.forTemplate(prompt, template).withAudit(audit.getId()));
+                        // Pages résolues sur le texte complet : les extraits cités restent localisables
+                        return responseParser.parseResponse(aiResponse, audit, document, documentContent);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            // Ordre des morceaux conservé pour que la fusion garde la première occurrence
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    issues.addAll(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    throw new RuntimeException("Échec du morceau " + (i + 1) + "/" + chunks.size()
+                            + ": " + cause.getMessage(), cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Analyse par morceaux interrompue", e);
+                }
+            }
+        }
+
+        return issueDeduplicator.deduplicate(issues);
+    }
+
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
     /**
      * Analyser un texte simple (pour les tests)
      */
@@ -129,7 +761,7 @@ public class AiAuditService {
             String prompt = promptBuilder.buildPrompt(template, text, "text_sample");
 
             // Envoyer la requête à l'IA
-            String aiResponse = aiClient.sendRequest(prompt);
+            String aiResponse = aiClient.sendRequest(AiRequest.forTemplate(prompt, template).withAudit(audit.getId()));
 
             // Parser la réponse
             List<AuditIssue> issues = responseParser.parseResponse(aiResponse, audit, null);
@@ -149,7 +781,10 @@ public class AiAuditService {
     public boolean testAiConnection() {
         try {
             String testPrompt = "Test de connexion. Réponds simplement 'OK'.";
-            String response = aiClient.sendRequest(testPrompt);
+            String response = aiClient.sendRequest(AiRequest.builder()
+                    .prompt(testPrompt)
+                    .callType(AiCallType.HEALTH_CHECK)
+                    .build());
             log.info("Test de connexion IA réussi. Réponse: {}", response);
             return response != null && !response.isEmpty();
         } catch (Exception e) {
@@ -166,21 +801,22 @@ public class AiAuditService {
         log.info("Analyse avec prompt personnalisé pour le document {}", documentId);
 
         try {
-            // Lire le contenu du document
-            String documentContent = documentService.readDocumentContent(documentId);
-
             // Récupérer le document
             AuditDocument document = documentRepository.findById(documentId)
                     .orElseThrow(() -> new RuntimeException("Document introuvable"));
 
-            // Construire le prompt complet
-            String fullPrompt = customPrompt + "\n\nContenu du document:\n" + documentContent;
+            // Lire le contenu du document
+            ExtractedText documentContent = readNormalized(document).normalized();
+
+            // Construire le prompt complet (document long : seulement les passages proches de la demande)
+            String relevantContent = similarityService.relevantContent(documentId, documentContent, customPrompt);
+            String fullPrompt = customPrompt + "\n\nContenu du document:\n" + relevantContent;
 
             // Envoyer la requête
-            String aiResponse = aiClient.sendRequest(fullPrompt);
+            String aiResponse = aiClient.sendRequest(AiRequest.of(fullPrompt).withSchema(AiResponseSchema.ISSUES).withAudit(audit.getId()));
 
             // Parser la réponse
-            List<AuditIssue> issues = responseParser.parseResponse(aiResponse, audit, document);
+            List<AuditIssue> issues = responseParser.parseResponse(aiResponse, audit, document, documentContent);
 
             // Sauvegarder les issues
             issueService.saveIssues(issues);
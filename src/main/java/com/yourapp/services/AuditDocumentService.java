@@ -6,26 +6,34 @@ import com.yourapp.model.AuditDocument;
 import com.yourapp.model.Audit;
 import com.yourapp.DAO.AuditDocumentRepository;
 import com.yourapp.DAO.AuditRepository;
+import com.yourapp.services.extraction.ExtractedText;
+import com.yourapp.services.storage.DocumentBlobStore;
+import com.yourapp.services.storage.StoredFile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
-import org.apache.poi.ss.usermodel.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,66 +44,244 @@ public class AuditDocumentService {
     private final AuditDocumentRepository documentRepository;
     private final AuditRepository auditRepository;
     private final AuditIssueRepository auditIssueRepository;
+    private final DocumentContentExtractor contentExtractor;
+    private final DocumentBlobStore blobStore;
+    private final PlatformTransactionManager transactionManager;
 
-    private final String uploadDir = "uploads/audit-documents/";
+    // Fichiers écrits simultanément lors d'un upload multiple (borne les accès disque)
+    @Value("${app.upload.max-concurrent-writes:4}")
+    private int maxConcurrentWrites;
+
+    /**
+     * Notifié après l'écriture de chaque fichier d'un upload multiple (succès ou échec)
+     */
+    @FunctionalInterface
+    public interface UploadProgressListener {
+        UploadProgressListener NONE = (fileName, completed, total, success) -> { };
+
+        void onFileStored(String fileName, int completed, int total, boolean success);
+    }
+
+    @FunctionalInterface
+    private interface FileStager<T> {
+        StoredFile stage(T file) throws IOException;
+    }
 
     /**
      * Uploader un document pour un audit et un projet spécifique
      */
     @Transactional
     public AuditDocumentDto uploadDocument(MultipartFile file, Long auditId, Long projectId) {
-        // 1. Sauvegarde du fichier physique
-        String path = storeFile(file);
+        // 1. Sauvegarde du fichier physique (flux copié puis fermé, contenu déjà stocké réutilisé)
+        StoredFile stored;
+        try {
+            stored = blobStore.store(file.getInputStream(), file.getOriginalFilename());
+        } catch (IOException e) {
+            throw new RuntimeException("Erreur lors du stockage du fichier: " + e.getMessage());
+        }
+
+        // 2. Création de l'entité Document
+        return createDocument(stored, file.getOriginalFilename(), auditId, projectId);
+    }
+
+    /**
+     * Uploader un fichier local (client desktop) : copie directe du fichier, empreinte et type calculés au passage
+     */
+    @Transactional
+    public AuditDocumentDto uploadDocument(Path source, String originalName, Long auditId, Long projectId) {
+        StoredFile stored;
+        try {
+            stored = blobStore.store(source, originalName);
+        } catch (IOException e) {
+            throw new RuntimeException("Erreur lors du stockage du fichier: " + e.getMessage());
+        }
+        return createDocument(stored, originalName, auditId, projectId);
+    }
 
-        // 2. Récupération de l'audit parent
+    /**
+     * Enregistrer un fichier reçu par morceaux (déjà sur le disque du serveur) : déplacé sans recopie.
+     * Si expectedSha256 est fourni, le contenu reçu doit lui correspondre.
+     */
+    @Transactional
+    public AuditDocumentDto registerUploadedFile(Path received, String originalName, Long auditId, Long projectId,
+                                                 String expectedSha256) {
+        StoredFile stored;
+        try {
+            stored = blobStore.adopt(received, originalName, expectedSha256);
+        } catch (IOException e) {
+            throw new RuntimeException("Erreur lors du stockage du fichier: " + e.getMessage());
+        }
+        return createDocument(stored, originalName, auditId, projectId);
+    }
+
+    private AuditDocumentDto createDocument(StoredFile stored, String originalName, Long auditId, Long projectId) {
+        // Récupération de l'audit parent
         Audit audit = auditRepository.findById(auditId)
                 .orElseThrow(() -> new RuntimeException("Audit introuvable avec l'ID: " + auditId));
 
-        // 3. Création de l'entité Document avec liaison Projet
+        // Création de l'entité Document avec liaison Projet
         AuditDocument doc = new AuditDocument();
-        doc.setDocumentName(file.getOriginalFilename());
-        doc.setDocumentPath(path);
+        doc.setDocumentName(originalName);
+        doc.setDocumentPath(stored.path().toString());
         doc.setAudit(audit);
         doc.setStatus("UPLOADED");
         doc.setProjectId(projectId); // Liaison Supabase
+        doc.setContentHash(stored.sha256());
+        doc.setMimeType(stored.mimeType());
 
-        // 4. Enregistrement
+        // Enregistrement
         AuditDocument savedDoc = documentRepository.save(doc);
 
-        log.info("✅ Document '{}' enregistré et lié au projet ID: {}", file.getOriginalFilename(), projectId);
-        return mapToDto(savedDoc);
+        log.info("✅ Document '{}' enregistré ({} octets, {}) et lié au projet ID: {}",
+                originalName, stored.size(), stored.mimeType(), projectId);
+        AuditDocumentDto dto = mapToDto(savedDoc);
+        dto.setFileSize(stored.size());
+        return dto;
     }
 
     /**
-     * Méthode interne pour sauvegarder le fichier sur le disque
+     * Uploader plusieurs documents (Corrigé pour inclure projectId)
+     * Sans transaction englobante : voir uploadInParallel
      */
-    private String storeFile(MultipartFile file) {
+    public List<AuditDocumentDto> uploadMultipleDocuments(List<MultipartFile> files, Long auditId, Long projectId) {
+        log.info("📤 Upload de {} documents pour l'audit {} et projet {}", files.size(), auditId, projectId);
+
+        return uploadInParallel(files, MultipartFile::getOriginalFilename,
+                file -> blobStore.stage(file.getInputStream(), file.getOriginalFilename()),
+                auditId, projectId, UploadProgressListener.NONE);
+    }
+
+    /**
+     * Uploader plusieurs fichiers locaux (client desktop) en notifiant la progression fichier par fichier.
+     * Les fichiers en erreur sont ignorés (journalisés et signalés au listener).
+     * Sans transaction englobante : voir uploadInParallel
+     */
+    public List<AuditDocumentDto> uploadLocalFiles(List<Path> files, Long auditId, Long projectId,
+                                                   UploadProgressListener listener) {
+        log.info("📤 Upload de {} fichiers locaux pour l'audit {} et projet {}", files.size(), auditId, projectId);
+
+        return uploadInParallel(files, file -> file.getFileName().toString(),
+                file -> blobStore.stage(file, file.getFileName().toString()),
+                auditId, projectId, listener);
+    }
+
+    /**
+     * Écriture des fichiers en parallèle (au plus maxConcurrentWrites à la fois), hors de toute transaction :
+     * aucune connexion du pool n'est retenue pendant les écritures disque. Puis, dans une transaction courte,
+     * chargement de l'audit, publication dans le stockage et insertion de tous les documents en lots JDBC.
+     * En cas d'échec, les fichiers non publiés sont supprimés et ceux déjà publiés libérés par le rollback.
+     */
+    private <T> List<AuditDocumentDto> uploadInParallel(List<T> files, Function<T, String> nameOf, FileStager<T> stager,
+                                                        Long auditId, Long projectId, UploadProgressListener listener) {
+        if (files.isEmpty()) {
+            return List.of();
+        }
+
+        List<StoredFile> staged = stageInParallel(files, nameOf, stager, listener);
         try {
-            Path root = Paths.get(uploadDir);
-            if (!Files.exists(root)) {
-                Files.createDirectories(root);
-            }
+            return new TransactionTemplate(transactionManager).execute(status ->
+                    saveStaged(files, nameOf, staged, auditId, projectId));
+        } catch (RuntimeException e) {
+            staged.stream().filter(Objects::nonNull).forEach(blobStore::discard);
+            throw e;
+        }
+    }
 
-            String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            Path targetPath = root.resolve(fileName);
-            Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Écrire les fichiers dans le stockage temporaire ; null à la place d'un fichier en échec
+     */
+    private <T> List<StoredFile> stageInParallel(List<T> files, Function<T, String> nameOf, FileStager<T> stager,
+                                                 UploadProgressListener listener) {
+        int total = files.size();
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrentWrites));
+        AtomicInteger completed = new AtomicInteger();
+        List<Future<StoredFile>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (T file : files) {
+                String name = nameOf.apply(file);
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    boolean success = false;
+                    try {
+                        StoredFile staged = stager.stage(file);
+                        success = true;
+                        return staged;
+                    } finally {
+                        permits.release();
+                        listener.onFileStored(name, completed.incrementAndGet(), total, success);
+                    }
+                }));
+            }
+        }
 
-            return targetPath.toString();
-        } catch (IOException e) {
-            throw new RuntimeException("Erreur lors du stockage du fichier: " + e.getMessage());
+        // Les écritures sont toutes terminées
+        List<StoredFile> staged = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            try {
+                staged.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("❌ Échec de l'upload du fichier: {} ({})", nameOf.apply(files.get(i)), cause.getMessage());
+                staged.add(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                staged.stream().filter(Objects::nonNull).forEach(blobStore::discard);
+                throw new RuntimeException("Upload interrompu", e);
+            }
         }
+        return staged;
     }
 
     /**
-     * Uploader plusieurs documents (Corrigé pour inclure projectId)
+     * Publier les fichiers écrits, dans l'ordre des fichiers, et insérer leurs documents.
+     * L'audit parent n'est chargé qu'une fois.
      */
-    @Transactional
-    public List<AuditDocumentDto> uploadMultipleDocuments(List<MultipartFile> files, Long auditId, Long projectId) {
-        log.info("📤 Upload de {} documents pour l'audit {} et projet {}", files.size(), auditId, projectId);
+    private <T> List<AuditDocumentDto> saveStaged(List<T> files, Function<T, String> nameOf, List<StoredFile> staged,
+                                                  Long auditId, Long projectId) {
+        Audit audit = auditRepository.findById(auditId)
+                .orElseThrow(() -> new RuntimeException("Audit introuvable avec l'ID: " + auditId));
 
-        return files.stream()
-                .map(file -> uploadDocument(file, auditId, projectId))
-                .collect(Collectors.toList());
+        List<AuditDocument> documents = new ArrayList<>();
+        List<StoredFile> storedFiles = new ArrayList<>();
+        for (int i = 0; i < staged.size(); i++) {
+            if (staged.get(i) == null) {
+                continue;
+            }
+            String name = nameOf.apply(files.get(i));
+            StoredFile stored;
+            try {
+                stored = blobStore.publish(staged.get(i), name);
+            } catch (IOException e) {
+                blobStore.discard(staged.get(i));
+                log.error("❌ Échec du stockage du fichier: {} ({})", name, e.getMessage());
+                continue;
+            }
+
+            AuditDocument doc = new AuditDocument();
+            doc.setDocumentName(name);
+            doc.setDocumentPath(stored.path().toString());
+            doc.setAudit(audit);
+            doc.setStatus("UPLOADED");
+            doc.setProjectId(projectId);
+            doc.setContentHash(stored.sha256());
+            doc.setMimeType(stored.mimeType());
+            documents.add(doc);
+            storedFiles.add(stored);
+        }
+
+        // Identifiants pris dans le bloc de séquence réservé : INSERT envoyés en lots JDBC
+        documents = documentRepository.saveAll(documents);
+        log.info("✅ {}/{} documents enregistrés pour l'audit {} (insertion groupée)",
+                documents.size(), files.size(), auditId);
+
+        List<AuditDocumentDto> dtos = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i++) {
+            AuditDocumentDto dto = mapToDto(documents.get(i));
+            dto.setFileSize(storedFiles.get(i).size());
+            dtos.add(dto);
+        }
+        return dtos;
     }
 
     public AuditDocumentDto getDocumentById(Long documentId) {
@@ -135,63 +321,28 @@ public class AuditDocumentService {
         return mapToDto(documentRepository.save(document));
     }
 
+    /**
+     * Lire le contenu textuel d'un document (extraction mise en cache par empreinte du fichier)
+     */
     public String readDocumentContent(Long documentId) {
+        return readDocument(documentId).text();
+    }
+
+    /**
+     * Lire le contenu d'un document avec l'index de ses pages
+     */
+    public ExtractedText readDocument(Long documentId) {
         AuditDocument document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new RuntimeException("Document introuvable"));
 
         try {
             Path filePath = Paths.get(document.getDocumentPath());
-            String fileName = document.getDocumentName().toLowerCase();
-
-            if (fileName.endsWith(".txt")) return readTextFile(filePath);
-            if (fileName.endsWith(".docx")) return readDocxFile(filePath);
-            if (fileName.endsWith(".xlsx") || fileName.endsWith(".xls")) return readExcelFile(filePath);
-            // Pour le PDF, utilisez votre méthode existante ou Apache PDFBox
-            return "[Contenu non extrait pour ce format]";
+            return contentExtractor.extractDocument(filePath, document.getDocumentName(), document.getMimeType());
         } catch (Exception e) {
             throw new RuntimeException("Erreur lecture: " + e.getMessage());
         }
     }
 
-    private String readTextFile(Path filePath) throws IOException {
-        return Files.readString(filePath);
-    }
-
-    private String readDocxFile(Path filePath) throws IOException {
-        try (InputStream fis = Files.newInputStream(filePath);
-             XWPFDocument document = new XWPFDocument(fis);
-             XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
-            return extractor.getText();
-        }
-    }
-
-    private String readExcelFile(Path filePath) throws IOException {
-        StringBuilder content = new StringBuilder();
-        try (InputStream fis = Files.newInputStream(filePath);
-             Workbook workbook = WorkbookFactory.create(fis)) {
-            for (Sheet sheet : workbook) {
-                for (Row row : sheet) {
-                    for (Cell cell : row) {
-                        content.append(getCellValueAsString(cell)).append("\t");
-                    }
-                    content.append("\n");
-                }
-            }
-        }
-        return content.toString();
-    }
-
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) return "";
-        return switch (cell.getCellType()) {
-            case STRING -> cell.getStringCellValue();
-            case NUMERIC -> DateUtil.isCellDateFormatted(cell) ? cell.getDateCellValue().toString() : String.valueOf(cell.getNumericCellValue());
-            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
-            case FORMULA -> cell.getCellFormula();
-            default -> "";
-        };
-    }
-
     /**
      * Supprimer un document et toutes les dépendances (Issues)
      */
@@ -209,17 +360,13 @@ public class AuditDocumentService {
             auditIssueRepository.deleteByDocumentId(documentId);
             log.info("✅ Issues liées au document {} supprimées", documentId);
 
-            // 3. Supprimer le fichier physique sur le disque
-            Path filePath = Paths.get(document.getDocumentPath());
-            Files.deleteIfExists(filePath);
-
-            // 4. Supprimer l'entrée dans la table auditdocument
+            // 3. Supprimer l'entrée dans la table auditdocument
             documentRepository.delete(document);
 
+            // 4. Supprimer le fichier physique après le commit, s'il n'est plus utilisé par un autre document
+            blobStore.release(document.getDocumentPath());
+
             log.info("✅ Document et enregistrements associés supprimés avec succès");
-        } catch (IOException e) {
-            log.error("❌ Erreur lors de la suppression du fichier physique", e);
-            throw new RuntimeException("Erreur lors de la suppression du fichier : " + e.getMessage());
         } catch (Exception e) {
             log.error("❌ Erreur lors de la suppression en base de données", e);
             throw new RuntimeException("Erreur SQL : " + e.getMessage());
@@ -232,6 +379,7 @@ public class AuditDocumentService {
                 .auditId(document.getAudit() != null ? document.getAudit().getId() : null)
                 .fileName(document.getDocumentName())
                 .storagePath(document.getDocumentPath())
+                .fileType(document.getMimeType())
                 .status(document.getStatus())
                 .uploadedAt(document.getUploadedAt())
                 .analyzedAt(document.getAnalyzedAt())
@@ -7,8 +7,10 @@ import com.yourapp.model.AuditDocument;
 import com.yourapp.DAO.AuditIssueRepository;
 import com.yourapp.DAO.AuditDocumentRepository;
 import com.yourapp.DAO.AuditRepository;
+import com.yourapp.DAO.AuditIssueBulkRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -30,14 +32,33 @@ public class AuditIssueService {
     private final AuditIssueRepository issueRepository;
     private final AuditDocumentRepository documentRepository;
     private final AuditRepository auditRepository;
+    private final AuditIssueBulkRepository bulkRepository;
+
+    // Nombre de nouveaux problèmes à partir duquel l'insertion passe par COPY (0 : jamais)
+    @Value("${app.audit.issues.bulk-threshold:200}")
+    private int bulkThreshold;
 
     /**
-     * Sauvegarder une liste de problèmes
+     * Sauvegarder une liste de problèmes.
+     * Au-delà de bulkThreshold nouveaux problèmes (analyses découpées ou parallèles de gros audits),
+     * insertion en masse hors JPA ; les compteurs des documents et de l'audit sont alors recalculés
+     * dans la même transaction.
      */
     @Transactional
     public List<AuditIssue> saveIssues(List<AuditIssue> issues) {
         log.info("Sauvegarde de {} problèmes d'audit", issues.size());
-        return issueRepository.saveAll(issues);
+
+        List<AuditIssue> newIssues = issues.stream().filter(issue -> issue.getId() == null).toList();
+        if (bulkThreshold <= 0 || newIssues.size() < bulkThreshold) {
+            return issueRepository.saveAll(issues);
+        }
+
+        List<AuditIssue> existing = issues.stream().filter(issue -> issue.getId() != null).toList();
+        if (!existing.isEmpty()) {
+            issueRepository.saveAll(existing);
+        }
+        bulkRepository.insertAll(newIssues);
+        return issues;
     }
 
     /**
@@ -183,6 +204,24 @@ public class AuditIssueService {
         issueRepository.deleteById(issueId.intValue());
     }
 
+    /**
+     * Supprimer une liste de problèmes (enregistrés au fil d'une analyse qui a échoué)
+     */
+    @Transactional
+    public void deleteIssues(List<AuditIssue> issues) {
+        log.info("Suppression de {} problèmes d'audit", issues.size());
+        issueRepository.deleteAll(issues);
+    }
+
+    /**
+     * Supprimer les problèmes d'un document (avant sa ré-analyse)
+     */
+    @Transactional
+    public void deleteByDocument(Long documentId) {
+        log.info("Suppression des problèmes du document {}", documentId);
+        issueRepository.deleteByDocumentId(documentId);
+    }
+
     /**
      * Supprimer tous les problèmes d'un audit
      */
@@ -308,6 +347,7 @@ public class AuditIssueService {
                 .suggestion(issue.getSuggestion())
                 .resolved(isResolved)
                 .detectedAt(issue.getReportedAt())
+                .recurrenceOfId(issue.getRecurrenceOfId())
                 .build();
     }
 
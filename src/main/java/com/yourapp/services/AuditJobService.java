@@ -0,0 +1,317 @@
+package com.yourapp.services;
+
+import com.yourapp.DAO.AuditDocumentRepository;
+import com.yourapp.DAO.AuditJobRepository;
+import com.yourapp.DAO.AuditRepository;
+import com.yourapp.dto.AuditJobDto;
+import com.yourapp.model.Audit;
+import com.yourapp.model.AuditJob;
+import com.yourapp.model.AuditJobStatus;
+import com.yourapp.utils.DashboardRefreshEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Moteur de jobs d'analyse IA.
+ * Les analyses sont mises en file et exécutées par le pool "auditJobExecutor" :
+ * l'appelant récupère immédiatement l'identifiant du job et suit sa progression.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditJobService {
+
+    private static final List<AuditJobStatus> ACTIVE_STATUSES =
+            List.of(AuditJobStatus.PENDING, AuditJobStatus.IN_PROGRESS);
+
+    private final AuditJobRepository jobRepository;
+    private final AuditRepository auditRepository;
+    private final AuditDocumentRepository documentRepository;
+    private final AiAuditService aiAuditService;
+    private final AuditIssueService auditIssueService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskExecutor auditJobExecutor; // bean "auditJobExecutor" (AuditJobConfig)
+
+    // Suivi en mémoire des jobs lancés par cette instance (notifications UI sans polling)
+    private final Map<Long, CompletableFuture<AuditJobDto>> completions = new ConcurrentHashMap<>();
+    private final Map<Long, List<Consumer<AuditJobDto>>> progressListeners = new ConcurrentHashMap<>();
+
+    /**
+     * Mettre en file l'analyse d'un audit et retourner immédiatement le job créé
+     */
+    public AuditJobDto submit(Long auditId) {
+        return submit(auditId, false);
+    }
+
+    /**
+     * Mettre en file une analyse ; en mode incrémental, seuls les documents nouveaux
+     * ou modifiés depuis leur dernière analyse sont envoyés à l'IA
+     */
+    public AuditJobDto submit(Long auditId, boolean incremental) {
+        if (jobRepository.existsByAuditIdAndStatusIn(auditId, ACTIVE_STATUSES)) {
+            throw alreadyQueued(auditId);
+        }
+
+        AuditJob job = new AuditJob();
+        job.setAuditId(auditId);
+        job.setStatus(AuditJobStatus.PENDING);
+        job.setIncremental(incremental);
+        job.setTotalDocuments(documentRepository.findByAuditId(auditId).size());
+        try {
+            // Index unique partiel (V1) : une soumission concurrente passée entre la vérification et l'insertion
+            job = jobRepository.saveAndFlush(job);
+        } catch (DataIntegrityViolationException e) {
+            throw alreadyQueued(auditId);
+        }
+
+        enqueue(job.getId());
+
+        log.info("📥 Job {} mis en file pour l'audit {}{}", job.getId(), auditId, incremental ? " (incrémental)" : "");
+        return mapToDto(job);
+    }
+
+    /**
+     * Récupérer l'état d'un job
+     */
+    public AuditJobDto getJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .map(this::mapToDto)
+                .orElseThrow(() -> new RuntimeException("Job introuvable avec l'ID: " + jobId));
+    }
+
+    /**
+     * Récupérer le dernier job d'un audit
+     */
+    public AuditJobDto getLatestJobForAudit(Long auditId) {
+        return jobRepository.findFirstByAuditIdOrderByCreatedAtDesc(auditId)
+                .map(this::mapToDto)
+                .orElse(null);
+    }
+
+    /**
+     * Suivre un job : le listener reçoit chaque mise à jour de progression,
+     * le futur est complété à la fin du job (COMPLETED ou FAILED).
+     */
+    public CompletableFuture<AuditJobDto> watch(Long jobId, Consumer<AuditJobDto> onProgress) {
+        if (onProgress != null) {
+            progressListeners.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>()).add(onProgress);
+        }
+
+        CompletableFuture<AuditJobDto> future = completions.computeIfAbsent(jobId, id -> new CompletableFuture<>());
+
+        // Le job a pu se terminer avant l'abonnement
+        AuditJobDto current = getJob(jobId);
+        if (current.isFinished()) {
+            complete(current);
+        }
+        return future;
+    }
+
+    /**
+     * Reprise au démarrage : les jobs interrompus sont marqués en échec, les jobs en attente relancés
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverJobs() {
+        try {
+            for (AuditJob job : jobRepository.findByStatus(AuditJobStatus.IN_PROGRESS)) {
+                log.warn("⚠️ Job {} interrompu lors du dernier arrêt, marqué en échec", job.getId());
+                failJob(job.getId(), "Analyse interrompue par l'arrêt de l'application");
+            }
+
+            for (AuditJob job : jobRepository.findByStatus(AuditJobStatus.PENDING)) {
+                log.info("🔁 Reprise du job en attente {}", job.getId());
+                enqueue(job.getId());
+            }
+        } catch (Exception e) {
+            log.error("❌ Impossible de reprendre les jobs d'analyse: {}", e.getMessage());
+        }
+    }
+
+    private void enqueue(Long jobId) {
+        auditJobExecutor.execute(() -> runJob(jobId));
+    }
+
+    /**
+     * Exécution d'un job par un worker du pool
+     */
+    private void runJob(Long jobId) {
+        AuditJob job = markStarted(jobId);
+        if (job == null) {
+            return;
+        }
+
+        Long auditId = job.getAuditId();
+        try {
+            Audit audit = auditRepository.findById(auditId)
+                    .orElseThrow(() -> new RuntimeException("Audit introuvable avec l'ID: " + auditId));
+
+            aiAuditService.analyzeAudit(audit, job.isIncremental(), (documentId, success) -> {
+                if (success) {
+                    jobRepository.incrementProcessed(jobId);
+                } else {
+                    jobRepository.incrementFailed(jobId);
+                }
+                notifyProgress(jobId);
+            });
+
+            completeJob(jobId);
+
+        } catch (Exception e) {
+            log.error("❌ Échec du job {} pour l'audit {}", jobId, auditId, e);
+            failJob(jobId, e.getMessage());
+        }
+    }
+
+    private AuditJob markStarted(Long jobId) {
+        AuditJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() != AuditJobStatus.PENDING) {
+            log.warn("⚠️ Job {} introuvable ou déjà traité, ignoré", jobId);
+            return null;
+        }
+
+        job.setStatus(AuditJobStatus.IN_PROGRESS);
+        job.setStartedAt(LocalDateTime.now());
+        job.setTotalDocuments(documentRepository.findByAuditId(job.getAuditId()).size());
+        job = jobRepository.save(job);
+
+        Audit audit = auditRepository.findById(job.getAuditId()).orElse(null);
+        if (audit != null) {
+            audit.setStatus("IN_PROGRESS");
+            auditRepository.save(audit);
+
+            // ✅ PUBLIER L'ÉVÉNEMENT pour le statut IN_PROGRESS
+            eventPublisher.publishEvent(
+                    new DashboardRefreshEvent(this, "Analyse démarrée pour: " + audit.getProjectName())
+            );
+        }
+
+        notifyProgress(jobId);
+        return job;
+    }
+
+    private void completeJob(Long jobId) {
+        AuditJob job = jobRepository.findById(jobId).orElseThrow();
+        Audit audit = auditRepository.findById(job.getAuditId()).orElseThrow();
+
+        // Compter les problèmes détectés et calculer le score
+        int problemsCount = auditIssueService.countByAudit(audit);
+        int score = calculateAuditScore(problemsCount);
+
+        audit.setStatus("COMPLETED");
+        audit.setProblemsCount(problemsCount);
+        audit.setScore(score);
+        auditRepository.save(audit);
+
+        job.setStatus(AuditJobStatus.COMPLETED);
+        job.setFinishedAt(LocalDateTime.now());
+        job = jobRepository.save(job);
+
+        log.info("Analyse terminée: {} problèmes détectés, score: {}%", problemsCount, score);
+
+        // ✅ PUBLIER L'ÉVÉNEMENT pour la complétion
+        String conformeStatus = problemsCount < 5 ? "conforme" : "non conforme";
+        eventPublisher.publishEvent(
+                new DashboardRefreshEvent(this,
+                        "Audit complété (" + conformeStatus + "): " + audit.getProjectName())
+        );
+
+        complete(mapToDto(job));
+    }
+
+    private void failJob(Long jobId, String errorMessage) {
+        AuditJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        job.setStatus(AuditJobStatus.FAILED);
+        job.setErrorMessage(errorMessage);
+        job.setFinishedAt(LocalDateTime.now());
+        job = jobRepository.save(job);
+
+        auditRepository.findById(job.getAuditId()).ifPresent(audit -> {
+            audit.setStatus("FAILED");
+            auditRepository.save(audit);
+        });
+
+        complete(mapToDto(job));
+    }
+
+    private void notifyProgress(Long jobId) {
+        List<Consumer<AuditJobDto>> listeners = progressListeners.get(jobId);
+        if (listeners == null || listeners.isEmpty()) {
+            return;
+        }
+
+        AuditJobDto snapshot = getJob(jobId);
+        for (Consumer<AuditJobDto> listener : listeners) {
+            try {
+                listener.accept(snapshot);
+            } catch (Exception e) {
+                log.warn("⚠️ Erreur dans un listener de progression du job {}: {}", jobId, e.getMessage());
+            }
+        }
+    }
+
+    private void complete(AuditJobDto job) {
+        progressListeners.remove(job.getId());
+        CompletableFuture<AuditJobDto> future = completions.remove(job.getId());
+        if (future != null) {
+            future.complete(job);
+        }
+    }
+
+    /**
+     * Calculer le score d'un audit basé sur le nombre de problèmes
+     * Score de 0 à 100
+     */
+    private int calculateAuditScore(int problemsCount) {
+        if (problemsCount == 0) {
+            return 100; // Parfait
+        } else if (problemsCount <= 2) {
+            return 90; // Excellent
+        } else if (problemsCount <= 5) {
+            return 75; // Bon
+        } else if (problemsCount <= 10) {
+            return 55; // Moyen
+        } else if (problemsCount <= 15) {
+            return 35; // Insuffisant
+        } else {
+            return 20; // Très insuffisant
+        }
+    }
+
+    private static RuntimeException alreadyQueued(Long auditId) {
+        return new RuntimeException("Une analyse est déjà en file ou en cours pour l'audit " + auditId);
+    }
+
+    private AuditJobDto mapToDto(AuditJob job) {
+        return AuditJobDto.builder()
+                .id(job.getId())
+                .auditId(job.getAuditId())
+                .status(job.getStatus().name())
+                .incremental(job.isIncremental())
+                .totalDocuments(job.getTotalDocuments())
+                .processedDocuments(job.getProcessedDocuments())
+                .failedDocuments(job.getFailedDocuments())
+                .errorMessage(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
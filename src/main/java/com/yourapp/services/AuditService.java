@@ -3,6 +3,7 @@ package com.yourapp.services;
 import com.yourapp.dto.AuditCreateRequestDto;
 import com.yourapp.dto.AuditResponseDto;
 import com.yourapp.dto.AuditDocumentDto;
+import com.yourapp.dto.AuditJobDto;
 import com.yourapp.model.Audit;
 import com.yourapp.model.Project;
 import com.yourapp.model.AuditTemplate;
@@ -11,6 +12,7 @@ import com.yourapp.DAO.AuditRepository;
 import com.yourapp.DAO.ProjectRepository;
 import com.yourapp.DAO.AuditTemplateRepository;
 import com.yourapp.DAO.AuditDocumentRepository;
+import com.yourapp.services.storage.DocumentBlobStore;
 import com.yourapp.utils.DashboardRefreshEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -37,8 +39,9 @@ public class AuditService {
     private final ProjectRepository projectRepository;
     private final AuditTemplateRepository templateRepository;
     private final AuditDocumentRepository auditDocumentRepository;
-    private final AiAuditService aiAuditService;
     private final AuditIssueService auditIssueService;
+    private final AuditJobService auditJobService;
+    private final DocumentBlobStore blobStore;
     private final ApplicationEventPublisher eventPublisher; // ✅ AJOUTÉ
 
     /**
@@ -92,9 +95,10 @@ public class AuditService {
     }
 
     /**
-     * Démarrer l'analyse IA d'un audit
+     * Démarrer l'analyse IA d'un audit.
+     * L'analyse est confiée au moteur de jobs : la méthode retourne immédiatement
+     * avec l'identifiant du job, sans garder de transaction ouverte pendant l'appel à l'IA.
      */
-    @Transactional
     public AuditResponseDto startAnalysis(Long auditId) {
         log.info("Démarrage de l'analyse pour l'audit {}", auditId);
 
@@ -106,49 +110,35 @@ public class AuditService {
             throw new RuntimeException("L'audit est déjà en cours ou terminé");
         }
 
-        // Mettre à jour le statut
-        audit.setStatus("IN_PROGRESS");
-        audit = auditRepository.save(audit);
-
-        // ✅ PUBLIER L'ÉVÉNEMENT pour le statut IN_PROGRESS
-        eventPublisher.publishEvent(
-                new DashboardRefreshEvent(this, "Analyse démarrée pour: " + audit.getProjectName())
-        );
-
-        // Lancer l'analyse IA de manière asynchrone
-        try {
-            aiAuditService.analyzeAudit(audit);
-
-            audit.setStatus("COMPLETED");
+        AuditJobDto job = auditJobService.submit(auditId);
 
-            // Compter les problèmes détectés
-            int problemsCount = auditIssueService.countByAudit(audit);
-            audit.setProblemsCount(problemsCount);
+        log.info("Analyse de l'audit {} mise en file (job {})", auditId, job.getId());
+        AuditResponseDto response = mapToResponseDto(audit);
+        response.setJobId(job.getId());
+        return response;
+    }
 
-            // ✅ CALCULER LE SCORE basé sur les problèmes
-            int score = calculateAuditScore(problemsCount);
-            audit.setScore(score);
+    /**
+     * Relancer l'analyse d'un audit déjà analysé (terminé ou en échec) en mode incrémental :
+     * les documents inchangés conservent leurs problèmes, seuls les nouveaux ou modifiés
+     * sont envoyés à l'IA.
+     */
+    public AuditResponseDto startReanalysis(Long auditId) {
+        log.info("Ré-audit incrémental de l'audit {}", auditId);
 
-            log.info("Analyse terminée: {} problèmes détectés, score: {}%", problemsCount, score);
+        Audit audit = auditRepository.findById(auditId)
+                .orElseThrow(() -> new RuntimeException("Audit introuvable avec l'ID: " + auditId));
 
-        } catch (Exception e) {
-            log.error("Erreur lors de l'analyse de l'audit {}", auditId, e);
-            audit.setStatus("FAILED");
+        if ("IN_PROGRESS".equals(audit.getStatus())) {
+            throw new RuntimeException("L'audit est déjà en cours d'analyse");
         }
 
-        audit = auditRepository.save(audit);
+        AuditJobDto job = auditJobService.submit(auditId, true);
 
-        // ✅ PUBLIER L'ÉVÉNEMENT pour la complétion
-        if ("COMPLETED".equals(audit.getStatus())) {
-            String conformeStatus = audit.getProblemsCount() < 5 ? "conforme" : "non conforme";
-            eventPublisher.publishEvent(
-                    new DashboardRefreshEvent(this,
-                            "Audit complété (" + conformeStatus + "): " + audit.getProjectName())
-            );
-        }
-
-        log.info("Analyse terminée pour l'audit {}", auditId);
-        return mapToResponseDto(audit);
+        log.info("Ré-audit de l'audit {} mis en file (job {})", auditId, job.getId());
+        AuditResponseDto response = mapToResponseDto(audit);
+        response.setJobId(job.getId());
+        return response;
     }
 
     /**
@@ -253,10 +243,16 @@ public class AuditService {
 
         Audit audit = auditRepository.findById(auditId).orElseThrow();
         String projectName = audit.getProjectName();
+        List<String> documentPaths = auditDocumentRepository.findByAuditId(auditId).stream()
+                .map(AuditDocument::getDocumentPath)
+                .collect(Collectors.toList());
 
         // Supprimer les documents, issues et rapports associés (cascade)
         auditRepository.deleteById(auditId);
 
+        // Fichiers libérés après le commit (conservés s'ils servent encore à d'autres audits)
+        blobStore.release(documentPaths);
+
         // ✅ PUBLIER L'ÉVÉNEMENT
         eventPublisher.publishEvent(
                 new DashboardRefreshEvent(this, "Audit supprimé pour: " + projectName)
@@ -285,26 +281,6 @@ public class AuditService {
         );
     }
 
-    /**
-     * ✅ NOUVELLE MÉTHODE: Calculer le score d'un audit basé sur le nombre de problèmes
-     * Score de 0 à 100
-     */
-    private int calculateAuditScore(int problemsCount) {
-        if (problemsCount == 0) {
-            return 100; // Parfait
-        } else if (problemsCount <= 2) {
-            return 90; // Excellent
-        } else if (problemsCount <= 5) {
-            return 75; // Bon
-        } else if (problemsCount <= 10) {
-            return 55; // Moyen
-        } else if (problemsCount <= 15) {
-            return 35; // Insuffisant
-        } else {
-            return 20; // Très insuffisant
-        }
-    }
-
     /**
      * Mapper une entité Audit vers AuditResponseDto
      */
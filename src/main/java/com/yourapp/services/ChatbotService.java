@@ -1,5 +1,7 @@
 package com.yourapp.services;
 
+import com.yourapp.AI.AiCallType;
+import com.yourapp.AI.AiHttpTransport;
 import com.yourapp.DAO.AuditRepository;
 import com.yourapp.DAO.ProjectRepository;
 import com.yourapp.DAO.AuditIssueRepository;
@@ -10,10 +12,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Value;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.util.*;
 
 @Service
@@ -24,6 +22,7 @@ public class ChatbotService {
     private final AuditRepository auditRepository;
     private final ProjectRepository projectRepository;
     private final AuditIssueRepository issueRepository;
+    private final AiHttpTransport transport; // pool de connexions partagé avec l'analyse IA
 
     // These read directly from your application.properties
     @Value("${gemini.apiKey}")
@@ -35,9 +34,6 @@ public class ChatbotService {
     @Value("${gemini.baseUrl}")
     private String baseUrl;
 
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(java.time.Duration.ofSeconds(10))
-            .build();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // Helper method to build the URL dynamically
@@ -146,38 +142,18 @@ public class ChatbotService {
         generationConfig.put("maxOutputTokens", 1000);
         requestBody.put("generationConfig", generationConfig);
 
-        String jsonBody = objectMapper.writeValueAsString(requestBody);
-
-        // Créer la requête HTTP
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(getApiUrl()))
-                .timeout(java.time.Duration.ofSeconds(20))
-                .header("Content-Type", "application/json")
-                .header("X-goog-api-key", apiKey)
-                .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
-                .build();
-
-
-        // Envoyer la requête
-        HttpResponse<String> response = httpClient.send(
-                request,
-                HttpResponse.BodyHandlers.ofString()
-        );
+        // Envoyer la requête (délais du type CHAT, erreurs HTTP levées en AiTransportException)
+        JsonNode response = transport.postJson(getApiUrl(), Map.of("X-goog-api-key", apiKey),
+                requestBody, AiCallType.CHAT);
 
         // Parser la réponse
-        if (response.statusCode() == 200) {
-            return parseGeminiResponse(response.body());
-        } else {
-            log.error("Erreur API Gemini: {} - {}", response.statusCode(), response.body());
-            throw new RuntimeException("Erreur API Gemini: " + response.statusCode());
-        }
+        return parseGeminiResponse(response);
     }
 
 
      // Parser la réponse de Gemini
 
-    private String parseGeminiResponse(String responseBody) throws Exception {
-        JsonNode root = objectMapper.readTree(responseBody);
+    private String parseGeminiResponse(JsonNode root) {
 
         if (root.has("candidates") && root.get("candidates").isArray() &&
                 root.get("candidates").size() > 0) {
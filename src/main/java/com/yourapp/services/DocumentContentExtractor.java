@@ -1,241 +1,140 @@
 package com.yourapp.services;
 
+import com.yourapp.services.extraction.DocumentTextSource;
+import com.yourapp.services.extraction.DocumentTextSourceRegistry;
+import com.yourapp.services.extraction.ExtractedText;
+import com.yourapp.services.extraction.PageOffsetIndex;
+import com.yourapp.services.extraction.TextChunk;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
-import org.apache.poi.hwpf.HWPFDocument;
-import org.apache.poi.hwpf.extractor.WordExtractor;
-import org.apache.poi.ss.usermodel.*;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service d'extraction de contenu pour tous types de documents
- * Supporte: PDF, DOCX, DOC, XLSX, XLS, TXT
+ * Supporte: PDF, DOCX, DOC, XLSX, XLS, TXT (une implémentation de DocumentTextSource par format)
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class DocumentContentExtractor {
 
+    private final ExtractionCache extractionCache;
+    private final DocumentTextSourceRegistry sourceRegistry;
+
     /**
      * Extraire le contenu d'un document selon son type
+     * Le résultat est mis en cache par empreinte du fichier (voir ExtractionCache)
      */
     public String extractContent(Path filePath, String fileName) throws IOException {
-        log.info("📖 Extraction du contenu de: {}", fileName);
-
-        String lowerFileName = fileName.toLowerCase();
-
-        if (lowerFileName.endsWith(".txt")) {
-            return extractTextContent(filePath);
-        } else if (lowerFileName.endsWith(".pdf")) {
-            return extractPdfContent(filePath);
-        } else if (lowerFileName.endsWith(".docx")) {
-            return extractDocxContent(filePath);
-        } else if (lowerFileName.endsWith(".doc")) {
-            return extractDocContent(filePath);
-        } else if (lowerFileName.endsWith(".xlsx") || lowerFileName.endsWith(".xls")) {
-            return extractExcelContent(filePath);
-        } else {
-            log.warn("⚠️ Type de fichier non supporté: {}", fileName);
-            return "";
-        }
+        return extractDocument(filePath, fileName).text();
     }
 
     /**
-     * Extraire le contenu d'un fichier texte
+     * Extraire le contenu avec l'index des débuts de page (documents paginés comme les PDF)
+     * Le texte complet est nécessaire à l'analyse : la normalisation repère les blocs répétés
+     * dans tout le document et les règles locales s'appliquent au texte d'origine.
      */
-    private String extractTextContent(Path filePath) throws IOException {
-        log.info("📄 Extraction TXT");
-        return Files.readString(filePath);
+    public ExtractedText extractDocument(Path filePath, String fileName) throws IOException {
+        return extractDocument(filePath, fileName, null);
     }
 
     /**
-     * Extraire le contenu d'un fichier PDF avec Apache PDFBox
+     * Extraire le contenu d'un document stocké : l'extracteur est choisi d'après le type MIME
+     * enregistré au stockage (null pour les documents antérieurs : sélection par l'extension)
      */
-    private String extractPdfContent(Path filePath) throws IOException {
-        log.info("📄 Extraction PDF avec PDFBox");
-
-        try (PDDocument document = PDDocument.load(filePath.toFile())) {
-
-            PDFTextStripper stripper = new PDFTextStripper();
-
-            // Configuration pour améliorer l'extraction
-            stripper.setSortByPosition(true);
-
-            String text = stripper.getText(document);
-
-            log.info("✅ PDF extrait: {} pages, {} caractères",
-                    document.getNumberOfPages(), text.length());
-
-            return text;
-        } catch (Exception e) {
-            log.error("❌ Erreur lors de l'extraction PDF", e);
-            throw new IOException("Erreur extraction PDF: " + e.getMessage(), e);
+    public ExtractedText extractDocument(Path filePath, String fileName, String mimeType) throws IOException {
+        Optional<DocumentTextSource> source = sourceRegistry.resolve(filePath, fileName, mimeType);
+        if (source.isEmpty()) {
+            log.warn("⚠️ Type de fichier non supporté: {}", fileName);
+            return ExtractedText.of("");
         }
+        return extractionCache.getOrExtract(filePath, () -> extractContentUncached(source.get(), filePath, fileName));
     }
 
     /**
-     * Extraire le contenu d'un fichier DOCX
+     * Extraire le contenu en flux : les fragments (pages, paragraphes, lignes) sont transmis
+     * au consommateur au fil du parsing, sans construire le texte complet en mémoire.
      */
-    private String extractDocxContent(Path filePath) throws IOException {
-        log.info("📄 Extraction DOCX");
-
-        try (InputStream inputStream = Files.newInputStream(filePath);
-             XWPFDocument document = new XWPFDocument(inputStream);
-             XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
+    public void streamContent(Path filePath, String fileName, Consumer<TextChunk> sink) throws IOException {
+        DocumentTextSource source = sourceRegistry.resolve(filePath, fileName)
+                .orElseThrow(() -> new IOException("Type de fichier non supporté: " + fileName));
 
-            String text = extractor.getText();
-
-            log.info("✅ DOCX extrait: {} caractères", text.length());
-            return text;
-        } catch (Exception e) {
-            log.error("❌ Erreur lors de l'extraction DOCX", e);
-            throw new IOException("Erreur extraction DOCX: " + e.getMessage(), e);
-        }
+        log.info("📖 Extraction en flux de: {}", fileName);
+        source.extract(filePath, sink);
     }
 
     /**
-     * Extraire le contenu d'un fichier DOC (ancien format)
+     * Statistiques du cache d'extraction
      */
-    private String extractDocContent(Path filePath) throws IOException {
-        log.info("📄 Extraction DOC");
-
-        try (InputStream inputStream = Files.newInputStream(filePath);
-             HWPFDocument document = new HWPFDocument(inputStream);
-             WordExtractor extractor = new WordExtractor(document)) {
-
-            String text = extractor.getText();
-
-            log.info("✅ DOC extrait: {} caractères", text.length());
-            return text;
-        } catch (Exception e) {
-            log.error("❌ Erreur lors de l'extraction DOC", e);
-            throw new IOException("Erreur extraction DOC: " + e.getMessage(), e);
-        }
+    public Map<String, Object> getCacheStatistics() {
+        return extractionCache.getStatistics();
     }
 
     /**
-     * Extraire le contenu d'un fichier Excel (XLSX ou XLS)
+     * Extraire le contenu sans passer par le cache
      */
-    private String extractExcelContent(Path filePath) throws IOException {
-        log.info("📄 Extraction Excel");
+    private ExtractedText extractContentUncached(DocumentTextSource source, Path filePath, String fileName) throws IOException {
+        log.info("📖 Extraction du contenu de: {}", fileName);
 
         StringBuilder content = new StringBuilder();
-
-        try (InputStream inputStream = Files.newInputStream(filePath);
-             Workbook workbook = WorkbookFactory.create(inputStream)) {
-
-            int totalRows = 0;
-
-            for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-                Sheet sheet = workbook.getSheetAt(i);
-                content.append("\n=== Feuille: ").append(sheet.getSheetName()).append(" ===\n\n");
-
-                for (Row row : sheet) {
-                    totalRows++;
-                    boolean hasContent = false;
-
-                    for (Cell cell : row) {
-                        String cellValue = getCellValueAsString(cell);
-                        if (!cellValue.isEmpty()) {
-                            content.append(cellValue).append("\t");
-                            hasContent = true;
-                        }
-                    }
-
-                    if (hasContent) {
-                        content.append("\n");
-                    }
-                }
-                content.append("\n");
+        List<Integer> pageStarts = new ArrayList<>();
+        source.extract(filePath, chunk -> {
+            if (chunk.kind() == TextChunk.Kind.PAGE) {
+                pageStarts.add(content.length());
             }
+            content.append(chunk.text());
+        });
 
-            log.info("✅ Excel extrait: {} feuilles, {} lignes, {} caractères",
-                    workbook.getNumberOfSheets(), totalRows, content.length());
-
-            return content.toString();
-
-        } catch (Exception e) {
-            log.error("❌ Erreur lors de l'extraction Excel", e);
-            throw new IOException("Erreur extraction Excel: " + e.getMessage(), e);
-        }
+        log.info("✅ {} extrait: {} caractères, {} pages indexées", fileName, content.length(), pageStarts.size());
+        return new ExtractedText(content.toString(),
+                PageOffsetIndex.of(pageStarts.stream().mapToInt(Integer::intValue).toArray()));
     }
 
     /**
-     * Obtenir la valeur d'une cellule Excel en tant que String
+     * Extraire un aperçu du contenu (premiers N caractères)
+     * Lu en flux : le parsing s'arrête dès que maxChars caractères sont reçus
      */
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
+    public String extractPreview(Path filePath, String fileName, int maxChars) throws IOException {
+        if (sourceRegistry.resolve(filePath, fileName).isEmpty()) {
+            log.warn("⚠️ Type de fichier non supporté: {}", fileName);
             return "";
         }
 
+        StringBuilder preview = new StringBuilder();
         try {
-            switch (cell.getCellType()) {
-                case STRING:
-                    return cell.getStringCellValue().trim();
-
-                case NUMERIC:
-                    if (DateUtil.isCellDateFormatted(cell)) {
-                        return cell.getDateCellValue().toString();
-                    }
-                    // Formater les nombres pour éviter la notation scientifique
-                    double numValue = cell.getNumericCellValue();
-                    if (numValue == (long) numValue) {
-                        return String.format("%d", (long) numValue);
-                    }
-                    return String.format("%.2f", numValue);
-
-                case BOOLEAN:
-                    return String.valueOf(cell.getBooleanCellValue());
-
-                case FORMULA:
-                    try {
-                        return String.valueOf(cell.getNumericCellValue());
-                    } catch (Exception e) {
-                        return cell.getCellFormula();
-                    }
-
-                case BLANK:
-                    return "";
-
-                default:
-                    return "";
-            }
-        } catch (Exception e) {
-            log.warn("⚠️ Erreur lors de la lecture d'une cellule: {}", e.getMessage());
-            return "";
+            streamContent(filePath, fileName, chunk -> {
+                preview.append(chunk.text());
+                if (preview.length() > maxChars) {
+                    throw new PreviewComplete();
+                }
+            });
+        } catch (PreviewComplete e) {
+            return preview.substring(0, maxChars) + "...";
         }
+        return preview.toString();
     }
 
     /**
-     * Extraire un aperçu du contenu (premiers N caractères)
+     * Aperçu complet : interrompt l'extraction en flux
      */
-    public String extractPreview(Path filePath, String fileName, int maxChars) throws IOException {
-        String fullContent = extractContent(filePath, fileName);
-
-        if (fullContent.length() <= maxChars) {
-            return fullContent;
+    private static class PreviewComplete extends RuntimeException {
+        PreviewComplete() {
+            super(null, null, false, false);
         }
-
-        return fullContent.substring(0, maxChars) + "...";
     }
 
     /**
      * Vérifier si un type de fichier est supporté
      */
     public boolean isSupported(String fileName) {
-        String lowerFileName = fileName.toLowerCase();
-        return lowerFileName.endsWith(".txt") ||
-                lowerFileName.endsWith(".pdf") ||
-                lowerFileName.endsWith(".docx") ||
-                lowerFileName.endsWith(".doc") ||
-                lowerFileName.endsWith(".xlsx") ||
-                lowerFileName.endsWith(".xls");
+        return sourceRegistry.supports(fileName);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,231 @@
+package com.yourapp.services;
+
+import com.yourapp.services.extraction.ExtractedText;
+import com.yourapp.services.extraction.PageOffsetIndex;
+import com.yourapp.services.storage.DocumentBlobStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache du texte extrait des documents (et de l'index des pages), indexé par l'empreinte SHA-256 du fichier.
+ * Deux niveaux : LRU en mémoire borné en nombre de caractères, puis fichiers compressés
+ * sur disque à côté des uploads. Un document déjà extrait ne coûte plus qu'un hash et une lecture.
+ */
+@Component
+@Slf4j
+public class ExtractionCache {
+
+    /**
+     * À incrémenter quand la logique d'extraction change, pour invalider les entrées existantes
+     */
+    private static final int FORMAT_VERSION = 3;
+
+    @FunctionalInterface
+    public interface Loader {
+        ExtractedText load() throws IOException;
+    }
+
+    @Value("${app.extraction.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.extraction.cache.max-memory-chars:20000000}")
+    private long maxMemoryChars;
+
+    @Value("${app.extraction.cache.dir:uploads/audit-documents/.extracted}")
+    private String cacheDir;
+
+    // LRU (ordre d'accès) protégé par le moniteur de l'instance
+    private final LinkedHashMap<String, ExtractedText> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryChars = 0;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Retourner le texte extrait du fichier, depuis le cache ou via le loader
+     */
+    public ExtractedText getOrExtract(Path filePath, Loader loader) throws IOException {
+        if (!enabled) {
+            return loader.load();
+        }
+
+        String key = contentHash(filePath) + ".v" + FORMAT_VERSION;
+
+        ExtractedText cached = getFromMemory(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            log.debug("🗃️ Extraction en cache mémoire: {}", filePath.getFileName());
+            return cached;
+        }
+
+        cached = readFromDisk(key);
+        if (cached != null) {
+            diskHits.incrementAndGet();
+            putInMemory(key, cached);
+            log.info("🗃️ Extraction en cache disque: {}", filePath.getFileName());
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        ExtractedText extracted = loader.load();
+        putInMemory(key, extracted);
+        writeToDisk(key, extracted);
+        return extracted;
+    }
+
+    /**
+     * Empreinte du contenu : lue dans le nom pour un fichier du stockage adressé par contenu,
+     * calculée sinon (anciens uploads)
+     */
+    public static String contentHash(Path filePath) throws IOException {
+        Optional<String> stored = DocumentBlobStore.hashOf(filePath);
+        return stored.isPresent() ? stored.get() : sha256(filePath);
+    }
+
+    /**
+     * Calculer l'empreinte SHA-256 d'un fichier (lecture en flux)
+     */
+    public static String sha256(Path filePath) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(filePath), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) != -1) {
+                // la lecture alimente le digest
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Statistiques du cache (hits / misses / occupation)
+     */
+    public Map<String, Object> getStatistics() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + misses.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRate", total > 0 ? hits * 100.0 / total : 0.0);
+        synchronized (this) {
+            stats.put("memoryEntries", memory.size());
+            stats.put("memoryChars", memoryChars);
+        }
+        return stats;
+    }
+
+    /**
+     * Vider le niveau mémoire (le niveau disque est conservé)
+     */
+    public synchronized void clearMemory() {
+        memory.clear();
+        memoryChars = 0;
+    }
+
+    // =============================
+    // NIVEAU MÉMOIRE
+    // =============================
+    private synchronized ExtractedText getFromMemory(String key) {
+        return memory.get(key);
+    }
+
+    private synchronized void putInMemory(String key, ExtractedText extracted) {
+        if (extracted.text().length() > maxMemoryChars) {
+            return; // trop volumineux pour le niveau mémoire, reste sur disque
+        }
+
+        ExtractedText previous = memory.put(key, extracted);
+        if (previous != null) {
+            memoryChars -= previous.text().length();
+        }
+        memoryChars += extracted.text().length();
+
+        // Éviction LRU jusqu'à repasser sous la limite
+        Iterator<Map.Entry<String, ExtractedText>> it = memory.entrySet().iterator();
+        while (memoryChars > maxMemoryChars && it.hasNext()) {
+            Map.Entry<String, ExtractedText> eldest = it.next();
+            memoryChars -= eldest.getValue().text().length();
+            it.remove();
+        }
+    }
+
+    // =============================
+    // NIVEAU DISQUE
+    // =============================
+    private Path diskPath(String key) {
+        return Paths.get(cacheDir).resolve(key + ".txt.gz");
+    }
+
+    // Format : première ligne = index des pages encodé, puis le texte
+    private ExtractedText readFromDisk(String key) {
+        Path path = diskPath(key);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+            PageOffsetIndex pages = PageOffsetIndex.decode(reader.readLine());
+            StringBuilder text = new StringBuilder();
+            char[] buffer = new char[16 * 1024];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+            return new ExtractedText(text.toString(), pages);
+        } catch (IOException | NumberFormatException e) {
+            log.warn("⚠️ Entrée de cache illisible {}, ignorée: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, ExtractedText extracted) {
+        try {
+            Path target = diskPath(key);
+            Files.createDirectories(target.getParent());
+
+            // Écriture dans un fichier temporaire puis déplacement atomique
+            Path tmp = Files.createTempFile(target.getParent(), key, ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                out.write((extracted.pages().encode() + "\n").getBytes(StandardCharsets.UTF_8));
+                out.write(extracted.text().getBytes(StandardCharsets.UTF_8));
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("⚠️ Impossible d'écrire l'extraction en cache: {}", e.getMessage());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.yourapp.DAO.AuditDocumentRepository;
 import com.yourapp.DAO.AuditTemplateRepository;
 import com.yourapp.DAO.ProjectRepository;
 import com.yourapp.dto.ProjectDto;
+import com.yourapp.services.storage.DocumentBlobStore;
 import com.yourapp.utils.DashboardRefreshEvent;
 import com.yourapp.model.AuditDocument;
 import com.yourapp.model.AuditTemplate;
@@ -26,6 +27,7 @@ public class ProjectService {
     private final ProjectRepository projectRepository;
     private final AuditDocumentRepository auditDocumentRepository;
     private final AuditTemplateRepository auditTemplateRepository;
+    private final DocumentBlobStore blobStore;
     private final ApplicationEventPublisher eventPublisher; // ✅ AJOUTÉ
 
     // =============== MÉTHODES POUR LES TEMPLATES ===============
@@ -109,8 +111,14 @@ public class ProjectService {
                 .orElseThrow(() -> new RuntimeException("Projet non trouvé avec ID: " + id));
 
         String projectName = project.getName();
+        List<String> documentPaths = auditDocumentRepository.findByProjectId(id).stream()
+                .map(AuditDocument::getDocumentPath)
+                .collect(Collectors.toList());
         projectRepository.deleteById(id);
 
+        // Fichiers libérés après le commit (conservés s'ils servent encore à d'autres projets)
+        blobStore.release(documentPaths);
+
         // ✅ PUBLIER L'ÉVÉNEMENT
         eventPublisher.publishEvent(
                 new DashboardRefreshEvent(this, "Projet supprimé: " + projectName)
@@ -198,5 +206,6 @@ public class ProjectService {
     @Transactional
     public void deleteDocument(AuditDocument doc) {
         auditDocumentRepository.delete(doc);
+        blobStore.release(doc.getDocumentPath());
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.yourapp.services;
 
+import com.yourapp.AI.AiResponseCache;
 import com.yourapp.DAO.AuditTemplateRepository;
 import com.yourapp.DAO.UserRepository;
 import com.yourapp.dto.AuditTemplateDTO;
@@ -23,6 +24,9 @@ public class SettingsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AiResponseCache aiResponseCache;
+
     // ==================== TEMPLATES ====================
 
     public List<AuditTemplateDTO> getAllTemplates() {
@@ -48,6 +52,7 @@ public class SettingsService {
     public boolean deleteTemplate(Long id) {
         if (templateRepository.existsById(id)) {
             templateRepository.deleteById(id);
+            aiResponseCache.invalidateTemplate(id);
             return true;
         }
         return false;
@@ -60,7 +65,10 @@ public class SettingsService {
                     template.setName(request.getName());
                     template.setOrganization(request.getOrganization());
                     template.setDescription(request.getDescription());
-                    return convertToDTO(templateRepository.save(template));
+                    AuditTemplate saved = templateRepository.save(template);
+                    // Les réponses IA obtenues avec l'ancienne version du template ne sont plus valides
+                    aiResponseCache.invalidateTemplate(id);
+                    return convertToDTO(saved);
                 })
                 .orElse(null);
     }
@@ -0,0 +1,25 @@
+package com.yourapp.services.extraction;
+
+/**
+ * Petit document analysé avec d'autres dans un même prompt (mode groupé)
+ *
+ * @param documentId   identifiant de l'AuditDocument, repris par l'IA dans chaque problème
+ * @param documentName nom affiché dans le prompt
+ * @param source       texte normalisé envoyé à l'IA et texte extrait d'origine (règles locales)
+ */
+public record BatchedDocument(Long documentId, String documentName, NormalizedDocument source) {
+
+    /**
+     * Texte normalisé envoyé à l'IA, avec son index de pages
+     */
+    public ExtractedText content() {
+        return source.normalized();
+    }
+
+    /**
+     * Texte extrait d'origine
+     */
+    public ExtractedText original() {
+        return source.original();
+    }
+}
@@ -0,0 +1,51 @@
+package com.yourapp.services.extraction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.hwpf.extractor.WordExtractor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * DOC (ancien format Word) avec Apache POI HWPF : un fragment par paragraphe
+ */
+@Component
+@Slf4j
+public class DocTextSource implements DocumentTextSource {
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of(".doc");
+    }
+
+    @Override
+    public Set<String> mimeTypes() {
+        return Set.of("application/msword");
+    }
+
+    @Override
+    public void extract(Path filePath, Consumer<TextChunk> sink) throws IOException {
+        log.info("📄 Extraction DOC");
+
+        try (InputStream inputStream = Files.newInputStream(filePath);
+             HWPFDocument document = new HWPFDocument(inputStream);
+             WordExtractor extractor = new WordExtractor(document)) {
+
+            String[] paragraphs = extractor.getParagraphText();
+            for (int i = 0; i < paragraphs.length; i++) {
+                sink.accept(new TextChunk(TextChunk.Kind.PARAGRAPH, null, i, paragraphs[i]));
+            }
+
+            log.info("✅ DOC extrait: {} paragraphes", paragraphs.length);
+        } catch (IOException e) {
+            log.error("❌ Erreur lors de l'extraction DOC", e);
+            throw new IOException("Erreur extraction DOC: " + e.getMessage(), e);
+        }
+    }
+}
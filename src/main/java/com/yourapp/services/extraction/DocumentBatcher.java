@@ -0,0 +1,83 @@
+package com.yourapp.services.extraction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Regroupement des petits documents d'un audit en lots analysés par un seul prompt.
+ * Les lots sont remplis dans l'ordre des documents, dans la limite d'un budget de tokens
+ * et d'un nombre maximal de documents (la réponse de l'IA reste bornée par ai.max-tokens).
+ */
+@Component
+@Slf4j
+public class DocumentBatcher {
+
+    // Estimation grossière : ~4 caractères par token
+    private static final int CHARS_PER_TOKEN = 4;
+
+    @Value("${app.audit.batching.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.audit.batching.max-file-bytes:262144}")
+    private long maxFileBytes;
+
+    @Value("${app.audit.batching.max-document-chars:4000}")
+    private int maxDocumentChars;
+
+    @Value("${app.audit.batching.max-batch-tokens:4000}")
+    private int maxBatchTokens;
+
+    @Value("${app.audit.batching.max-documents-per-batch:5}")
+    private int maxDocumentsPerBatch;
+
+    public boolean isEnabled() {
+        return enabled && maxDocumentsPerBatch > 1;
+    }
+
+    /**
+     * Pré-filtre sur la taille du fichier, pour ne pas extraire les gros documents avant leur analyse
+     */
+    public boolean isCandidateFile(long fileBytes) {
+        return isEnabled() && fileBytes <= maxFileBytes;
+    }
+
+    /**
+     * Le texte extrait est-il assez court pour partager un prompt ?
+     */
+    public boolean isSmall(ExtractedText content) {
+        return content != null && content.text().length() <= maxDocumentChars;
+    }
+
+    /**
+     * Répartir les documents en lots ; un lot d'un seul document est analysé normalement par l'appelant
+     */
+    public List<List<BatchedDocument>> group(List<BatchedDocument> documents) {
+        int budgetChars = maxBatchTokens * CHARS_PER_TOKEN;
+        List<List<BatchedDocument>> batches = new ArrayList<>();
+        List<BatchedDocument> current = new ArrayList<>();
+        int currentChars = 0;
+
+        for (BatchedDocument document : documents) {
+            int length = document.content().text().length();
+            if (!current.isEmpty()
+                    && (currentChars + length > budgetChars || current.size() >= maxDocumentsPerBatch)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentChars = 0;
+            }
+            current.add(document);
+            currentChars += length;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+
+        log.info("📦 {} petits documents regroupés en {} lots (max {} documents, ~{} tokens)",
+                documents.size(), batches.size(), maxDocumentsPerBatch, maxBatchTokens);
+        return batches;
+    }
+}
@@ -0,0 +1,16 @@
+package com.yourapp.services.extraction;
+
+/**
+ * Portion d'un document analysée séparément par l'IA (mode map-reduce)
+ *
+ * @param index          position du morceau (0..n-1)
+ * @param total          nombre total de morceaux du document
+ * @param text           texte du morceau (recouvrement inclus)
+ * @param startOffset    position de début dans le texte complet du document
+ * @param firstPage      première page couverte, null si le document n'est pas paginé
+ * @param lastPage       dernière page couverte, null si le document n'est pas paginé
+ * @param firstParagraph numéro (1..n) du premier paragraphe du morceau dans le document
+ */
+public record DocumentChunk(int index, int total, String text, int startOffset,
+                            Integer firstPage, Integer lastPage, int firstParagraph) {
+}
@@ -0,0 +1,153 @@
+package com.yourapp.services.extraction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Découpage du texte extrait en morceaux compatibles avec la fenêtre de contexte du modèle.
+ * Les coupures se font de préférence en début de page, puis avant un titre, puis entre deux
+ * paragraphes ; un recouvrement configurable conserve le contexte d'un morceau à l'autre.
+ */
+@Component
+@Slf4j
+public class DocumentChunker {
+
+    // Titres : "1.", "2.3 Objet", "ARTICLE 4", "# Titre", ou ligne courte entièrement en majuscules
+    private static final Pattern HEADING = Pattern.compile(
+            "(?m)^[ \\t]*(?:#{1,6}\\s+\\S|\\d+(?:\\.\\d+)*[.)]?\\s+\\p{Lu}|(?:ARTICLE|CHAPITRE|SECTION|ANNEXE)\\b|\\p{Lu}[\\p{Lu}\\d '’\\-]{3,60}$)");
+
+    private static final Pattern PARAGRAPH_BREAK = ExtractedText.PARAGRAPH_BREAK;
+
+    @Value("${app.audit.chunking.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.audit.chunking.max-chunk-chars:12000}")
+    private int maxChunkChars;
+
+    @Value("${app.audit.chunking.overlap-chars:400}")
+    private int overlapChars;
+
+    /**
+     * Le document dépasse-t-il la taille d'un seul prompt ?
+     */
+    public boolean needsChunking(String text) {
+        return enabled && text != null && text.length() > maxChunkChars;
+    }
+
+    /**
+     * Découper le document en morceaux ordonnés
+     */
+    public List<DocumentChunk> split(ExtractedText document) {
+        String text = document.text();
+        PageOffsetIndex pages = document.pages();
+
+        if (text.length() <= maxChunkChars) {
+            return List.of(new DocumentChunk(0, 1, text, 0, pages.pageAt(0),
+                    pages.pageAt(Math.max(0, text.length() - 1)), 1));
+        }
+
+        int overlap = Math.max(0, Math.min(overlapChars, maxChunkChars / 4));
+        List<int[]> ranges = new ArrayList<>();
+        int start = 0;
+
+        while (start < text.length()) {
+            int end = text.length();
+            if (end - start > maxChunkChars) {
+                end = findBoundary(text, pages, start, start + maxChunkChars);
+            }
+            ranges.add(new int[]{start, end});
+            if (end >= text.length()) {
+                break;
+            }
+            start = nextStart(text, end, overlap);
+        }
+
+        List<DocumentChunk> chunks = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            int from = ranges.get(i)[0];
+            int to = ranges.get(i)[1];
+            chunks.add(new DocumentChunk(i, ranges.size(), text.substring(from, to), from,
+                    pages.pageAt(from), pages.pageAt(Math.max(from, to - 1)), document.paragraphAt(from)));
+        }
+
+        log.info("✂️ Document découpé en {} morceaux (max {} caractères, recouvrement {})",
+                chunks.size(), maxChunkChars, overlap);
+        return chunks;
+    }
+
+    /**
+     * Meilleure position de coupure dans ]start + max/2, limit] : page, titre, paragraphe, ligne, espace
+     */
+    private int findBoundary(String text, PageOffsetIndex pages, int start, int limit) {
+        int floor = start + maxChunkChars / 2;
+
+        // 1. Début de page
+        for (int page = pages.pageCount(); page >= 1; page--) {
+            int pageStart = pages.startOf(page);
+            if (pageStart <= floor) {
+                break;
+            }
+            if (pageStart <= limit) {
+                return pageStart;
+            }
+        }
+
+        // 2. Titre puis 3. paragraphe : dernière occurrence dans la fenêtre
+        int heading = lastMatchStart(HEADING, text, floor, limit);
+        if (heading > floor) {
+            return heading;
+        }
+        int paragraph = lastMatchEnd(PARAGRAPH_BREAK, text, floor, limit);
+        if (paragraph > floor) {
+            return paragraph;
+        }
+
+        // 4. Fin de ligne, 5. espace, sinon coupure franche
+        int newline = text.lastIndexOf('\n', limit - 1);
+        if (newline > floor) {
+            return newline + 1;
+        }
+        int space = text.lastIndexOf(' ', limit - 1);
+        return space > floor ? space + 1 : limit;
+    }
+
+    private int lastMatchStart(Pattern pattern, String text, int from, int to) {
+        Matcher matcher = pattern.matcher(text).region(from, to);
+        int last = -1;
+        while (matcher.find()) {
+            last = matcher.start();
+        }
+        return last;
+    }
+
+    private int lastMatchEnd(Pattern pattern, String text, int from, int to) {
+        Matcher matcher = pattern.matcher(text).region(from, to);
+        int last = -1;
+        while (matcher.find()) {
+            last = matcher.end();
+        }
+        return last;
+    }
+
+    /**
+     * Début du morceau suivant : recul du recouvrement, aligné sur un début de ligne ou de mot
+     */
+    private int nextStart(String text, int end, int overlap) {
+        if (overlap == 0) {
+            return end;
+        }
+        int start = end - overlap;
+        int newline = text.indexOf('\n', start);
+        if (newline >= 0 && newline < end) {
+            return newline + 1;
+        }
+        int space = text.indexOf(' ', start);
+        return space >= 0 && space < end ? space + 1 : end;
+    }
+}
@@ -0,0 +1,30 @@
+package com.yourapp.services.extraction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Source de texte pour un format de document (SPI).
+ * Chaque implémentation émet le texte progressivement, page par page ou paragraphe
+ * par paragraphe, au lieu de construire une seule grande chaîne.
+ * Les implémentations sont des beans Spring découverts par DocumentTextSourceRegistry.
+ */
+public interface DocumentTextSource {
+
+    /**
+     * Extensions gérées, en minuscules et avec le point (ex: ".pdf")
+     */
+    Set<String> extensions();
+
+    /**
+     * Types MIME gérés (utilisés quand l'extension est absente ou inconnue)
+     */
+    Set<String> mimeTypes();
+
+    /**
+     * Extraire le texte du fichier en émettant les fragments dans l'ordre du document
+     */
+    void extract(Path filePath, Consumer<TextChunk> sink) throws IOException;
+}
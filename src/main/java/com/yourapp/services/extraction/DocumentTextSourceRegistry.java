@@ -0,0 +1,75 @@
+package com.yourapp.services.extraction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Registre des sources de texte. Un document stocké est confié à la source de son type MIME
+ * enregistré (détecté au stockage, voir MimeTypeSniffer) : un DOCX nommé .pdf est lu comme un DOCX.
+ * Sans type enregistré, ou s'il n'a pas de source, la sélection se fait par extension,
+ * puis par détection du type quand l'extension est absente ou inconnue.
+ */
+@Component
+@Slf4j
+public class DocumentTextSourceRegistry {
+
+    private final Map<String, DocumentTextSource> byExtension = new HashMap<>();
+    private final Map<String, DocumentTextSource> byMimeType = new HashMap<>();
+
+    public DocumentTextSourceRegistry(List<DocumentTextSource> sources) {
+        for (DocumentTextSource source : sources) {
+            source.extensions().forEach(ext -> byExtension.put(ext, source));
+            source.mimeTypes().forEach(mime -> byMimeType.put(mime, source));
+        }
+        log.info("📚 {} sources de texte enregistrées pour {}", sources.size(), byExtension.keySet());
+    }
+
+    /**
+     * Le nom de fichier a-t-il une extension prise en charge ?
+     */
+    public boolean supports(String fileName) {
+        return byExtension.containsKey(extensionOf(fileName));
+    }
+
+    /**
+     * Trouver la source adaptée à un fichier sans type enregistré
+     */
+    public Optional<DocumentTextSource> resolve(Path filePath, String fileName) {
+        return resolve(filePath, fileName, null);
+    }
+
+    /**
+     * Trouver la source adaptée à un fichier ; storedMimeType (facultatif) est prioritaire sur l'extension
+     */
+    public Optional<DocumentTextSource> resolve(Path filePath, String fileName, String storedMimeType) {
+        if (storedMimeType != null) {
+            DocumentTextSource stored = byMimeType.get(storedMimeType);
+            if (stored != null) {
+                return Optional.of(stored);
+            }
+        }
+
+        DocumentTextSource source = byExtension.get(extensionOf(fileName));
+        if (source != null) {
+            return Optional.of(source);
+        }
+
+        String mimeType = MimeTypeSniffer.sniff(filePath, fileName);
+        log.debug("🔎 Type détecté pour {}: {}", fileName, mimeType);
+        return Optional.ofNullable(mimeType).map(byMimeType::get);
+    }
+
+    private static String extensionOf(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 ? fileName.substring(dot).toLowerCase() : "";
+    }
+}
@@ -0,0 +1,72 @@
+package com.yourapp.services.extraction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * DOCX avec Apache POI : un fragment par paragraphe ou par tableau, dans l'ordre du corps du document
+ */
+@Component
+@Slf4j
+public class DocxTextSource implements DocumentTextSource {
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of(".docx");
+    }
+
+    @Override
+    public Set<String> mimeTypes() {
+        return Set.of("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+    }
+
+    @Override
+    public void extract(Path filePath, Consumer<TextChunk> sink) throws IOException {
+        log.info("📄 Extraction DOCX");
+
+        try (InputStream inputStream = Files.newInputStream(filePath);
+             XWPFDocument document = new XWPFDocument(inputStream)) {
+
+            int sequence = 0;
+            for (IBodyElement element : document.getBodyElements()) {
+                String text = switch (element) {
+                    case XWPFParagraph paragraph -> paragraph.getText() + "\n";
+                    case XWPFTable table -> tableText(table);
+                    default -> "";
+                };
+                if (!text.isEmpty()) {
+                    sink.accept(new TextChunk(TextChunk.Kind.PARAGRAPH, null, sequence++, text));
+                }
+            }
+
+            log.info("✅ DOCX extrait: {} fragments", sequence);
+        } catch (IOException e) {
+            log.error("❌ Erreur lors de l'extraction DOCX", e);
+            throw new IOException("Erreur extraction DOCX: " + e.getMessage(), e);
+        }
+    }
+
+    private String tableText(XWPFTable table) {
+        StringBuilder text = new StringBuilder();
+        for (XWPFTableRow row : table.getRows()) {
+            for (XWPFTableCell cell : row.getTableCells()) {
+                text.append(cell.getText()).append('\t');
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.yourapp.services.extraction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Excel (XLSX / XLS) avec Apache POI : un fragment d'en-tête par feuille puis un fragment par ligne.
+ * Au-delà d'une taille de fichier, les XLSX sont lus en flux (XlsxStreamingReader) plutôt que chargés en DOM.
+ */
+@Component
+@Slf4j
+public class ExcelTextSource implements DocumentTextSource {
+
+    @Value("${app.extraction.xlsx.streaming-threshold-bytes:5242880}")
+    private long streamingThresholdBytes;
+
+    @Value("${app.extraction.xlsx.max-rows-per-sheet:100000}")
+    private int maxRowsPerSheet;
+
+    @Value("${app.extraction.xlsx.max-cells-per-sheet:1000000}")
+    private int maxCellsPerSheet;
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of(".xlsx", ".xls");
+    }
+
+    @Override
+    public Set<String> mimeTypes() {
+        return Set.of("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+                "application/vnd.ms-excel");
+    }
+
+    @Override
+    public void extract(Path filePath, Consumer<TextChunk> sink) throws IOException {
+        if (useStreaming(filePath)) {
+            log.info("📄 Extraction Excel en flux ({} octets)", Files.size(filePath));
+            new XlsxStreamingReader(maxRowsPerSheet, maxCellsPerSheet).read(filePath, sink);
+            return;
+        }
+
+        log.info("📄 Extraction Excel");
+
+        try (InputStream inputStream = Files.newInputStream(filePath);
+             Workbook workbook = WorkbookFactory.create(inputStream)) {
+
+            DataFormatter formatter = newCellFormatter();
+            int sequence = 0;
+            int totalRows = 0;
+
+            for (Sheet sheet : workbook) {
+                sink.accept(new TextChunk(TextChunk.Kind.SHEET, null, sequence++,
+                        "\n=== Feuille: " + sheet.getSheetName() + " ===\n\n"));
+
+                int sheetRows = 0;
+                int sheetCells = 0;
+                for (Row row : sheet) {
+                    if (sheetRows++ >= maxRowsPerSheet || sheetCells >= maxCellsPerSheet) {
+                        log.warn("⚠️ Feuille '{}' tronquée ({} lignes / {} cellules maximum)",
+                                sheet.getSheetName(), maxRowsPerSheet, maxCellsPerSheet);
+                        break;
+                    }
+                    totalRows++;
+                    StringBuilder line = new StringBuilder();
+                    for (Cell cell : row) {
+                        String cellValue = getCellValueAsString(formatter, cell);
+                        if (!cellValue.isEmpty() && sheetCells++ < maxCellsPerSheet) {
+                            line.append(cellValue).append('\t');
+                        }
+                    }
+                    if (!line.isEmpty()) {
+                        sink.accept(new TextChunk(TextChunk.Kind.ROW, null, sequence++, line.append('\n').toString()));
+                    }
+                }
+            }
+
+            log.info("✅ Excel extrait: {} feuilles, {} lignes", workbook.getNumberOfSheets(), totalRows);
+
+        } catch (IOException e) {
+            log.error("❌ Erreur lors de l'extraction Excel", e);
+            throw new IOException("Erreur extraction Excel: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lecture en flux pour les XLSX (conteneur OOXML) dépassant le seuil configuré
+     */
+    private boolean useStreaming(Path filePath) throws IOException {
+        if (Files.size(filePath) < streamingThresholdBytes) {
+            return false;
+        }
+        try (InputStream in = FileMagic.prepareToCheckMagic(Files.newInputStream(filePath))) {
+            return FileMagic.valueOf(in) == FileMagic.OOXML;
+        }
+    }
+
+    /**
+     * Formatage des cellules commun aux lectures DOM et en flux : un même classeur donne le même texte
+     * quel que soit le mode (dates et nombres selon le format de la cellule, dernier résultat des formules)
+     */
+    static DataFormatter newCellFormatter() {
+        DataFormatter formatter = new DataFormatter();
+        formatter.setUseCachedValuesForFormulaCells(true);
+        return formatter;
+    }
+
+    /**
+     * Obtenir la valeur d'une cellule Excel en tant que String
+     */
+    static String getCellValueAsString(DataFormatter formatter, Cell cell) {
+        if (cell == null) {
+            return "";
+        }
+
+        try {
+            return formatter.formatCellValue(cell).trim();
+        } catch (Exception e) {
+            log.warn("⚠️ Erreur lors de la lecture d'une cellule: {}", e.getMessage());
+            return "";
+        }
+    }
+}
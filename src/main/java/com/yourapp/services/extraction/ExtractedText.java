@@ -0,0 +1,49 @@
+package com.yourapp.services.extraction;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Texte extrait d'un document accompagné de l'index des débuts de page (vide si non paginé)
+ */
+public record ExtractedText(String text, PageOffsetIndex pages) {
+
+    // Séparation de paragraphes : ligne vide
+    public static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n[ \\t]*\\n");
+
+    public static ExtractedText of(String text) {
+        return new ExtractedText(text, PageOffsetIndex.empty());
+    }
+
+    /**
+     * Page d'un extrait cité, à défaut le numéro proposé ramené dans les bornes du document
+     */
+    public Integer resolvePage(String excerpt, Integer proposedPage) {
+        Integer located = pages.locate(text, excerpt);
+        return located != null ? located : pages.clamp(proposedPage);
+    }
+
+    /**
+     * Numéro de paragraphe (1..n) contenant la position donnée
+     */
+    public int paragraphAt(int offset) {
+        Matcher matcher = PARAGRAPH_BREAK.matcher(text).region(0, Math.max(0, Math.min(offset, text.length())));
+        int count = 1;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Position du début du paragraphe donné (1..n), celle du dernier paragraphe au-delà
+     */
+    public int paragraphStart(int paragraph) {
+        Matcher matcher = PARAGRAPH_BREAK.matcher(text);
+        int start = 0;
+        for (int count = 1; count < paragraph && matcher.find(); count++) {
+            start = matcher.end();
+        }
+        return start;
+    }
+}
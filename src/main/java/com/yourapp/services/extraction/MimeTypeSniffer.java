@@ -0,0 +1,148 @@
+package com.yourapp.services.extraction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.ZipFile;
+
+/**
+ * Détection du type MIME d'un document d'après la signature de son contenu.
+ * Le type détecté au stockage est enregistré sur le document et sert au registre des sources
+ * de texte pour choisir l'extracteur ; le registre l'utilise aussi quand l'extension est inconnue.
+ * Les formats conteneurs sont départagés par leurs entrées (ZIP : docx / xlsx, OLE2 : doc / xls),
+ * à défaut par l'extension.
+ */
+@Slf4j
+public final class MimeTypeSniffer {
+
+    // Octets examinés pour détecter le type
+    public static final int SNIFF_BYTES = 8 * 1024;
+
+    private static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    private static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final String DOC = "application/msword";
+    private static final String XLS = "application/vnd.ms-excel";
+
+    private MimeTypeSniffer() {
+    }
+
+    /**
+     * Détecter le type d'un fichier sur le disque ; null s'il est illisible
+     */
+    public static String sniff(Path file, String fileName) {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(file)) {
+            head = in.readNBytes(SNIFF_BYTES);
+        } catch (IOException e) {
+            log.warn("⚠️ Lecture impossible pour la détection du type: {}", e.getMessage());
+            return null;
+        }
+        return sniff(head, fileName, file);
+    }
+
+    /**
+     * Détecter le type à partir des premiers octets ; file (facultatif) est le fichier complet,
+     * ouvert seulement pour inspecter les entrées d'un conteneur ZIP ou OLE2
+     */
+    public static String sniff(byte[] head, String fileName, Path file) {
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (startsWith(head, 0x25, 0x50, 0x44, 0x46)) {                     // %PDF
+            return "application/pdf";
+        }
+        if (startsWith(head, 0x50, 0x4B, 0x03, 0x04)) {                     // PK.. (ZIP / OOXML)
+            String inspected = file != null ? sniffOfficeOpenXml(file) : null;
+            if (inspected != null) {
+                return inspected;
+            }
+            return name.endsWith(".docx") ? DOCX : name.endsWith(".xlsx") ? XLSX : "application/zip";
+        }
+        if (startsWith(head, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) { // OLE2 (Office 97-2003)
+            String inspected = file != null ? sniffOle2(file) : null;
+            if (inspected != null) {
+                return inspected;
+            }
+            return name.endsWith(".doc") ? DOC : name.endsWith(".xls") ? XLS : "application/x-tika-msoffice";
+        }
+        if (startsWith(head, 0x7B, 0x5C, 0x72, 0x74, 0x66)) {               // {\rtf
+            return "application/rtf";
+        }
+        return isText(head) ? "text/plain" : "application/octet-stream";
+    }
+
+    private static String sniffOfficeOpenXml(Path file) {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            if (zip.getEntry("word/document.xml") != null) {
+                return DOCX;
+            }
+            if (zip.getEntry("xl/workbook.xml") != null) {
+                return XLSX;
+            }
+            return "application/zip";
+        } catch (IOException e) {
+            log.warn("⚠️ Archive OOXML illisible: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String sniffOle2(Path file) {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file.toFile(), true)) {
+            DirectoryNode root = fs.getRoot();
+            if (root.hasEntry("WordDocument")) {
+                return DOC;
+            }
+            if (root.hasEntry("Workbook") || root.hasEntry("Book")) {
+                return XLS;
+            }
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ Fichier OLE2 illisible: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean startsWith(byte[] data, int... signature) {
+        if (data.length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((data[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * UTF-8 valide sans octet nul (un caractère multi-octets coupé en fin d'échantillon est toléré)
+     */
+    private static boolean isText(byte[] head) {
+        for (byte b : head) {
+            if (b == 0) {
+                return false;
+            }
+        }
+        int length = head.length;
+        for (int trim = 0; trim < 4 && length > 0; trim++) {
+            try {
+                StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPORT)
+                        .onUnmappableCharacter(CodingErrorAction.REPORT)
+                        .decode(ByteBuffer.wrap(head, 0, length));
+                return true;
+            } catch (CharacterCodingException e) {
+                length--;
+            }
+        }
+        return false;
+    }
+}
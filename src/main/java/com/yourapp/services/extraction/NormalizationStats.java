@@ -0,0 +1,34 @@
+package com.yourapp.services.extraction;
+
+/**
+ * Bilan de la normalisation d'un document avant l'envoi à l'IA
+ *
+ * @param originalChars       longueur du texte extrait
+ * @param normalizedChars     longueur du texte envoyé dans le prompt
+ * @param headerFooterLines   lignes d'en-tête / pied de page répétées retirées
+ * @param pageNumberLines     numéros de page isolés retirés
+ * @param borderLines         bordures de tableau et séparateurs retirés
+ * @param duplicateBlockLines lignes des blocs répétés (mentions légales, avertissements...) retirées
+ */
+public record NormalizationStats(int originalChars, int normalizedChars, int headerFooterLines,
+                                 int pageNumberLines, int borderLines, int duplicateBlockLines) {
+
+    // Estimation grossière : ~4 caractères par token
+    private static final int CHARS_PER_TOKEN = 4;
+
+    public static NormalizationStats unchanged(int chars) {
+        return new NormalizationStats(chars, chars, 0, 0, 0, 0);
+    }
+
+    public int savedChars() {
+        return originalChars - normalizedChars;
+    }
+
+    public int estimatedTokensSaved() {
+        return savedChars() / CHARS_PER_TOKEN;
+    }
+
+    public double savedPercent() {
+        return originalChars == 0 ? 0 : 100.0 * savedChars() / originalChars;
+    }
+}
@@ -0,0 +1,54 @@
+package com.yourapp.services.extraction;
+
+import java.util.Arrays;
+
+/**
+ * Document normalisé pour le prompt, avec la correspondance vers le texte extrait d'origine.
+ * L'index des pages du texte normalisé est recalculé : une page citée par l'IA reste celle du document.
+ *
+ * @param original         texte extrait (règles locales, affichage)
+ * @param normalized       texte envoyé à l'IA
+ * @param normalizedStarts début de chaque ligne conservée dans le texte normalisé (croissant)
+ * @param originalStarts   début de la même ligne dans le texte d'origine
+ * @param stats            réduction obtenue
+ */
+public record NormalizedDocument(ExtractedText original, ExtractedText normalized,
+                                 int[] normalizedStarts, int[] originalStarts, NormalizationStats stats) {
+
+    /**
+     * Document laissé tel quel (normalisation désactivée) : les positions sont identiques
+     */
+    public static NormalizedDocument identity(ExtractedText text) {
+        return new NormalizedDocument(text, text, new int[]{0}, new int[]{0},
+                NormalizationStats.unchanged(text.text().length()));
+    }
+
+    /**
+     * Position dans le texte d'origine d'une position du texte normalisé
+     * (exacte en début de ligne, approchée à l'intérieur d'une ligne dont les espaces ont été réduits)
+     */
+    public int originalOffset(int normalizedOffset) {
+        int pos = Arrays.binarySearch(normalizedStarts, normalizedOffset);
+        int index = Math.max(0, pos >= 0 ? pos : -pos - 2);
+        int offset = originalStarts[index] + (normalizedOffset - normalizedStarts[index]);
+        return Math.max(0, Math.min(offset, original.text().length()));
+    }
+
+    /**
+     * Paragraphe du document d'origine contenant une position du texte normalisé
+     */
+    public int originalParagraphAt(int normalizedOffset) {
+        return original.paragraphAt(originalOffset(normalizedOffset));
+    }
+
+    /**
+     * Numéro dans le document d'origine d'un paragraphe numéroté sur le texte normalisé
+     * (celui que l'IA a lu) ; null reste null
+     */
+    public Integer originalParagraph(Integer normalizedParagraph) {
+        if (normalizedParagraph == null || normalizedParagraph < 1) {
+            return normalizedParagraph;
+        }
+        return originalParagraphAt(normalized.paragraphStart(normalizedParagraph));
+    }
+}
@@ -0,0 +1,131 @@
+package com.yourapp.services.extraction;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Index des positions de début de chaque page dans le texte extrait d'un document.
+ * Permet de retrouver la page d'un passage cité par l'IA au lieu de se fier à son estimation.
+ */
+public final class PageOffsetIndex {
+
+    private static final PageOffsetIndex EMPTY = new PageOffsetIndex(new int[0]);
+
+    // Longueur minimale d'un extrait pour une recherche approchée (début de citation)
+    private static final int MIN_EXCERPT_PREFIX = 24;
+
+    private final int[] pageStarts;
+
+    private PageOffsetIndex(int[] pageStarts) {
+        this.pageStarts = pageStarts;
+    }
+
+    public static PageOffsetIndex of(int[] pageStarts) {
+        return pageStarts.length == 0 ? EMPTY : new PageOffsetIndex(pageStarts.clone());
+    }
+
+    public static PageOffsetIndex empty() {
+        return EMPTY;
+    }
+
+    public int pageCount() {
+        return pageStarts.length;
+    }
+
+    public boolean isEmpty() {
+        return pageStarts.length == 0;
+    }
+
+    /**
+     * Position de début de la page (1..n) dans le texte
+     */
+    public int startOf(int pageNumber) {
+        return pageStarts[pageNumber - 1];
+    }
+
+    /**
+     * Numéro de page (1..n) contenant la position donnée, null si le document n'est pas paginé
+     */
+    public Integer pageAt(int offset) {
+        if (isEmpty() || offset < 0) {
+            return null;
+        }
+        int pos = Arrays.binarySearch(pageStarts, offset);
+        int index = pos >= 0 ? pos : -pos - 2;
+        return Math.max(0, index) + 1;
+    }
+
+    /**
+     * Retrouver la page d'un extrait cité dans le texte : recherche exacte, puis sans tenir compte
+     * de la casse ni des espaces, puis sur le début de la citation seulement.
+     */
+    public Integer locate(String text, String excerpt) {
+        if (isEmpty() || text == null || excerpt == null || excerpt.isBlank()) {
+            return null;
+        }
+
+        String needle = excerpt.strip();
+        int offset = text.indexOf(needle);
+        if (offset >= 0) {
+            return pageAt(offset);
+        }
+
+        NormalizedText normalized = NormalizedText.of(text);
+        String normalizedNeedle = NormalizedText.of(needle).value;
+        offset = normalized.value.indexOf(normalizedNeedle);
+        if (offset < 0 && normalizedNeedle.length() > MIN_EXCERPT_PREFIX) {
+            offset = normalized.value.indexOf(normalizedNeedle.substring(0, MIN_EXCERPT_PREFIX));
+        }
+        return offset >= 0 ? pageAt(normalized.originalOffsets[offset]) : null;
+    }
+
+    /**
+     * Ramener un numéro de page proposé dans l'intervalle 1..n (inchangé si le document n'est pas paginé)
+     */
+    public Integer clamp(Integer pageNumber) {
+        if (pageNumber == null || isEmpty()) {
+            return pageNumber;
+        }
+        return Math.max(1, Math.min(pageCount(), pageNumber));
+    }
+
+    /**
+     * Sérialisation compacte (positions séparées par des virgules) pour le cache disque
+     */
+    public String encode() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < pageStarts.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(pageStarts[i]);
+        }
+        return sb.toString();
+    }
+
+    public static PageOffsetIndex decode(String encoded) {
+        if (encoded == null || encoded.isBlank()) {
+            return EMPTY;
+        }
+        return new PageOffsetIndex(Arrays.stream(encoded.split(",")).mapToInt(Integer::parseInt).toArray());
+    }
+
+    /**
+     * Texte en minuscules sans espaces, avec correspondance vers les positions d'origine
+     */
+    private record NormalizedText(String value, int[] originalOffsets) {
+
+        static NormalizedText of(String text) {
+            StringBuilder sb = new StringBuilder(text.length());
+            int[] offsets = new int[text.length()];
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (!Character.isWhitespace(c)) {
+                    offsets[sb.length()] = i;
+                    sb.append(c);
+                }
+            }
+            return new NormalizedText(sb.toString().toLowerCase(Locale.ROOT), offsets);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.yourapp.services.extraction;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * PDF avec Apache PDFBox : un fragment par page.
+ * Les documents volumineux sont découpés en plages de pages extraites en parallèle,
+ * chaque worker ouvrant son propre PDDocument (PDFBox n'est pas thread-safe).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PdfTextSource implements DocumentTextSource {
+
+    private final ThreadPoolTaskExecutor pdfExtractionExecutor; // bean "pdfExtractionExecutor" (ExtractionConfig)
+
+    @Value("${app.extraction.pdf.parallel-min-pages:16}")
+    private int parallelMinPages;
+
+    @Value("${app.extraction.pdf.pages-per-range:8}")
+    private int pagesPerRange;
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of(".pdf");
+    }
+
+    @Override
+    public Set<String> mimeTypes() {
+        return Set.of("application/pdf");
+    }
+
+    @Override
+    public void extract(Path filePath, Consumer<TextChunk> sink) throws IOException {
+        File file = filePath.toFile();
+
+        try {
+            int pages;
+            try (PDDocument document = PDDocument.load(file)) {
+                pages = document.getNumberOfPages();
+
+                if (pages < parallelMinPages) {
+                    log.info("📄 Extraction PDF avec PDFBox");
+                    PDFTextStripper stripper = newStripper();
+                    for (int page = 1; page <= pages; page++) {
+                        emitPage(sink, page, stripPage(stripper, document, page));
+                    }
+                    log.info("✅ PDF extrait: {} pages", pages);
+                    return;
+                }
+            }
+
+            // Document fermé avant de lancer les workers : il ne reste pas en mémoire pendant l'extraction
+            extractInParallel(file, pages, sink);
+            log.info("✅ PDF extrait: {} pages", pages);
+        } catch (IOException e) {
+            log.error("❌ Erreur lors de l'extraction PDF", e);
+            throw new IOException("Erreur extraction PDF: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Extraire des plages de pages en parallèle puis émettre les pages dans l'ordre du document
+     */
+    private void extractInParallel(File file, int pages, Consumer<TextChunk> sink) throws IOException {
+        int rangeSize = Math.max(1, pagesPerRange);
+        log.info("📄 Extraction PDF parallèle: {} pages par plages de {}", pages, rangeSize);
+
+        List<CompletableFuture<List<String>>> ranges = new ArrayList<>();
+        for (int start = 1; start <= pages; start += rangeSize) {
+            int first = start;
+            int last = Math.min(pages, start + rangeSize - 1);
+            ranges.add(CompletableFuture.supplyAsync(() -> stripRange(file, first, last), pdfExtractionExecutor));
+        }
+
+        int page = 1;
+        try {
+            for (CompletableFuture<List<String>> range : ranges) {
+                for (String text : range.join()) {
+                    emitPage(sink, page++, text);
+                }
+            }
+        } catch (CompletionException e) {
+            ranges.forEach(range -> range.cancel(true));
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IOException("Erreur extraction PDF (page " + page + "): " + cause.getMessage(), cause);
+        } catch (RuntimeException e) {
+            // Consommateur interrompu (aperçu complet...) : les plages restantes ne sont pas extraites
+            ranges.forEach(range -> range.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Extraire une plage de pages avec un PDDocument propre au worker
+     * (tampons en fichier temporaire : le PDF n'est pas chargé en mémoire par chaque worker)
+     */
+    private List<String> stripRange(File file, int first, int last) {
+        try (PDDocument document = PDDocument.load(file, MemoryUsageSetting.setupTempFileOnly())) {
+            PDFTextStripper stripper = newStripper();
+            List<String> texts = new ArrayList<>(last - first + 1);
+            for (int page = first; page <= last; page++) {
+                texts.add(stripPage(stripper, document, page));
+            }
+            return texts;
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private PDFTextStripper newStripper() throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        // Configuration pour améliorer l'extraction
+        stripper.setSortByPosition(true);
+        return stripper;
+    }
+
+    private String stripPage(PDFTextStripper stripper, PDDocument document, int page) throws IOException {
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        return stripper.getText(document);
+    }
+
+    private void emitPage(Consumer<TextChunk> sink, int page, String text) {
+        sink.accept(new TextChunk(TextChunk.Kind.PAGE, page, page - 1, text));
+    }
+}
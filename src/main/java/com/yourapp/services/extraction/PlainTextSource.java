@@ -0,0 +1,53 @@
+package com.yourapp.services.extraction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Fichiers texte : lecture ligne à ligne, un fragment par paragraphe (séparés par une ligne vide)
+ */
+@Component
+@Slf4j
+public class PlainTextSource implements DocumentTextSource {
+
+    @Override
+    public Set<String> extensions() {
+        return Set.of(".txt");
+    }
+
+    @Override
+    public Set<String> mimeTypes() {
+        return Set.of("text/plain");
+    }
+
+    @Override
+    public void extract(Path filePath, Consumer<TextChunk> sink) throws IOException {
+        log.info("📄 Extraction TXT");
+
+        int sequence = 0;
+        StringBuilder paragraph = new StringBuilder();
+
+        try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                paragraph.append(line).append('\n');
+                if (line.isBlank()) {
+                    sink.accept(new TextChunk(TextChunk.Kind.PARAGRAPH, null, sequence++, paragraph.toString()));
+                    paragraph.setLength(0);
+                }
+            }
+        }
+
+        if (!paragraph.isEmpty()) {
+            sink.accept(new TextChunk(TextChunk.Kind.PARAGRAPH, null, sequence, paragraph.toString()));
+        }
+    }
+}
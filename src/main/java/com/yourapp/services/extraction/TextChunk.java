@@ -0,0 +1,21 @@
+package com.yourapp.services.extraction;
+
+/**
+ * Fragment de texte émis au fil de l'extraction d'un document.
+ * Le texte inclut son propre séparateur final : la concaténation des fragments
+ * reconstitue le contenu complet du document.
+ *
+ * @param kind       nature du fragment (page, paragraphe, feuille, ligne)
+ * @param pageNumber numéro de page (1..n) si connu, sinon null
+ * @param sequence   position du fragment dans le document (0..n)
+ * @param text       contenu du fragment
+ */
+public record TextChunk(Kind kind, Integer pageNumber, int sequence, String text) {
+
+    public enum Kind {
+        PAGE,
+        PARAGRAPH,
+        SHEET,
+        ROW
+    }
+}
@@ -0,0 +1,385 @@
+package com.yourapp.services.extraction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Normalisation du texte extrait avant la construction des prompts. Le texte de PDFBox et POI contient
+ * des en-têtes et pieds de page répétés sur chaque page, des numéros de page, des bordures de tableau
+ * et de longues suites d'espaces : autant de tokens payés sans apport pour l'analyse.
+ * Étapes, ligne par ligne :
+ * <ol>
+ *     <li>lignes répétées en haut ou en bas de la plupart des pages (numéro de page ignoré : "Page 3 / 12")</li>
+ *     <li>numéros de page isolés en haut ou en bas de page</li>
+ *     <li>lignes uniquement composées de caractères de bordure (---, ===, |, ┼...)</li>
+ *     <li>blocs répétés à l'identique dans le document (mentions légales), seule la première occurrence reste</li>
+ *     <li>espaces réduits, lignes vides consécutives fusionnées (les tabulations des classeurs sont gardées)</li>
+ * </ol>
+ * Le texte d'origine n'est pas modifié : le résultat garde la correspondance des positions
+ * et un index des pages recalculé.
+ */
+@Component
+public class TextNormalizer {
+
+    private static final Pattern PAGE_NUMBER = Pattern.compile(
+            "(?i)^[-–—\\s]*(page|p\\.)?\\s*(\\d{1,4})\\s*((/|sur|of|de)\\s*\\d{1,4})?[-–—\\s]*$");
+
+    private static final String BORDER_CHARS = "-=_|+*.·:~#─━│┃┌┐└┘├┤┬┴┼═║╔╗╚╝╠╣╦╩╬";
+
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+
+    @Value("${app.extraction.normalization.enabled:true}")
+    private boolean enabled;
+
+    // En-têtes / pieds de page : détectés à partir de ce nombre de pages
+    @Value("${app.extraction.normalization.header-footer.min-pages:3}")
+    private int headerFooterMinPages;
+
+    // Lignes examinées en haut et en bas de chaque page
+    @Value("${app.extraction.normalization.header-footer.zone-lines:3}")
+    private int headerFooterZoneLines;
+
+    // Part des pages où la ligne doit apparaître
+    @Value("${app.extraction.normalization.header-footer.min-page-ratio:0.5}")
+    private double headerFooterMinPageRatio;
+
+    // Blocs répétés : longueur minimale et nombre d'occurrences pour être retirés
+    @Value("${app.extraction.normalization.duplicate-blocks.min-chars:80}")
+    private int duplicateBlockMinChars;
+
+    @Value("${app.extraction.normalization.duplicate-blocks.min-count:2}")
+    private int duplicateBlockMinCount;
+
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong originalChars = new AtomicLong();
+    private final AtomicLong normalizedChars = new AtomicLong();
+
+    private enum Removal {
+        HEADER_FOOTER,
+        PAGE_NUMBER,
+        BORDER,
+        DUPLICATE_BLOCK
+    }
+
+    private static final class Line {
+        private final int start;
+        private final int end;
+        private final int page;           // 0..n-1 (0 si non paginé)
+        private final boolean blank;
+        private Removal removal;
+
+        Line(int start, int end, int page, boolean blank) {
+            this.start = start;
+            this.end = end;
+            this.page = page;
+            this.blank = blank;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Normaliser le texte extrait d'un document (identité si la normalisation est désactivée)
+     */
+    public NormalizedDocument normalize(ExtractedText original) {
+        if (!enabled || original == null || original.text().isEmpty()) {
+            return NormalizedDocument.identity(original != null ? original : ExtractedText.of(""));
+        }
+
+        String text = original.text();
+        List<Line> lines = splitLines(text, original.pages());
+        markHeadersAndFooters(text, lines, original.pages().pageCount());
+        markBorders(text, lines);
+        markDuplicateBlocks(text, lines);
+        NormalizedDocument result = render(original, lines);
+
+        documents.incrementAndGet();
+        originalChars.addAndGet(result.stats().originalChars());
+        normalizedChars.addAndGet(result.stats().normalizedChars());
+        return result;
+    }
+
+    /**
+     * Cumul depuis le démarrage, pour suivre la réduction obtenue
+     */
+    public Map<String, Object> getStatistics() {
+        long original = originalChars.get();
+        long normalized = normalizedChars.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("documents", documents.get());
+        stats.put("originalChars", original);
+        stats.put("normalizedChars", normalized);
+        stats.put("savedPercent", original == 0 ? 0.0 : Math.round(1000.0 * (original - normalized) / original) / 10.0);
+        return stats;
+    }
+
+    private static List<Line> splitLines(String text, PageOffsetIndex pages) {
+        List<Line> lines = new ArrayList<>();
+        int start = 0;
+        while (start <= text.length()) {
+            int newline = text.indexOf('\n', start);
+            int end = newline >= 0 ? newline : text.length();
+            Integer page = pages.pageAt(start);
+            lines.add(new Line(start, end, page != null ? page - 1 : 0, text.substring(start, end).isBlank()));
+            if (newline < 0) {
+                break;
+            }
+            start = newline + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * Lignes des zones haute et basse de chaque page : retirées si elles se répètent à la même place
+     * sur la plupart des pages (comparées sans le numéro de page ni la casse), ou si ce sont des numéros de page isolés
+     */
+    private void markHeadersAndFooters(String text, List<Line> lines, int pageCount) {
+        if (pageCount == 0) {
+            return;
+        }
+        List<List<Line>> contentByPage = new ArrayList<>();
+        for (int page = 0; page < pageCount; page++) {
+            contentByPage.add(new ArrayList<>());
+        }
+        for (Line line : lines) {
+            if (!line.blank) {
+                contentByPage.get(line.page).add(line);
+            }
+        }
+
+        // Zones haute et basse de chaque page, limitées au tiers de la page pour ne pas toucher au corps
+        // d'une page courte ; chaque ligne est repérée par sa position depuis le haut ou le bas
+        List<Map<Line, String>> zones = new ArrayList<>();
+        for (List<Line> content : contentByPage) {
+            int zone = Math.min(headerFooterZoneLines, content.size() / 3);
+            Map<Line, String> pageZone = new LinkedHashMap<>();
+            for (int i = 0; i < zone; i++) {
+                Line top = content.get(i);
+                Line bottom = content.get(content.size() - 1 - i);
+                pageZone.put(top, "haut " + i + ":" + zoneKey(text, top));
+                pageZone.put(bottom, "bas " + i + ":" + zoneKey(text, bottom));
+            }
+            zones.add(pageZone);
+        }
+
+        Set<String> repeated = new HashSet<>();
+        if (pageCount >= headerFooterMinPages) {
+            Map<String, Integer> pagesPerKey = new HashMap<>();
+            for (Map<Line, String> zone : zones) {
+                new HashSet<>(zone.values()).forEach(key -> pagesPerKey.merge(key, 1, Integer::sum));
+            }
+            int threshold = Math.max(2, (int) Math.ceil(pageCount * headerFooterMinPageRatio));
+            pagesPerKey.forEach((key, count) -> {
+                if (count >= threshold) {
+                    repeated.add(key);
+                }
+            });
+        }
+
+        for (Map<Line, String> zone : zones) {
+            zone.forEach((line, key) -> {
+                if (isPageNumber(text.substring(line.start, line.end), line.page)) {
+                    line.removal = Removal.PAGE_NUMBER;
+                } else if (repeated.contains(key)) {
+                    line.removal = Removal.HEADER_FOOTER;
+                }
+            });
+        }
+    }
+
+    /**
+     * "Page 3", "3 / 12", "- 3 -" ; un nombre seul n'est retenu que s'il correspond à la page
+     * (à une près : page de garde non numérotée), pour ne pas retirer une valeur de tableau
+     */
+    private static boolean isPageNumber(String content, int page) {
+        Matcher matcher = PAGE_NUMBER.matcher(content);
+        if (!matcher.matches()) {
+            return false;
+        }
+        if (matcher.group(1) != null || matcher.group(3) != null) {
+            return true;
+        }
+        return Math.abs(Integer.parseInt(matcher.group(2)) - (page + 1)) <= 1;
+    }
+
+    /**
+     * Ligne comparée sans casse ni espaces multiples ; le numéro de la page (à une près) est masqué
+     * pour que "Rapport 2025 - page 3" se répète, sans confondre "Section 2" et "Section 3"
+     */
+    private static String zoneKey(String text, Line line) {
+        String content = collapse(text.substring(line.start, line.end)).toLowerCase(Locale.ROOT);
+        return DIGITS.matcher(content).replaceAll(match -> {
+            String digits = match.group();
+            boolean pageNumber = digits.length() <= 4 && Math.abs(Integer.parseInt(digits) - (line.page + 1)) <= 1;
+            return pageNumber ? "#" : digits;
+        });
+    }
+
+    private static void markBorders(String text, List<Line> lines) {
+        for (Line line : lines) {
+            if (line.blank || line.removal != null) {
+                continue;
+            }
+            int visible = 0;
+            boolean border = true;
+            for (int i = line.start; i < line.end && border; i++) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                    continue;
+                }
+                border = BORDER_CHARS.indexOf(c) >= 0;
+                visible++;
+            }
+            if (border && visible >= 3) {
+                line.removal = Removal.BORDER;
+            }
+        }
+    }
+
+    /**
+     * Blocs (lignes consécutives non vides) identiques à un bloc précédent : seule la première occurrence est gardée
+     */
+    private void markDuplicateBlocks(String text, List<Line> lines) {
+        Map<String, List<List<Line>>> blocks = new LinkedHashMap<>();
+        List<Line> current = new ArrayList<>();
+        for (Line line : lines) {
+            if (line.blank) {
+                addBlock(text, blocks, current);
+                current = new ArrayList<>();
+            } else if (line.removal == null) {
+                current.add(line);
+            }
+        }
+        addBlock(text, blocks, current);
+
+        for (List<List<Line>> occurrences : blocks.values()) {
+            if (occurrences.size() >= duplicateBlockMinCount) {
+                occurrences.subList(1, occurrences.size())
+                        .forEach(block -> block.forEach(line -> line.removal = Removal.DUPLICATE_BLOCK));
+            }
+        }
+    }
+
+    private void addBlock(String text, Map<String, List<List<Line>>> blocks, List<Line> block) {
+        if (block.isEmpty()) {
+            return;
+        }
+        StringBuilder key = new StringBuilder();
+        for (Line line : block) {
+            key.append(collapse(text.substring(line.start, line.end)).toLowerCase(Locale.ROOT)).append('\n');
+        }
+        if (key.length() >= duplicateBlockMinChars) {
+            blocks.computeIfAbsent(key.toString(), k -> new ArrayList<>()).add(block);
+        }
+    }
+
+    /**
+     * Construire le texte normalisé, la correspondance des lignes et l'index des pages recalculé
+     */
+    private NormalizedDocument render(ExtractedText original, List<Line> lines) {
+        String text = original.text();
+        int pageCount = original.pages().pageCount();
+        StringBuilder out = new StringBuilder(text.length());
+        int[] normalizedStarts = new int[lines.size()];
+        int[] originalStarts = new int[lines.size()];
+        int anchors = 0;
+        int[] pageStarts = new int[pageCount];
+        int nextPage = 0;
+        int[] removed = new int[Removal.values().length];
+        boolean pendingBreak = false;
+
+        for (Line line : lines) {
+            if (line.removal != null) {
+                removed[line.removal.ordinal()]++;
+                continue;
+            }
+            if (line.blank) {
+                pendingBreak = out.length() > 0;
+                continue;
+            }
+            if (out.length() > 0) {
+                out.append(pendingBreak ? "\n\n" : "\n");
+            }
+            pendingBreak = false;
+            while (nextPage < pageCount && nextPage <= line.page) {
+                pageStarts[nextPage++] = out.length();
+            }
+            normalizedStarts[anchors] = out.length();
+            originalStarts[anchors++] = line.start + leadingSpaces(text, line);
+            appendCollapsed(out, text, line.start, line.end);
+        }
+        while (nextPage < pageCount) {
+            pageStarts[nextPage++] = out.length();
+        }
+        if (anchors == 0) {
+            anchors = 1;
+        }
+
+        String normalized = out.toString();
+        NormalizationStats stats = new NormalizationStats(text.length(), normalized.length(),
+                removed[Removal.HEADER_FOOTER.ordinal()], removed[Removal.PAGE_NUMBER.ordinal()],
+                removed[Removal.BORDER.ordinal()], removed[Removal.DUPLICATE_BLOCK.ordinal()]);
+        return new NormalizedDocument(original, new ExtractedText(normalized, PageOffsetIndex.of(pageStarts)),
+                Arrays.copyOf(normalizedStarts, anchors), Arrays.copyOf(originalStarts, anchors),
+                stats);
+    }
+
+    private static int leadingSpaces(String text, Line line) {
+        int i = line.start;
+        while (i < line.end && isSpace(text.charAt(i))) {
+            i++;
+        }
+        return i - line.start;
+    }
+
+    /**
+     * Ajouter la ligne sans espaces de début et de fin, chaque suite d'espaces réduite à un seul
+     * (une tabulation, séparateur de cellules, est conservée telle quelle)
+     */
+    private static void appendCollapsed(StringBuilder out, String text, int start, int end) {
+        while (end > start && (Character.isWhitespace(text.charAt(end - 1)) || Character.isSpaceChar(text.charAt(end - 1)))) {
+            end--;
+        }
+        boolean space = false;
+        boolean started = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (isSpace(c)) {
+                space = started;
+                continue;
+            }
+            if (space) {
+                out.append(' ');
+                space = false;
+            }
+            out.append(c);
+            started = true;
+        }
+    }
+
+    private static boolean isSpace(char c) {
+        return c != '\t' && (Character.isWhitespace(c) || Character.isSpaceChar(c));
+    }
+
+    private static String collapse(String line) {
+        StringBuilder sb = new StringBuilder(line.length());
+        appendCollapsed(sb, line, 0, line.length());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package com.yourapp.services.extraction;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Lecture XLSX en flux via l'API événementielle de POI (XSSFReader + handler SAX).
+ * Seule la table des chaînes partagées est chargée, une fois ; les lignes sont émises
+ * au fil du parsing, la mémoire reste constante quelle que soit la taille du classeur.
+ */
+@Slf4j
+class XlsxStreamingReader {
+
+    private final int maxRowsPerSheet;
+    private final int maxCellsPerSheet;
+
+    XlsxStreamingReader(int maxRowsPerSheet, int maxCellsPerSheet) {
+        this.maxRowsPerSheet = maxRowsPerSheet;
+        this.maxCellsPerSheet = maxCellsPerSheet;
+    }
+
+    /**
+     * Lire toutes les feuilles et émettre un fragment d'en-tête par feuille puis un fragment par ligne
+     */
+    void read(Path filePath, Consumer<TextChunk> sink) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(filePath.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            DataFormatter formatter = ExcelTextSource.newCellFormatter();
+
+            int sequence = 0;
+            int sheets = 0;
+            XSSFReader.SheetIterator it = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (it.hasNext()) {
+                try (InputStream sheetStream = it.next()) {
+                    sheets++;
+                    sink.accept(new TextChunk(TextChunk.Kind.SHEET, null, sequence++,
+                            "\n=== Feuille: " + it.getSheetName() + " ===\n\n"));
+
+                    RowEmitter emitter = new RowEmitter(sink, sequence);
+                    try {
+                        XMLReader parser = XMLHelper.newXMLReader();
+                        parser.setContentHandler(new XSSFSheetXMLHandler(styles, sharedStrings, emitter, formatter, false));
+                        parser.parse(new InputSource(sheetStream));
+                    } catch (SheetLimitReached e) {
+                        log.warn("⚠️ Feuille '{}' tronquée: {}", it.getSheetName(), e.getMessage());
+                    }
+                    sequence = emitter.sequence;
+                }
+            }
+
+            log.info("✅ XLSX extrait en flux: {} feuilles", sheets);
+
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Erreur extraction XLSX en flux: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Limite de lignes ou de cellules atteinte : interrompt le parsing SAX de la feuille
+     */
+    private static class SheetLimitReached extends RuntimeException {
+        SheetLimitReached(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * Construit le texte de chaque ligne et le transmet dès la fin de la ligne
+     */
+    private class RowEmitter implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final Consumer<TextChunk> sink;
+        private final StringBuilder line = new StringBuilder();
+        private int sequence;
+        private int rows = 0;
+        private int cells = 0;
+
+        RowEmitter(Consumer<TextChunk> sink, int sequence) {
+            this.sink = sink;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            if (rows >= maxRowsPerSheet) {
+                throw new SheetLimitReached(maxRowsPerSheet + " lignes maximum");
+            }
+            rows++;
+            line.setLength(0);
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!line.isEmpty()) {
+                sink.accept(new TextChunk(TextChunk.Kind.ROW, null, sequence++, line.append('\n').toString()));
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (formattedValue == null || formattedValue.isBlank()) {
+                return;
+            }
+            if (cells >= maxCellsPerSheet) {
+                endRow(-1);
+                throw new SheetLimitReached(maxCellsPerSheet + " cellules maximum");
+            }
+            cells++;
+            line.append(formattedValue.trim()).append('\t');
+        }
+    }
+}
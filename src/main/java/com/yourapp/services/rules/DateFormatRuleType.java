@@ -0,0 +1,65 @@
+package com.yourapp.services.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.yourapp.services.extraction.ExtractedText;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Format des dates numériques : {"type": "date-format", "format": "dd/MM/yyyy"}.
+ * Toute date écrite en chiffres (05/01/2024, 2024-01-05, 5.1.24...) doit respecter le format
+ * et être une date valide.
+ */
+@Component
+public class DateFormatRuleType implements LocalRuleType {
+
+    private static final Pattern NUMERIC_DATE =
+            Pattern.compile("(?<![\\d./-])\\d{1,4}[./-]\\d{1,2}[./-]\\d{1,4}(?![\\d./-])");
+
+    @Override
+    public String name() {
+        return "date-format";
+    }
+
+    @Override
+    public LocalRule create(JsonNode config) {
+        String format = config.path("format").asText("dd/MM/yyyy");
+        // En résolution stricte, "yyyy" (année de l'ère) exige l'ère : on utilise l'année proleptique
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format.replace('y', 'u'))
+                .withResolverStyle(ResolverStyle.STRICT);
+        return new Rule(format, formatter);
+    }
+
+    private record Rule(String format, DateTimeFormatter formatter) implements LocalRule {
+
+        @Override
+        public String description() {
+            return "format des dates (" + format + ")";
+        }
+
+        @Override
+        public List<RuleFinding> check(ExtractedText document) {
+            List<RuleFinding> findings = new ArrayList<>();
+            Matcher matcher = NUMERIC_DATE.matcher(document.text());
+            while (matcher.find()) {
+                String date = matcher.group();
+                try {
+                    LocalDate.parse(date, formatter);
+                } catch (DateTimeParseException e) {
+                    findings.add(new RuleFinding("Erreur de formatage",
+                            "Date « " + date + " » non conforme au format " + format + ".",
+                            "Écrire la date au format " + format + ".", matcher.start()));
+                }
+            }
+            return findings;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.yourapp.services.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.yourapp.services.extraction.ExtractedText;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cellules vides dans les feuilles d'un classeur (pièces justificatives XLSX) :
+ * {"type": "empty-cells", "sheet": "Dépenses", "maxEmptyRatio": 0.05}.
+ * L'extraction n'écrit que les cellules renseignées, séparées par des tabulations : une ligne
+ * qui compte moins de valeurs que la ligne d'en-tête de sa feuille a des cellules vides.
+ * Sans effet sur les documents qui ne sont pas des classeurs.
+ */
+@Component
+public class EmptyCellsRuleType implements LocalRuleType {
+
+    private static final Pattern SHEET_HEADER = Pattern.compile("(?m)^=== Feuille: (.*) ===$");
+
+    @Override
+    public String name() {
+        return "empty-cells";
+    }
+
+    @Override
+    public LocalRule create(JsonNode config) {
+        double maxEmptyRatio = config.path("maxEmptyRatio").asDouble(0.0);
+        if (maxEmptyRatio < 0 || maxEmptyRatio >= 1) {
+            throw new IllegalArgumentException("\"maxEmptyRatio\" doit être compris entre 0 et 1");
+        }
+        return new Rule(config.path("sheet").asText(null), maxEmptyRatio);
+    }
+
+    private record Rule(String sheet, double maxEmptyRatio) implements LocalRule {
+
+        @Override
+        public String description() {
+            return "cellules vides des tableaux" + (sheet != null ? " de la feuille « " + sheet + " »" : "");
+        }
+
+        @Override
+        public List<RuleFinding> check(ExtractedText document) {
+            String text = document.text();
+            List<RuleFinding> findings = new ArrayList<>();
+
+            Matcher header = SHEET_HEADER.matcher(text);
+            boolean found = header.find();
+            while (found) {
+                String sheetName = header.group(1);
+                int start = header.end();
+                found = header.find();
+                int end = found ? header.start() : text.length();
+                if (sheet == null || sheet.equalsIgnoreCase(sheetName)) {
+                    RuleFinding finding = checkSheet(sheetName, text, start, end);
+                    if (finding != null) {
+                        findings.add(finding);
+                    }
+                }
+            }
+            return findings;
+        }
+
+        /**
+         * Compter les cellules manquantes par rapport à l'en-tête (première ligne non vide de la feuille)
+         */
+        private RuleFinding checkSheet(String sheetName, String text, int start, int end) {
+            int columns = -1;
+            int rows = 0;
+            int incompleteRows = 0;
+            int emptyCells = 0;
+            int firstIncomplete = -1;
+
+            int lineStart = start;
+            while (lineStart < end) {
+                int lineEnd = text.indexOf('\n', lineStart);
+                if (lineEnd < 0 || lineEnd > end) {
+                    lineEnd = end;
+                }
+                String line = text.substring(lineStart, lineEnd).strip();
+                if (!line.isEmpty()) {
+                    int cells = line.split("\t").length;
+                    if (columns < 0) {
+                        columns = cells;
+                    } else {
+                        rows++;
+                        if (cells < columns) {
+                            incompleteRows++;
+                            emptyCells += columns - cells;
+                            if (firstIncomplete < 0) {
+                                firstIncomplete = lineStart;
+                            }
+                        }
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+
+            if (rows == 0 || emptyCells == 0) {
+                return null;
+            }
+            double ratio = (double) emptyCells / ((long) rows * columns);
+            if (ratio <= maxEmptyRatio) {
+                return null;
+            }
+            return new RuleFinding("Information manquante",
+                    String.format("Feuille « %s » : %d ligne(s) incomplète(s), %d cellule(s) vide(s) sur %d (%.1f %%).",
+                            sheetName, incompleteRows, emptyCells, rows * columns, ratio * 100),
+                    "Compléter les cellules vides ou justifier leur absence.", firstIncomplete);
+        }
+    }
+}
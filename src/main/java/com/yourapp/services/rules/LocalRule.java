@@ -0,0 +1,22 @@
+package com.yourapp.services.rules;
+
+import com.yourapp.services.extraction.ExtractedText;
+
+import java.util.List;
+
+/**
+ * Règle vérifiée localement sur le texte extrait, sans appel à l'IA.
+ * Une instance est créée par règle du template ; elle doit être sans état (exécutée en parallèle).
+ */
+public interface LocalRule {
+
+    /**
+     * Ce que la règle vérifie, en une ligne : rappelé à l'IA pour qu'elle ne le signale pas à nouveau
+     */
+    String description();
+
+    /**
+     * Vérifier le document ; liste vide s'il est conforme
+     */
+    List<RuleFinding> check(ExtractedText document);
+}
@@ -0,0 +1,169 @@
+package com.yourapp.services.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yourapp.model.Audit;
+import com.yourapp.model.AuditDocument;
+import com.yourapp.model.AuditIssue;
+import com.yourapp.model.AuditTemplate;
+import com.yourapp.services.extraction.ExtractedText;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Moteur de règles locales : vérifications déterministes (sections obligatoires, motifs, formats
+ * de dates et de nombres, cellules vides) exécutées sur le texte extrait avant l'appel à l'IA.
+ * Les règles sont décrites en JSON dans la colonne "rules" du template :
+ * <pre>{"localOnly": false, "rules": [{"type": "required-section", "name": "Signature"}, ...]}</pre>
+ * (un simple tableau de règles est aussi accepté). Les types de règles sont des composants
+ * LocalRuleType, enregistrés par leur nom.
+ */
+@Component
+@Slf4j
+public class LocalRuleEngine {
+
+    @Value("${app.audit.rules.enabled:true}")
+    private boolean enabled;
+
+    // Au-delà, les occurrences suivantes d'une même règle ne sont pas rapportées
+    @Value("${app.audit.rules.max-findings-per-rule:20}")
+    private int maxFindingsPerRule;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, LocalRuleType> types = new HashMap<>();
+
+    // Règles compilées par template, recompilées quand le template change
+    private final Map<Long, CompiledRules> compiledRules = new ConcurrentHashMap<>();
+
+    private record CompiledRules(LocalDateTime version, TemplateRules rules) {
+    }
+
+    public LocalRuleEngine(List<LocalRuleType> ruleTypes) {
+        ruleTypes.forEach(type -> types.put(type.name(), type));
+        log.info("📏 {} types de règles locales enregistrés: {}", types.size(), types.keySet());
+    }
+
+    /**
+     * Règles du template (aucune si le moteur est désactivé ou le template n'en définit pas)
+     */
+    public TemplateRules rulesFor(AuditTemplate template) {
+        if (!enabled || template == null || template.getRules() == null || template.getRules().isBlank()) {
+            return TemplateRules.NONE;
+        }
+        if (template.getId() == null) {
+            return parse(template);
+        }
+        return compiledRules.compute(template.getId(), (id, current) ->
+                current != null && Objects.equals(current.version(), template.getUpdatedAt())
+                        ? current
+                        : new CompiledRules(template.getUpdatedAt(), parse(template))).rules();
+    }
+
+    /**
+     * Règles invalides ignorées (avec un avertissement) : une erreur de configuration
+     * ne doit pas bloquer l'audit, l'IA couvre alors la vérification
+     */
+    private TemplateRules parse(AuditTemplate template) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(template.getRules());
+        } catch (Exception e) {
+            log.warn("⚠️ Règles du template {} illisibles, ignorées: {}", template.getId(), e.getMessage());
+            return TemplateRules.NONE;
+        }
+
+        JsonNode definitions = root.isArray() ? root : root.path("rules");
+        List<LocalRule> rules = new ArrayList<>();
+        for (JsonNode definition : definitions) {
+            String typeName = definition.path("type").asText("");
+            LocalRuleType type = types.get(typeName);
+            if (type == null) {
+                log.warn("⚠️ Template {} : type de règle inconnu '{}', ignoré", template.getId(), typeName);
+                continue;
+            }
+            try {
+                rules.add(type.create(definition));
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Template {} : règle '{}' invalide, ignorée: {}", template.getId(), typeName, e.getMessage());
+            }
+        }
+
+        boolean localOnly = root.path("localOnly").asBoolean(false) && !rules.isEmpty();
+        log.info("📏 Template {} : {} règle(s) locale(s){}", template.getId(), rules.size(),
+                localOnly ? ", analyse IA désactivée" : "");
+        return new TemplateRules(List.copyOf(rules), localOnly);
+    }
+
+    /**
+     * Exécuter les règles en parallèle sur le texte du document et créer les problèmes correspondants
+     * (non enregistrés). Une règle en erreur est ignorée sans faire échouer les autres.
+     */
+    public List<AuditIssue> check(TemplateRules rules, Audit audit, AuditDocument document, ExtractedText content) {
+        if (rules.isEmpty() || content == null || content.text().isEmpty()) {
+            return new ArrayList<>();
+        }
+        long start = System.nanoTime();
+
+        List<Future<List<RuleFinding>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (LocalRule rule : rules.rules()) {
+                futures.add(executor.submit(() -> rule.check(content)));
+            }
+        }
+
+        List<AuditIssue> issues = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            LocalRule rule = rules.rules().get(i);
+            List<RuleFinding> findings;
+            try {
+                findings = futures.get(i).get();
+            } catch (ExecutionException e) {
+                log.warn("⚠️ Règle locale '{}' en erreur sur le document {}: {}",
+                        rule.description(), document.getId(), e.getCause().getMessage());
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Vérification des règles locales interrompue", e);
+            }
+
+            if (findings.size() > maxFindingsPerRule) {
+                log.info("Règle '{}' : {} occurrences, seules les {} premières sont rapportées",
+                        rule.description(), findings.size(), maxFindingsPerRule);
+                findings = findings.subList(0, maxFindingsPerRule);
+            }
+            findings.forEach(finding -> issues.add(toIssue(finding, audit, document, content)));
+        }
+
+        log.info("📏 Document {} : {} règle(s) locale(s), {} problème(s) en {} ms", document.getId(),
+                rules.rules().size(), issues.size(), (System.nanoTime() - start) / 1_000_000);
+        return issues;
+    }
+
+    private static AuditIssue toIssue(RuleFinding finding, Audit audit, AuditDocument document, ExtractedText content) {
+        AuditIssue issue = new AuditIssue();
+        issue.setAudit(audit);
+        issue.setDocument(document);
+        issue.setIssueType(finding.issueType());
+        issue.setDescription(finding.description());
+        issue.setSuggestion(finding.suggestion());
+        if (finding.offset() >= 0) {
+            issue.setPageNumber(content.pages().pageAt(finding.offset()));
+            issue.setParagraphNumber(content.paragraphAt(finding.offset()));
+        }
+        issue.setStatus("Open");
+        return issue;
+    }
+}
@@ -0,0 +1,17 @@
+package com.yourapp.services.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Type de règle locale (point d'extension) : chaque composant Spring qui implémente cette interface
+ * est enregistré par LocalRuleEngine sous son nom, utilisé dans le champ "type" des règles du template.
+ */
+public interface LocalRuleType {
+
+    String name();
+
+    /**
+     * Créer la règle à partir de sa configuration JSON ; IllegalArgumentException si elle est invalide
+     */
+    LocalRule create(JsonNode config);
+}
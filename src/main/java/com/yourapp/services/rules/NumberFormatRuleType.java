@@ -0,0 +1,62 @@
+package com.yourapp.services.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.yourapp.services.extraction.ExtractedText;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Format des nombres : {"type": "number-format", "pattern": "\\d{1,3}( \\d{3})*(,\\d{2})?", "unit": "€"}.
+ * Avec "unit", les montants suivis de l'unité sont vérifiés ; sans, les nombres décimaux.
+ * Chaque nombre relevé doit correspondre entièrement au motif.
+ */
+@Component
+public class NumberFormatRuleType implements LocalRuleType {
+
+    private static final Pattern DECIMAL = Pattern.compile("(?<![\\d.,])\\d+[.,]\\d+(?![\\d.,]?\\d)");
+
+    @Override
+    public String name() {
+        return "number-format";
+    }
+
+    @Override
+    public LocalRule create(JsonNode config) {
+        if (!config.hasNonNull("pattern")) {
+            throw new IllegalArgumentException("\"pattern\" manquant");
+        }
+        String unit = config.path("unit").asText("").trim();
+        Pattern candidates = unit.isEmpty()
+                ? DECIMAL
+                : Pattern.compile("(?<![\\d.,])(\\d[\\d .,\\u00A0\\u202F]*\\d|\\d)\\s?" + Pattern.quote(unit));
+        return new Rule(Pattern.compile(config.get("pattern").asText()), candidates, unit,
+                config.path("label").asText(unit.isEmpty() ? "nombres décimaux" : "montants en " + unit));
+    }
+
+    private record Rule(Pattern valid, Pattern candidates, String unit, String label) implements LocalRule {
+
+        @Override
+        public String description() {
+            return "format des " + label + " (" + valid.pattern() + ")";
+        }
+
+        @Override
+        public List<RuleFinding> check(ExtractedText document) {
+            List<RuleFinding> findings = new ArrayList<>();
+            Matcher matcher = candidates.matcher(document.text());
+            while (matcher.find()) {
+                String number = unit.isEmpty() ? matcher.group() : matcher.group(1);
+                if (!valid.matcher(number).matches()) {
+                    findings.add(new RuleFinding("Erreur de formatage",
+                            "Nombre « " + number + " » non conforme au format attendu des " + label + ".",
+                            "Respecter le format " + valid.pattern() + ".", matcher.start()));
+                }
+            }
+            return findings;
+        }
+    }
+}
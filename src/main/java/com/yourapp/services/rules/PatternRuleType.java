@@ -0,0 +1,63 @@
+package com.yourapp.services.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.yourapp.services.extraction.ExtractedText;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Expression régulière interdite (chaque occurrence est un problème) ou obligatoire (au moins une) :
+ * {"type": "pattern", "pattern": "(?i)\\bTODO\\b", "mode": "forbidden", "message": "Texte provisoire"}
+ */
+@Component
+public class PatternRuleType implements LocalRuleType {
+
+    @Override
+    public String name() {
+        return "pattern";
+    }
+
+    @Override
+    public LocalRule create(JsonNode config) {
+        if (!config.hasNonNull("pattern")) {
+            throw new IllegalArgumentException("\"pattern\" manquant");
+        }
+        Pattern pattern = Pattern.compile(config.get("pattern").asText());
+        String mode = config.path("mode").asText("forbidden");
+        if (!mode.equals("forbidden") && !mode.equals("required")) {
+            throw new IllegalArgumentException("\"mode\" doit valoir forbidden ou required");
+        }
+        String message = config.path("message").asText(
+                mode.equals("required") ? "Mention obligatoire absente" : "Mention interdite");
+        return new Rule(pattern, mode.equals("required"), message,
+                config.path("issueType").asText("Non-conformité réglementaire"),
+                config.path("suggestion").asText(null));
+    }
+
+    private record Rule(Pattern pattern, boolean required, String message, String issueType,
+                        String suggestion) implements LocalRule {
+
+        @Override
+        public String description() {
+            return message + " (motif " + pattern.pattern() + ")";
+        }
+
+        @Override
+        public List<RuleFinding> check(ExtractedText document) {
+            Matcher matcher = pattern.matcher(document.text());
+            if (required) {
+                return matcher.find() ? List.of() : List.of(RuleFinding.global(issueType, message + ".", suggestion));
+            }
+            List<RuleFinding> findings = new ArrayList<>();
+            while (matcher.find()) {
+                findings.add(new RuleFinding(issueType, message + " : « " + matcher.group().strip() + " ».",
+                        suggestion, matcher.start()));
+            }
+            return findings;
+        }
+    }
+}
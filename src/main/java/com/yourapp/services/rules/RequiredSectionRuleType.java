@@ -0,0 +1,52 @@
+package com.yourapp.services.rules;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.yourapp.services.extraction.ExtractedText;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Section obligatoire : {"type": "required-section", "name": "Signature", "pattern": "(?i)signé par"}.
+ * Sans "pattern", le nom de la section est recherché tel quel, sans tenir compte de la casse.
+ */
+@Component
+public class RequiredSectionRuleType implements LocalRuleType {
+
+    @Override
+    public String name() {
+        return "required-section";
+    }
+
+    @Override
+    public LocalRule create(JsonNode config) {
+        String section = config.path("name").asText("").trim();
+        if (section.isEmpty()) {
+            throw new IllegalArgumentException("\"name\" manquant");
+        }
+        Pattern pattern = config.hasNonNull("pattern")
+                ? Pattern.compile(config.get("pattern").asText())
+                : Pattern.compile(Pattern.quote(section), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        return new Rule(section, pattern,
+                config.path("issueType").asText("Information manquante"),
+                config.path("suggestion").asText("Ajouter la section « " + section + " »."));
+    }
+
+    private record Rule(String section, Pattern pattern, String issueType, String suggestion) implements LocalRule {
+
+        @Override
+        public String description() {
+            return "présence de la section « " + section + " »";
+        }
+
+        @Override
+        public List<RuleFinding> check(ExtractedText document) {
+            if (pattern.matcher(document.text()).find()) {
+                return List.of();
+            }
+            return List.of(RuleFinding.global(issueType,
+                    "Section obligatoire absente : « " + section + " ».", suggestion));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.yourapp.services.rules;
+
+/**
+ * Problème relevé par une règle locale
+ *
+ * @param offset position dans le texte extrait (page et paragraphe en sont déduits), -1 si non localisé
+ */
+public record RuleFinding(String issueType, String description, String suggestion, int offset) {
+
+    public static RuleFinding global(String issueType, String description, String suggestion) {
+        return new RuleFinding(issueType, description, suggestion, -1);
+    }
+}
@@ -0,0 +1,29 @@
+package com.yourapp.services.rules;
+
+import java.util.List;
+
+/**
+ * Règles locales d'un template d'audit
+ *
+ * @param localOnly le template est entièrement couvert par les règles locales : aucun appel à l'IA
+ */
+public record TemplateRules(List<LocalRule> rules, boolean localOnly) {
+
+    public static final TemplateRules NONE = new TemplateRules(List.of(), false);
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Rappel pour le prompt : vérifications déjà faites localement, que l'IA ne doit pas signaler
+     */
+    public String promptNote() {
+        if (rules.isEmpty()) {
+            return "";
+        }
+        StringBuilder note = new StringBuilder("=== DÉJÀ VÉRIFIÉ LOCALEMENT (ne pas signaler) ===\n");
+        rules.forEach(rule -> note.append("- ").append(rule.description()).append("\n"));
+        return note.append("\n").toString();
+    }
+}
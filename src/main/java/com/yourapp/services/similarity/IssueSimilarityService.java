@@ -0,0 +1,469 @@
+package com.yourapp.services.similarity;
+
+import com.yourapp.AI.EmbeddingClient;
+import com.yourapp.DAO.AuditDocumentRepository;
+import com.yourapp.DAO.AuditIssueRepository;
+import com.yourapp.DAO.AuditRepository;
+import com.yourapp.model.Audit;
+import com.yourapp.model.AuditDocument;
+import com.yourapp.model.AuditIssue;
+import com.yourapp.services.extraction.DocumentChunker;
+import com.yourapp.services.extraction.ExtractedText;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+
+/**
+ * Recherche par similarité sur les embeddings (index vectoriel en mémoire) :
+ * <ul>
+ *     <li>doublons d'un audit : même problème relevé deux fois sur un document (règle locale et IA,
+ *     morceaux voisins...), fusionnés</li>
+ *     <li>problèmes récurrents : rattachés à leur première occurrence dans un audit précédent du même projet</li>
+ *     <li>passages d'un long document pertinents pour un prompt personnalisé</li>
+ * </ul>
+ * Les index des projets sont construits à la première utilisation puis complétés au fil des audits ;
+ * ils sont reconstruits si l'espace d'embedding change (bascule Ollama / local).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IssueSimilarityService {
+
+    @Value("${app.audit.similarity.enabled:true}")
+    private boolean enabled;
+
+    // Similarité cosinus à partir de laquelle deux problèmes d'un même document sont des doublons
+    @Value("${app.audit.similarity.duplicate-threshold:0.92}")
+    private double duplicateThreshold;
+
+    // Similarité cosinus à partir de laquelle un problème est la récurrence d'un problème précédent
+    @Value("${app.audit.similarity.recurrence-threshold:0.85}")
+    private double recurrenceThreshold;
+
+    @Value("${app.audit.similarity.max-cached-projects:20}")
+    private int maxCachedProjects;
+
+    // Prompt personnalisé : taille des passages indexés et volume de texte retenu
+    @Value("${app.audit.similarity.passage-chars:1500}")
+    private int passageChars;
+
+    @Value("${app.audit.similarity.retrieval-max-chars:12000}")
+    private int retrievalMaxChars;
+
+    private final EmbeddingClient embeddingClient;
+    private final AuditIssueRepository issueRepository;
+    private final AuditRepository auditRepository;
+    private final AuditDocumentRepository documentRepository;
+    private final DocumentChunker documentChunker;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<Long, ProjectIndex> projectIndexes = new ConcurrentHashMap<>();
+    private final Map<Long, PassageIndex> passageIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * Problèmes indexés d'un projet : audit de chaque problème et première occurrence de sa série
+     */
+    private static final class ProjectIndex {
+        private final VectorIndex vectors;
+        private final Map<Long, Long> auditOf = new HashMap<>();
+        private final Map<Long, String> typeOf = new HashMap<>();
+        private final Map<Long, Long> rootOf = new HashMap<>();
+
+        ProjectIndex(VectorIndex vectors) {
+            this.vectors = vectors;
+        }
+    }
+
+    private record Passage(int start, int end) {
+    }
+
+    private record PassageIndex(int textHash, List<Passage> passages, VectorIndex vectors) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Fusionner les doublons d'un audit : problèmes d'un même document, de localisation compatible,
+     * dont les descriptions sont quasi identiques. Le premier est conservé et complété.
+     * Les embeddings sont calculés hors transaction ; seules les écritures se font dans une transaction courte.
+     *
+     * @return le nombre de problèmes supprimés
+     */
+    public int deduplicateAudit(Long auditId) {
+        Audit audit = auditRepository.findById(auditId)
+                .orElseThrow(() -> new RuntimeException("Audit introuvable avec l'ID: " + auditId));
+        List<AuditIssue> issues = new ArrayList<>(issueRepository.findByAudit(audit));
+        if (issues.size() < 2) {
+            return 0;
+        }
+        issues.sort(Comparator.comparing(AuditIssue::getId));
+
+        EmbeddingClient.Embeddings embeddings = embeddingClient.embed(issues.stream().map(this::issueText).toList());
+        VectorIndex kept = new VectorIndex(embeddings.space(), embeddings.vectors().get(0).length);
+        Map<Long, AuditIssue> keptById = new HashMap<>();
+        List<AuditIssue> duplicates = new ArrayList<>();
+        Map<Long, AuditIssue> completed = new HashMap<>();
+
+        for (int i = 0; i < issues.size(); i++) {
+            AuditIssue issue = issues.get(i);
+            float[] vector = embeddings.vectors().get(i);
+            AuditIssue original = kept.search(vector, 5, duplicateThreshold,
+                            id -> sameDocument(keptById.get(id), issue)).stream()
+                    .map(match -> keptById.get(match.id()))
+                    .filter(candidate -> locationsCompatible(candidate.getPageNumber(), issue.getPageNumber()))
+                    .findFirst()
+                    .orElse(null);
+            if (original == null) {
+                kept.add(issue.getId(), vector);
+                keptById.put(issue.getId(), issue);
+            } else {
+                complete(original, issue);
+                completed.put(original.getId(), original);
+                duplicates.add(issue);
+            }
+        }
+        if (duplicates.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Integer> removedByDocument = new HashMap<>();
+        for (AuditIssue duplicate : duplicates) {
+            if (duplicate.getDocument() != null) {
+                removedByDocument.merge(duplicate.getDocument().getId(), 1, Integer::sum);
+            }
+        }
+        // Problèmes rechargés dans la transaction : une ré-analyse a pu les supprimer entre-temps
+        newTransaction().executeWithoutResult(status -> {
+            issueRepository.findByIdIn(completed.keySet()).forEach(original -> {
+                complete(original, completed.get(original.getId()));
+                issueRepository.save(original);
+            });
+            issueRepository.deleteByIdIn(duplicates.stream().map(AuditIssue::getId).toList());
+            removedByDocument.forEach((documentId, removed) -> documentRepository.findById(documentId).ifPresent(document -> {
+                int count = document.getIssuesCount() != null ? document.getIssuesCount() : 0;
+                document.setIssuesCount(Math.max(0, count - removed));
+                documentRepository.save(document);
+            }));
+        });
+        ProjectIndex index = audit.getProjectId() != null ? projectIndexes.get(audit.getProjectId()) : null;
+        if (index != null) {
+            synchronized (index) {
+                duplicates.forEach(duplicate -> forget(index, duplicate.getId()));
+            }
+        }
+
+        log.info("🧹 Audit {} : {} doublon(s) fusionné(s) sur {} problèmes", auditId, duplicates.size(), issues.size());
+        return duplicates.size();
+    }
+
+    /**
+     * Rattacher chaque problème de l'audit au même problème relevé dans un audit précédent du projet
+     * (même type, description proche). Le lien pointe vers la première occurrence de la série.
+     * Les embeddings sont calculés hors transaction ; les liens sont écrits dans une transaction courte.
+     *
+     * @return le nombre de problèmes récurrents
+     */
+    public int linkRecurringIssues(Long auditId) {
+        Audit audit = auditRepository.findById(auditId)
+                .orElseThrow(() -> new RuntimeException("Audit introuvable avec l'ID: " + auditId));
+        if (audit.getProjectId() == null) {
+            return 0;
+        }
+        ProjectIndex index = projectIndex(audit.getProjectId());
+        List<AuditIssue> issues = new ArrayList<>(issueRepository.findByAudit(audit));
+        issues.sort(Comparator.comparing(AuditIssue::getId));
+        Set<Long> earlierAudits = earlierAudits(audit);
+
+        int recurring = 0;
+        Map<Long, Long> links = new HashMap<>();
+        synchronized (index) {
+            for (AuditIssue issue : issues) {
+                float[] vector = index.vectors.get(issue.getId());
+                if (vector == null) {
+                    continue;
+                }
+                String type = normalize(issue.getIssueType());
+                // Problèmes des audits antérieurs du projet (les identifiants, réservés par blocs,
+                // ne suivent pas l'ordre des audits)
+                Long root = index.vectors.search(vector, 1, recurrenceThreshold, id ->
+                                earlierAudits.contains(index.auditOf.get(id))
+                                        && type.equals(index.typeOf.get(id))).stream()
+                        .map(match -> index.rootOf.getOrDefault(match.id(), match.id()))
+                        .findFirst()
+                        .orElse(null);
+
+                if (!Objects.equals(root, issue.getRecurrenceOfId())) {
+                    links.put(issue.getId(), root);
+                }
+                index.rootOf.put(issue.getId(), root != null ? root : issue.getId());
+                if (root != null) {
+                    recurring++;
+                }
+            }
+        }
+
+        if (!links.isEmpty()) {
+            newTransaction().executeWithoutResult(status ->
+                    issueRepository.findByIdIn(links.keySet()).forEach(issue -> {
+                        issue.setRecurrenceOfId(links.get(issue.getId()));
+                        issueRepository.save(issue);
+                    }));
+        }
+
+        log.info("🔁 Audit {} : {} problème(s) récurrent(s) sur {} (projet {})",
+                auditId, recurring, issues.size(), audit.getProjectId());
+        return recurring;
+    }
+
+    /**
+     * Audits du projet créés avant celui-ci (à date égale, identifiant inférieur)
+     */
+    private Set<Long> earlierAudits(Audit audit) {
+        Comparator<Audit> chronological = Comparator.comparing(Audit::getCreatedAt,
+                        Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(Audit::getId);
+        Set<Long> earlier = new HashSet<>();
+        for (Audit other : auditRepository.findByProjectId(audit.getProjectId())) {
+            if (chronological.compare(other, audit) < 0) {
+                earlier.add(other.getId());
+            }
+        }
+        return earlier;
+    }
+
+    /**
+     * Contenu à joindre à un prompt personnalisé : le document entier s'il tient dans un prompt,
+     * sinon ses passages les plus proches de la demande, dans l'ordre du document
+     */
+    public String relevantContent(Long documentId, ExtractedText content, String query) {
+        String text = content.text();
+        if (!enabled || !documentChunker.needsChunking(text) || query == null || query.isBlank()) {
+            return text;
+        }
+
+        PassageIndex index = passageIndex(documentId, text);
+        int maxPassages = Math.max(1, retrievalMaxChars / Math.max(1, passageChars));
+        List<VectorIndex.Match> matches = index.vectors().search(
+                embeddingClient.embed(query), maxPassages, -1, null);
+
+        List<Passage> selected = new ArrayList<>();
+        int total = 0;
+        for (VectorIndex.Match match : matches) {
+            Passage passage = index.passages().get((int) match.id());
+            if (total + (passage.end() - passage.start()) > retrievalMaxChars && !selected.isEmpty()) {
+                continue;
+            }
+            selected.add(passage);
+            total += passage.end() - passage.start();
+        }
+        selected.sort(Comparator.comparingInt(Passage::start));
+
+        StringBuilder excerpt = new StringBuilder(total + selected.size() * 32);
+        int previousEnd = 0;
+        for (Passage passage : selected) {
+            if (passage.start() > previousEnd) {
+                excerpt.append("[...]\n\n");
+            }
+            Integer page = content.pages().pageAt(passage.start());
+            if (page != null) {
+                excerpt.append("[Page ").append(page).append("]\n");
+            }
+            excerpt.append(text, passage.start(), passage.end()).append("\n\n");
+            previousEnd = passage.end();
+        }
+        if (previousEnd < text.length()) {
+            excerpt.append("[...]\n");
+        }
+
+        log.info("🔎 Document {} : {} passage(s) pertinent(s) sur {} retenus pour le prompt personnalisé ({} → {} caractères)",
+                documentId, selected.size(), index.passages().size(), text.length(), excerpt.length());
+        return excerpt.toString();
+    }
+
+    /**
+     * Index du projet, complété avec les problèmes ajoutés depuis (et purgé des problèmes supprimés)
+     */
+    private ProjectIndex projectIndex(Long projectId) {
+        List<AuditIssue> issues = issueRepository.findByProjectId(projectId);
+        ProjectIndex index = projectIndexes.get(projectId);
+        if (index != null && !index.vectors.space().equals(embeddingClient.currentSpace())) {
+            index = null;
+        }
+
+        List<AuditIssue> missing = new ArrayList<>();
+        if (index != null) {
+            synchronized (index) {
+                Set<Long> present = new HashSet<>();
+                for (AuditIssue issue : issues) {
+                    present.add(issue.getId());
+                    if (!index.vectors.contains(issue.getId())) {
+                        missing.add(issue);
+                    }
+                }
+                ProjectIndex current = index;
+                new ArrayList<>(current.auditOf.keySet()).stream()
+                        .filter(id -> !present.contains(id))
+                        .forEach(id -> forget(current, id));
+            }
+        } else {
+            missing.addAll(issues);
+        }
+        if (missing.isEmpty()) {
+            return index != null ? index : newProjectIndex(projectId, embeddingClient.currentSpace(), 1);
+        }
+
+        EmbeddingClient.Embeddings embeddings = embeddingClient.embed(missing.stream().map(this::issueText).toList());
+        if (index != null && !index.vectors.space().equals(embeddings.space())) {
+            // Bascule d'espace pendant l'appel : reconstruction complète
+            missing = issues;
+            embeddings = embeddingClient.embed(issues.stream().map(this::issueText).toList());
+            index = null;
+        }
+        if (index == null) {
+            index = newProjectIndex(projectId, embeddings.space(), embeddings.vectors().get(0).length);
+        }
+
+        synchronized (index) {
+            for (int i = 0; i < missing.size(); i++) {
+                AuditIssue issue = missing.get(i);
+                index.vectors.add(issue.getId(), embeddings.vectors().get(i));
+                index.auditOf.put(issue.getId(), issue.getAudit().getId());
+                index.typeOf.put(issue.getId(), normalize(issue.getIssueType()));
+                index.rootOf.put(issue.getId(),
+                        issue.getRecurrenceOfId() != null ? issue.getRecurrenceOfId() : issue.getId());
+            }
+        }
+        log.debug("Index de similarité du projet {} : {} problème(s) ajouté(s), {} au total",
+                projectId, missing.size(), index.vectors.size());
+        return index;
+    }
+
+    private TransactionTemplate newTransaction() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private ProjectIndex newProjectIndex(Long projectId, String space, int dimensions) {
+        if (projectIndexes.size() >= maxCachedProjects && !projectIndexes.containsKey(projectId)) {
+            projectIndexes.keySet().stream().findFirst().ifPresent(projectIndexes::remove);
+        }
+        ProjectIndex index = new ProjectIndex(new VectorIndex(space, dimensions));
+        projectIndexes.put(projectId, index);
+        return index;
+    }
+
+    private static void forget(ProjectIndex index, Long issueId) {
+        index.vectors.remove(issueId);
+        index.auditOf.remove(issueId);
+        index.typeOf.remove(issueId);
+        index.rootOf.remove(issueId);
+    }
+
+    /**
+     * Passages du document (paragraphes regroupés jusqu'à passageChars) et leurs vecteurs,
+     * recalculés si le texte change
+     */
+    private PassageIndex passageIndex(Long documentId, String text) {
+        PassageIndex cached = passageIndexes.get(documentId);
+        if (cached != null && cached.textHash() == text.hashCode()
+                && cached.vectors().space().equals(embeddingClient.currentSpace())) {
+            return cached;
+        }
+
+        List<Passage> passages = splitPassages(text);
+        EmbeddingClient.Embeddings embeddings = embeddingClient.embed(passages.stream()
+                .map(passage -> text.substring(passage.start(), passage.end()))
+                .toList());
+        VectorIndex vectors = new VectorIndex(embeddings.space(), embeddings.vectors().get(0).length);
+        for (int i = 0; i < passages.size(); i++) {
+            vectors.add(i, embeddings.vectors().get(i));
+        }
+
+        if (passageIndexes.size() >= maxCachedProjects) {
+            passageIndexes.clear();
+        }
+        PassageIndex index = new PassageIndex(text.hashCode(), passages, vectors);
+        passageIndexes.put(documentId, index);
+        return index;
+    }
+
+    private List<Passage> splitPassages(String text) {
+        List<Passage> passages = new ArrayList<>();
+        Matcher breaks = ExtractedText.PARAGRAPH_BREAK.matcher(text);
+        int start = 0;      // début du passage en cours
+        int position = 0;   // fin des paragraphes déjà placés dans ce passage
+        while (position < text.length()) {
+            int paragraphEnd = breaks.find(position) ? breaks.end() : text.length();
+            if (paragraphEnd - start > passageChars && position > start) {
+                // Le paragraphe ne tient plus : le passage s'arrête avant lui
+                passages.add(new Passage(start, position));
+                start = position;
+            }
+            // Paragraphe seul plus long qu'un passage : coupé en tranches
+            while (paragraphEnd - start > passageChars) {
+                passages.add(new Passage(start, start + passageChars));
+                start += passageChars;
+            }
+            position = paragraphEnd;
+        }
+        if (start < text.length()) {
+            passages.add(new Passage(start, text.length()));
+        }
+        return passages;
+    }
+
+    private String issueText(AuditIssue issue) {
+        String type = issue.getIssueType() != null ? issue.getIssueType() + " : " : "";
+        return type + Objects.requireNonNullElse(issue.getDescription(), "");
+    }
+
+    private static boolean sameDocument(AuditIssue a, AuditIssue b) {
+        AuditDocument documentA = a != null ? a.getDocument() : null;
+        AuditDocument documentB = b.getDocument();
+        if (documentA == null || documentB == null) {
+            return documentA == documentB;
+        }
+        return Objects.equals(documentA.getId(), documentB.getId());
+    }
+
+    /**
+     * Pages égales ou voisines, ou localisation inconnue
+     */
+    private static boolean locationsCompatible(Integer pageA, Integer pageB) {
+        return pageA == null || pageB == null || Math.abs(pageA - pageB) <= 1;
+    }
+
+    private static void complete(AuditIssue target, AuditIssue duplicate) {
+        if (target.getPageNumber() == null) {
+            target.setPageNumber(duplicate.getPageNumber());
+        }
+        if (target.getParagraphNumber() == null) {
+            target.setParagraphNumber(duplicate.getParagraphNumber());
+        }
+        if (target.getSuggestion() == null || target.getSuggestion().isBlank()) {
+            target.setSuggestion(duplicate.getSuggestion());
+        }
+    }
+
+    private static String normalize(String text) {
+        String value = Objects.requireNonNullElse(text, "").toLowerCase(Locale.ROOT).trim();
+        return Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+}
@@ -0,0 +1,274 @@
+package com.yourapp.services.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yourapp.dto.AuditDocumentDto;
+import com.yourapp.dto.ChunkedUploadRequestDto;
+import com.yourapp.dto.ChunkedUploadStatusDto;
+import com.yourapp.services.AuditDocumentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uploads reprenables par morceaux (REST) : le fichier est reçu dans un fichier partiel,
+ * chaque morceau écrit directement depuis le flux de la requête à sa position.
+ * Après une coupure, le client demande l'état et reprend à receivedBytes (un morceau renvoyé
+ * écrase la fin du fichier partiel). Une fois tous les octets reçus, le fichier est déplacé
+ * dans le stockage des documents sans recopie. Les métadonnées de l'upload sont écrites
+ * à côté du fichier partiel : un upload survit au redémarrage du serveur.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChunkedUploadService {
+
+    private static final String PART_SUFFIX = ".part";
+    private static final String META_SUFFIX = ".json";
+
+    @Value("${app.upload.chunked.dir:uploads/audit-documents/.incoming}")
+    private String incomingDir;
+
+    @Value("${app.upload.chunked.max-chunk-bytes:8388608}")
+    private long maxChunkBytes;
+
+    @Value("${app.upload.chunked.max-file-bytes:524288000}")
+    private long maxFileBytes;
+
+    // Uploads non finalisés supprimés au-delà
+    @Value("${app.upload.chunked.expiry-hours:24}")
+    private long expiryHours;
+
+    @Value("${app.upload.allowed-extensions:.pdf,.doc,.docx,.xls,.xlsx,.txt}")
+    private String allowedExtensions;
+
+    private final AuditDocumentService documentService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Métadonnées d'un upload en cours
+     */
+    record UploadSession(String uploadId, String fileName, long size, Long auditId, Long projectId,
+                         String sha256, long createdAt) {
+    }
+
+    /**
+     * Ouvrir un upload
+     */
+    public ChunkedUploadStatusDto start(ChunkedUploadRequestDto request) {
+        String fileName = Paths.get(request.getFileName()).getFileName().toString();
+        if (!hasAllowedExtension(fileName)) {
+            throw new RuntimeException("Extension de fichier non supportée: " + fileName);
+        }
+        if (request.getSize() > maxFileBytes) {
+            throw new RuntimeException("Fichier trop volumineux: " + request.getSize() + " octets (max " + maxFileBytes + ")");
+        }
+        purgeExpired();
+
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), fileName, request.getSize(),
+                request.getAuditId(), request.getProjectId(), request.getSha256(), System.currentTimeMillis());
+        try {
+            Files.createDirectories(incoming());
+            objectMapper.writeValue(metaPath(session.uploadId()).toFile(), session);
+            Files.createFile(partPath(session.uploadId()));
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible d'ouvrir l'upload: " + e.getMessage());
+        }
+
+        log.info("📤 Upload par morceaux ouvert: {} ({} octets) pour l'audit {}", fileName, session.size(), session.auditId());
+        return toStatus(session, 0);
+    }
+
+    /**
+     * Écrire un morceau à la position donnée (égale au nombre d'octets déjà reçus, ou inférieure pour un renvoi)
+     */
+    public ChunkedUploadStatusDto appendChunk(String uploadId, long offset, InputStream body) {
+        UploadSession session = load(uploadId);
+        synchronized (lock(uploadId)) {
+            Path part = partPath(uploadId);
+            try (FileChannel out = FileChannel.open(part, StandardOpenOption.WRITE);
+                 ReadableByteChannel in = Channels.newChannel(body)) {
+                long received = out.size();
+                if (offset < 0 || offset > received) {
+                    throw new RuntimeException("Morceau hors séquence: position " + offset + ", "
+                            + received + " octets déjà reçus");
+                }
+                if (offset < received) {
+                    // Morceau renvoyé après une coupure : la fin déjà reçue est remplacée
+                    out.truncate(offset);
+                }
+
+                long limit = Math.min(maxChunkBytes, session.size() - offset);
+                long position = offset;
+                long transferred;
+                while (position - offset < limit
+                        && (transferred = out.transferFrom(in, position, limit - (position - offset))) > 0) {
+                    position += transferred;
+                }
+                if (in.read(ByteBuffer.allocate(1)) > 0) {
+                    out.truncate(offset);
+                    throw new RuntimeException("Morceau trop grand: au plus " + limit + " octets attendus à la position " + offset);
+                }
+                return toStatus(session, position);
+            } catch (IOException e) {
+                throw new RuntimeException("Erreur lors de la réception du morceau: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * État d'un upload, pour reprendre l'envoi
+     */
+    public ChunkedUploadStatusDto status(String uploadId) {
+        UploadSession session = load(uploadId);
+        return toStatus(session, receivedBytes(uploadId));
+    }
+
+    /**
+     * Finaliser l'upload : le fichier complet devient un document de l'audit
+     */
+    public AuditDocumentDto complete(String uploadId) {
+        UploadSession session = load(uploadId);
+        synchronized (lock(uploadId)) {
+            long received = receivedBytes(uploadId);
+            if (received != session.size()) {
+                throw new RuntimeException("Upload incomplet: " + received + " octets reçus sur " + session.size());
+            }
+            AuditDocumentDto document = documentService.registerUploadedFile(partPath(uploadId), session.fileName(),
+                    session.auditId(), session.projectId(), session.sha256());
+            deleteQuietly(metaPath(uploadId));
+            locks.remove(uploadId);
+            log.info("✅ Upload par morceaux terminé: {} → document {}", session.fileName(), document.getId());
+            return document;
+        }
+    }
+
+    /**
+     * Abandonner un upload
+     */
+    public void abort(String uploadId) {
+        load(uploadId);
+        synchronized (lock(uploadId)) {
+            deleteQuietly(partPath(uploadId));
+            deleteQuietly(metaPath(uploadId));
+            locks.remove(uploadId);
+        }
+        log.info("🗑️ Upload par morceaux {} abandonné", uploadId);
+    }
+
+    private UploadSession load(String uploadId) {
+        Path meta = metaPath(uploadId);
+        if (!Files.exists(meta)) {
+            throw new RuntimeException("Upload introuvable: " + uploadId);
+        }
+        try {
+            return objectMapper.readValue(meta.toFile(), UploadSession.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Upload illisible: " + uploadId);
+        }
+    }
+
+    private long receivedBytes(String uploadId) {
+        try {
+            return Files.size(partPath(uploadId));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private ChunkedUploadStatusDto toStatus(UploadSession session, long received) {
+        return ChunkedUploadStatusDto.builder()
+                .uploadId(session.uploadId())
+                .fileName(session.fileName())
+                .size(session.size())
+                .receivedBytes(received)
+                .maxChunkBytes(maxChunkBytes)
+                .complete(received == session.size())
+                .build();
+    }
+
+    /**
+     * Supprimer les uploads ouverts depuis plus de expiryHours
+     */
+    private void purgeExpired() {
+        Path dir = incoming();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        Instant limit = Instant.now().minus(Duration.ofHours(expiryHours));
+        try (DirectoryStream<Path> metas = Files.newDirectoryStream(dir, "*" + META_SUFFIX)) {
+            for (Path meta : metas) {
+                if (Files.getLastModifiedTime(meta).toInstant().isBefore(limit)) {
+                    String uploadId = meta.getFileName().toString().replace(META_SUFFIX, "");
+                    deleteQuietly(dir.resolve(uploadId + PART_SUFFIX));
+                    deleteQuietly(meta);
+                    log.info("🧹 Upload par morceaux expiré supprimé: {}", uploadId);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ Purge des uploads expirés impossible: {}", e.getMessage());
+        }
+    }
+
+    private boolean hasAllowedExtension(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return Arrays.stream(allowedExtensions.split(","))
+                .map(String::trim)
+                .anyMatch(extension -> !extension.isEmpty() && name.endsWith(extension.toLowerCase(Locale.ROOT)));
+    }
+
+    private Object lock(String uploadId) {
+        return locks.computeIfAbsent(uploadId, id -> new Object());
+    }
+
+    private Path incoming() {
+        return Paths.get(incomingDir);
+    }
+
+    /**
+     * Identifiant contrôlé (UUID) : jamais utilisé tel quel dans un chemin
+     */
+    private Path partPath(String uploadId) {
+        return incoming().resolve(checkedId(uploadId) + PART_SUFFIX);
+    }
+
+    private Path metaPath(String uploadId) {
+        return incoming().resolve(checkedId(uploadId) + META_SUFFIX);
+    }
+
+    private static String checkedId(String uploadId) {
+        try {
+            return UUID.fromString(uploadId).toString();
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Identifiant d'upload invalide: " + uploadId);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("⚠️ Suppression impossible: {} ({})", path, e.getMessage());
+        }
+    }
+}
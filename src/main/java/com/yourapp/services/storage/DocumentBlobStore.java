@@ -0,0 +1,263 @@
+package com.yourapp.services.storage;
+
+import com.yourapp.DAO.AuditDocumentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Stockage des documents adressé par contenu : chaque fichier est rangé sous son empreinte SHA-256,
+ * dans des sous-répertoires tirés des premiers caractères (blobs/ab/cd/abcd…e3.pdf).
+ * Un même fichier uploadé dans plusieurs audits n'est stocké qu'une fois ; les documents (AuditDocument)
+ * qui pointent vers lui en sont les références, et le fichier n'est supprimé qu'avec la dernière.
+ * L'extension d'origine est conservée dans le nom pour que le fichier reste ouvrable depuis le poste.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentBlobStore {
+
+    private static final Pattern BLOB_NAME = Pattern.compile("([0-9a-f]{64})(\\.[a-z0-9]{1,10})?");
+    private static final int LOCK_STRIPES = 64;
+
+    @Value("${app.upload.blobs.dir:uploads/audit-documents/blobs}")
+    private String blobDir;
+
+    private final DocumentFileWriter fileWriter;
+    private final AuditDocumentRepository documentRepository;
+
+    private final Object[] locks = newLocks();
+
+    // Fichiers stockés dont le document n'est pas encore validé en base, protégés du nettoyage
+    private final Map<Path, Integer> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Stocker un flux (upload multipart) ; le flux est fermé
+     */
+    public StoredFile store(InputStream source, String originalName) throws IOException {
+        return publish(stage(source, originalName), originalName);
+    }
+
+    /**
+     * Stocker une copie d'un fichier local (client desktop)
+     */
+    public StoredFile store(Path source, String originalName) throws IOException {
+        return publish(stage(source, originalName), originalName);
+    }
+
+    /**
+     * Écrire un flux dans un fichier temporaire du stockage (empreinte calculée au passage).
+     * Sans effet sur les transactions : peut être appelé depuis un thread d'écriture, puis publish
+     * depuis le thread de la transaction qui enregistre le document.
+     */
+    public StoredFile stage(InputStream source, String originalName) throws IOException {
+        return fileWriter.copy(source, originalName, newTempFile());
+    }
+
+    public StoredFile stage(Path source, String originalName) throws IOException {
+        return fileWriter.copy(source, originalName, newTempFile());
+    }
+
+    /**
+     * Reprendre un fichier déjà reçu sur le serveur (upload par morceaux) : déplacé sans recopie.
+     * Si expectedSha256 est fourni, le contenu doit lui correspondre, sinon le fichier est supprimé.
+     */
+    public StoredFile adopt(Path received, String originalName, String expectedSha256) throws IOException {
+        StoredFile moved = fileWriter.move(received, originalName, newTempFile());
+        if (expectedSha256 != null && !expectedSha256.isBlank() && !expectedSha256.equalsIgnoreCase(moved.sha256())) {
+            Files.deleteIfExists(moved.path());
+            throw new RuntimeException("Empreinte SHA-256 différente de celle annoncée: le fichier reçu est corrompu");
+        }
+        return publish(moved, originalName);
+    }
+
+    /**
+     * Libérer les fichiers de documents supprimés : chacun est effacé s'il n'est plus référencé.
+     * Dans une transaction, la vérification a lieu après le commit (rien n'est effacé en cas de rollback).
+     */
+    public void release(Collection<String> documentPaths) {
+        if (documentPaths.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    documentPaths.forEach(DocumentBlobStore.this::releaseNow);
+                }
+            });
+        } else {
+            documentPaths.forEach(this::releaseNow);
+        }
+    }
+
+    public void release(String documentPath) {
+        release(List.of(documentPath));
+    }
+
+    /**
+     * Empreinte SHA-256 d'un fichier du stockage, lue dans son nom (sans relire le contenu) ;
+     * vide pour un fichier hors du stockage (anciens uploads UUID_nom)
+     */
+    public static Optional<String> hashOf(Path path) {
+        if (path == null || path.getFileName() == null) {
+            return Optional.empty();
+        }
+        var matcher = BLOB_NAME.matcher(path.getFileName().toString());
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        String hash = matcher.group(1);
+        Path shard = path.getParent();
+        Path parentShard = shard != null ? shard.getParent() : null;
+        if (shard == null || parentShard == null || parentShard.getFileName() == null
+                || !shard.getFileName().toString().equals(hash.substring(2, 4))
+                || !parentShard.getFileName().toString().equals(hash.substring(0, 2))) {
+            return Optional.empty();
+        }
+        return Optional.of(hash);
+    }
+
+    /**
+     * Abandonner un fichier temporaire qui ne sera pas publié
+     */
+    public void discard(StoredFile staged) {
+        try {
+            Files.deleteIfExists(staged.path());
+        } catch (IOException e) {
+            log.warn("⚠️ Fichier temporaire {} non supprimé: {}", staged.path(), e.getMessage());
+        }
+    }
+
+    /**
+     * Placer le fichier temporaire sous son empreinte, ou le supprimer si ce contenu est déjà stocké
+     */
+    public StoredFile publish(StoredFile written, String originalName) throws IOException {
+        Path blob = blobPath(written.sha256(), originalName);
+        synchronized (lock(written.sha256())) {
+            if (Files.exists(blob)) {
+                Files.deleteIfExists(written.path());
+                log.info("♻️ Contenu déjà stocké, fichier réutilisé: {} → {}", originalName, blob.getFileName());
+            } else {
+                Files.createDirectories(blob.getParent());
+                try {
+                    Files.move(written.path(), blob, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(written.path(), blob, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            pending.merge(blob, 1, Integer::sum);
+        }
+        protectUntilCompletion(blob);
+        return new StoredFile(blob, written.size(), written.sha256(), written.mimeType());
+    }
+
+    /**
+     * Le document qui référence le fichier n'est visible qu'au commit : jusque-là, une suppression
+     * concurrente du même contenu ne doit pas l'effacer. En cas de rollback, le fichier est libéré.
+     */
+    private void protectUntilCompletion(Path blob) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            unprotect(blob);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                unprotect(blob);
+                if (status != STATUS_COMMITTED) {
+                    releaseNow(blob.toString());
+                }
+            }
+        });
+    }
+
+    private void unprotect(Path blob) {
+        synchronized (lock(hashOf(blob).orElseThrow())) {
+            pending.computeIfPresent(blob, (path, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private void releaseNow(String documentPath) {
+        if (documentPath == null) {
+            return;
+        }
+        Path path = Paths.get(documentPath);
+        Optional<String> hash = hashOf(path);
+        try {
+            if (hash.isEmpty()) {
+                // Ancien upload (UUID_nom) : propre à un seul document
+                Files.deleteIfExists(path);
+                return;
+            }
+            synchronized (lock(hash.get())) {
+                if (pending.containsKey(path)) {
+                    return;
+                }
+                long references = documentRepository.countByDocumentPath(documentPath);
+                if (references > 0) {
+                    log.debug("📎 Fichier {} conservé ({} document(s))", path.getFileName(), references);
+                    return;
+                }
+                Files.deleteIfExists(path);
+                log.info("🗑️ Fichier {} supprimé (plus aucun document)", path.getFileName());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ Suppression du fichier {} impossible: {}", documentPath, e.getMessage());
+        }
+    }
+
+    private Path blobPath(String sha256, String originalName) {
+        return Paths.get(blobDir)
+                .resolve(sha256.substring(0, 2))
+                .resolve(sha256.substring(2, 4))
+                .resolve(sha256 + extensionOf(originalName));
+    }
+
+    private static String extensionOf(String originalName) {
+        if (originalName == null) {
+            return "";
+        }
+        String name = Paths.get(originalName).getFileName().toString().toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        String extension = dot >= 0 ? name.substring(dot) : "";
+        return extension.matches("\\.[a-z0-9]{1,10}") ? extension : "";
+    }
+
+    private Path newTempFile() throws IOException {
+        Path tmpDir = Paths.get(blobDir).resolve(".tmp");
+        Files.createDirectories(tmpDir);
+        return tmpDir.resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    private Object lock(String sha256) {
+        return locks[Integer.parseInt(sha256.substring(0, 2), 16) % LOCK_STRIPES];
+    }
+
+    private static Object[] newLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,125 @@
+package com.yourapp.services.storage;
+
+import com.yourapp.services.extraction.MimeTypeSniffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Écriture des fichiers uploadés en une seule passe : chaque bloc lu est ajouté à l'empreinte SHA-256,
+ * les premiers octets servent à détecter le type, puis le bloc est écrit dans la cible.
+ * Les blocs transitent par un tampon direct de taille fixe : aucun tableau de la taille du fichier
+ * n'est alloué dans le tas, quelle que soit la taille du document.
+ */
+@Component
+@Slf4j
+public class DocumentFileWriter {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * Copier un fichier local (client desktop) vers la cible
+     */
+    public StoredFile copy(Path source, String originalName, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            return write(in, originalName, target);
+        }
+    }
+
+    /**
+     * Copier un flux (upload multipart) vers la cible ; le flux est fermé
+     */
+    public StoredFile copy(InputStream source, String originalName, Path target) throws IOException {
+        try (ReadableByteChannel in = Channels.newChannel(source)) {
+            return write(in, originalName, target);
+        }
+    }
+
+    /**
+     * Déplacer un fichier déjà sur le disque du serveur (upload par morceaux terminé) :
+     * lecture seule pour l'empreinte et le type, puis renommage sans recopie
+     */
+    public StoredFile move(Path source, String originalName, Path target) throws IOException {
+        Digest digest = new Digest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        return digest.toStoredFile(target, originalName);
+    }
+
+    private StoredFile write(ReadableByteChannel in, String originalName, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Digest digest = new Digest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return digest.toStoredFile(target, originalName);
+    }
+
+    /**
+     * Empreinte, taille et début du contenu accumulés au fil de la lecture
+     */
+    private static final class Digest {
+        private final MessageDigest sha256 = newDigest();
+        private final ByteBuffer head = ByteBuffer.allocate(MimeTypeSniffer.SNIFF_BYTES);
+        private long size = 0;
+
+        void update(ByteBuffer block) {
+            size += block.remaining();
+            if (head.hasRemaining()) {
+                ByteBuffer slice = block.duplicate();
+                slice.limit(slice.position() + Math.min(slice.remaining(), head.remaining()));
+                head.put(slice);
+            }
+            sha256.update(block);
+        }
+
+        StoredFile toStoredFile(Path target, String originalName) {
+            byte[] firstBytes = new byte[head.position()];
+            head.flip().get(firstBytes);
+            return new StoredFile(target, size, HexFormat.of().formatHex(sha256.digest()),
+                    MimeTypeSniffer.sniff(firstBytes, originalName, target));
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
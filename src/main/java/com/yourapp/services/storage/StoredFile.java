@@ -0,0 +1,14 @@
+package com.yourapp.services.storage;
+
+import java.nio.file.Path;
+
+/**
+ * Fichier écrit dans le stockage des documents
+ *
+ * @param path     emplacement du fichier stocké
+ * @param size     taille en octets
+ * @param sha256   empreinte SHA-256 du contenu (hexadécimal)
+ * @param mimeType type détecté d'après les premiers octets (et l'extension pour les formats conteneurs)
+ */
+public record StoredFile(Path path, long size, String sha256, String mimeType) {
+}
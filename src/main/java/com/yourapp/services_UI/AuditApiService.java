@@ -3,14 +3,21 @@ package com.yourapp.services_UI;
 import com.yourapp.dto.AuditCreateRequestDto;
 import com.yourapp.dto.AuditResponseDto;
 import com.yourapp.dto.AuditIssueDto;
+import com.yourapp.dto.AuditJobDto;
 import com.yourapp.services.AuditService;
 import com.yourapp.services.AuditIssueService;
+import com.yourapp.services.AuditJobService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
  * Service UI pour les opérations d'audit
@@ -24,6 +31,10 @@ public class AuditApiService {
     // Injection directe des services backend
     private final AuditService auditService;
     private final AuditIssueService auditIssueService;
+    private final AuditJobService auditJobService;
+
+    @Value("${app.audit.timeout-minutes:5}")
+    private int auditTimeoutMinutes;
 
     /**
      * Créer un nouvel audit (appel direct au service)
@@ -57,6 +68,64 @@ public class AuditApiService {
         }
     }
 
+    /**
+     * Relancer un audit existant : seuls les documents nouveaux ou modifiés sont ré-analysés
+     */
+    public AuditResponseDto startReanalysis(Long auditId) {
+        log.info("Ré-audit incrémental de l'audit ID: {}", auditId);
+
+        try {
+            AuditResponseDto audit = auditService.startReanalysis(auditId);
+            log.info("✅ Ré-audit lancé pour l'audit: {}", auditId);
+            return audit;
+        } catch (Exception e) {
+            log.error("❌ Erreur lors du lancement du ré-audit", e);
+            throw new RuntimeException("Impossible de relancer l'audit: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Attendre la fin du job d'analyse en recevant sa progression (sans polling)
+     */
+    public AuditResponseDto awaitAnalysis(Long jobId, Consumer<AuditJobDto> onProgress) {
+        log.info("⏳ Suivi du job d'analyse {}", jobId);
+
+        try {
+            AuditJobDto job = auditJobService.watch(jobId, onProgress)
+                    .get(auditTimeoutMinutes, TimeUnit.MINUTES);
+
+            AuditResponseDto audit = getAuditById(job.getAuditId());
+            audit.setJobId(jobId);
+
+            if ("COMPLETED".equals(job.getStatus())) {
+                List<AuditIssueDto> issues = getIssuesByAudit(job.getAuditId());
+                audit.setIssues(issues);
+                log.info("📊 {} issues ajoutées à la réponse", issues.size());
+            } else {
+                log.warn("⚠️ Job {} terminé avec le statut {}: {}", jobId, job.getStatus(), job.getErrorMessage());
+            }
+            return audit;
+
+        } catch (TimeoutException e) {
+            throw new RuntimeException(String.format(
+                    "Timeout: L'audit n'a pas terminé dans le délai imparti (%d minutes). " +
+                            "L'analyse IA continue en arrière-plan, veuillez patienter.",
+                    auditTimeoutMinutes));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Suivi de l'analyse interrompu", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Erreur lors du suivi de l'analyse: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Récupérer l'état d'un job d'analyse
+     */
+    public AuditJobDto getJob(Long jobId) {
+        return auditJobService.getJob(jobId);
+    }
+
     /**
      * Récupérer un audit par son ID
      */
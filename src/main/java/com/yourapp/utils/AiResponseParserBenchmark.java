@@ -0,0 +1,133 @@
+package com.yourapp.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yourapp.AI.TolerantIssueReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Banc d'essai du parsing des réponses IA sur le corpus benchmark/ai-responses :
+ * taux de récupération des problèmes et débit, lecteur tolérant contre l'ancien parsing
+ * (nettoyage des balises puis arbre JsonNode).
+ * Exécutez ce fichier directement (argument optionnel : nombre d'itérations)
+ */
+public class AiResponseParserBenchmark {
+
+    private static final String CORPUS = "/benchmark/ai-responses/";
+
+    private record Sample(String name, String content, int expected) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        List<Sample> corpus = loadCorpus();
+
+        TolerantIssueReader reader = new TolerantIssueReader();
+        ObjectMapper objectMapper = new ObjectMapper();
+        ToIntFunction<String> tolerant = response -> reader.read(response).issues().size();
+        ToIntFunction<String> legacy = response -> legacyParse(objectMapper, response);
+
+        System.out.println("========================================");
+        System.out.println("🧪 BENCHMARK DU PARSING DES RÉPONSES IA");
+        System.out.println("========================================");
+        System.out.println("📁 Corpus: " + corpus.size() + " réponses");
+        System.out.println("========================================\n");
+
+        System.out.printf("%-36s %8s %8s %8s%n", "Réponse", "Attendus", "Ancien", "Tolérant");
+        int expectedTotal = 0;
+        int legacyTotal = 0;
+        int tolerantTotal = 0;
+        for (Sample sample : corpus) {
+            int legacyCount = legacy.applyAsInt(sample.content());
+            int tolerantCount = tolerant.applyAsInt(sample.content());
+            System.out.printf("%-36s %8d %8d %8d%n", sample.name(), sample.expected(), legacyCount, tolerantCount);
+            expectedTotal += sample.expected();
+            legacyTotal += Math.min(legacyCount, sample.expected());
+            tolerantTotal += Math.min(tolerantCount, sample.expected());
+        }
+
+        System.out.println("\n📊 Taux de récupération");
+        System.out.printf("   Ancien parsing : %5.1f %% (%d/%d)%n", 100.0 * legacyTotal / expectedTotal, legacyTotal, expectedTotal);
+        System.out.printf("   Tolérant       : %5.1f %% (%d/%d)%n", 100.0 * tolerantTotal / expectedTotal, tolerantTotal, expectedTotal);
+
+        long bytes = corpus.stream().mapToLong(s -> s.content().getBytes(StandardCharsets.UTF_8).length).sum();
+        System.out.println("\n⚡ Débit (" + iterations + " passes du corpus)");
+        measure("Ancien parsing", corpus, legacy, iterations, bytes);
+        measure("Tolérant      ", corpus, tolerant, iterations, bytes);
+    }
+
+    private static void measure(String label, List<Sample> corpus, ToIntFunction<String> parser,
+                                int iterations, long bytes) {
+        // Échauffement du JIT
+        run(corpus, parser, Math.max(1, iterations / 10));
+
+        long start = System.nanoTime();
+        long checksum = run(corpus, parser, iterations);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("   %s : %,10.0f réponses/s  %7.1f Mo/s  (contrôle %d)%n", label,
+                corpus.size() * iterations / seconds, bytes * iterations / seconds / (1024 * 1024), checksum);
+    }
+
+    private static long run(List<Sample> corpus, ToIntFunction<String> parser, int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (Sample sample : corpus) {
+                checksum += parser.applyAsInt(sample.content());
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * Ancien parsing : retrait des balises markdown, découpe entre la première et la dernière accolade,
+     * puis lecture stricte en arbre ; toute erreur fait perdre la réponse entière
+     */
+    private static int legacyParse(ObjectMapper objectMapper, String response) {
+        String cleaned = response.replaceAll("```json\\s*", "").replaceAll("```\\s*", "").trim();
+        int start = cleaned.indexOf('{');
+        int end = cleaned.lastIndexOf('}');
+        if (start < 0 || end < start) {
+            return 0;
+        }
+        try {
+            JsonNode issues = objectMapper.readTree(cleaned.substring(start, end + 1)).get("issues");
+            return issues != null && issues.isArray() ? issues.size() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static List<Sample> loadCorpus() throws IOException {
+        List<Sample> corpus = new ArrayList<>();
+        for (String line : readResource("index.txt").split("\n")) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.trim().split(";");
+            corpus.add(new Sample(parts[0], readResource(parts[0]), Integer.parseInt(parts[1])));
+        }
+        return corpus;
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream in = AiResponseParserBenchmark.class.getResourceAsStream(CORPUS + name)) {
+            if (in == null) {
+                throw new IOException("Fichier du corpus introuvable: " + name);
+            }
+            StringBuilder content = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                reader.lines().forEach(line -> content.append(line).append('\n'));
+            }
+            return content.toString();
+        }
+    }
+}
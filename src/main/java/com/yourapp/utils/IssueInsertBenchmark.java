@@ -0,0 +1,161 @@
+package com.yourapp.utils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Properties;
+
+/**
+ * Banc d'essai de l'insertion des problèmes d'un audit (500 par défaut) sur PostgreSQL :
+ * - avant : identifiants IDENTITY, un INSERT ... RETURNING id par problème (ce que fait Hibernate,
+ *   qui ne peut pas regrouper ces INSERT) ;
+ * - après : identifiants réservés par blocs de 50 (séquence pooled-lo), INSERT envoyés en lots
+ *   de 50 et réécrits en INSERT multi-lignes par le driver (reWriteBatchedInserts).
+ * Travaille sur des tables temporaires calquées sur audit_issue : aucune donnée n'est écrite.
+ * Exécutez ce fichier directement avec le driver PostgreSQL dans le classpath
+ * (arguments : url utilisateur mot_de_passe [problèmes] [répétitions], ou variables DB_URL, DB_USERNAME, DB_PASSWORD)
+ */
+public class IssueInsertBenchmark {
+
+    private static final int ALLOCATION_SIZE = 50;
+    private static final int BATCH_SIZE = 50;
+
+    private static final String COLUMNS = """
+            audit_id BIGINT NOT NULL, document_id BIGINT, page_number INTEGER, paragraph_number INTEGER,
+            issue_type VARCHAR(100), description TEXT, suggestion TEXT, status VARCHAR(50),
+            reported_at TIMESTAMP, recurrence_of_id BIGINT
+            """;
+
+    private static final String VALUES = "audit_id, document_id, page_number, paragraph_number, issue_type, "
+            + "description, suggestion, status, reported_at";
+
+    public static void main(String[] args) throws SQLException {
+        String url = arg(args, 0, "DB_URL", "jdbc:postgresql://localhost:5432/auditdoc_db");
+        String user = arg(args, 1, "DB_USERNAME", "postgres");
+        String password = arg(args, 2, "DB_PASSWORD", "");
+        int issues = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+        int rounds = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+
+        Properties properties = new Properties();
+        properties.setProperty("user", user);
+        properties.setProperty("password", password);
+        properties.setProperty("reWriteBatchedInserts", "true");
+
+        System.out.println("========================================");
+        System.out.println("🧪 BENCHMARK DE L'INSERTION DES PROBLÈMES");
+        System.out.println("========================================");
+        System.out.println("🔗 Base: " + url);
+        System.out.println("📊 " + issues + " problèmes par audit, " + rounds + " répétitions");
+        System.out.println("========================================\n");
+
+        try (Connection connection = DriverManager.getConnection(url, properties)) {
+            connection.setAutoCommit(false);
+            createTables(connection);
+
+            // Échauffement (connexion, plans, JIT)
+            insertIdentity(connection, issues);
+            insertPooled(connection, issues);
+
+            long identityNanos = 0;
+            long pooledNanos = 0;
+            for (int round = 0; round < rounds; round++) {
+                identityNanos += insertIdentity(connection, issues);
+                pooledNanos += insertPooled(connection, issues);
+            }
+
+            double identityRate = issues * rounds / (identityNanos / 1e9);
+            double pooledRate = issues * rounds / (pooledNanos / 1e9);
+            System.out.printf("%-44s %10s %12s%n", "Mode", "ms/audit", "insert/s");
+            System.out.printf("%-44s %10.1f %12.0f%n", "Avant : IDENTITY, un INSERT par problème",
+                    identityNanos / 1e6 / rounds, identityRate);
+            System.out.printf("%-44s %10.1f %12.0f%n", "Après : séquence pooled-lo, lots de " + BATCH_SIZE,
+                    pooledNanos / 1e6 / rounds, pooledRate);
+            System.out.printf("%n🚀 Gain: x%.1f%n", pooledRate / identityRate);
+
+            connection.rollback();
+        }
+    }
+
+    private static void createTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMP TABLE bench_issue_identity (id BIGSERIAL PRIMARY KEY, " + COLUMNS + ")");
+            statement.execute("CREATE TEMP TABLE bench_issue_pooled (id BIGINT PRIMARY KEY, " + COLUMNS + ")");
+            statement.execute("CREATE TEMP SEQUENCE bench_issue_pooled_seq INCREMENT BY " + ALLOCATION_SIZE);
+        }
+        connection.commit();
+    }
+
+    /**
+     * Un aller-retour par problème : l'identifiant généré doit être relu avant l'INSERT suivant
+     */
+    private static long insertIdentity(Connection connection, int issues) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO bench_issue_identity (" + VALUES + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING id")) {
+            for (int i = 0; i < issues; i++) {
+                bind(insert, 1, i);
+                try (ResultSet key = insert.executeQuery()) {
+                    key.next();
+                }
+            }
+        }
+        connection.commit();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Un nextval par bloc de 50 identifiants, puis les INSERT par lots
+     */
+    private static long insertPooled(Connection connection, int issues) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement nextBlock = connection.prepareStatement("SELECT nextval('bench_issue_pooled_seq')");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO bench_issue_pooled (id, " + VALUES + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            long nextId = 0;
+            long blockEnd = 0;
+            for (int i = 0; i < issues; i++) {
+                if (nextId == blockEnd) {
+                    try (ResultSet block = nextBlock.executeQuery()) {
+                        block.next();
+                        nextId = block.getLong(1);
+                        blockEnd = nextId + ALLOCATION_SIZE;
+                    }
+                }
+                insert.setLong(1, nextId++);
+                bind(insert, 2, i);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        return System.nanoTime() - start;
+    }
+
+    private static void bind(PreparedStatement insert, int first, int i) throws SQLException {
+        insert.setLong(first, 1);
+        insert.setLong(first + 1, 1 + i % 10);
+        insert.setInt(first + 2, 1 + i % 40);
+        insert.setInt(first + 3, 1 + i % 12);
+        insert.setString(first + 4, i % 3 == 0 ? "Non-conformité" : "Amélioration");
+        insert.setString(first + 5, "Le document ne précise pas la procédure de revue annuelle des accès (problème " + i + ").");
+        insert.setString(first + 6, "Ajouter une section décrivant la fréquence, le responsable et la traçabilité de la revue.");
+        insert.setString(first + 7, "Open");
+        insert.setTimestamp(first + 8, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private static String arg(String[] args, int index, String env, String fallback) {
+        if (args.length > index) {
+            return args[index];
+        }
+        String value = System.getenv(env);
+        return value != null ? value : fallback;
+    }
+}
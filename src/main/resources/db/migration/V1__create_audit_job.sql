@@ -0,0 +1,20 @@
+-- Jobs d'analyse IA asynchrones (AuditJobService)
+CREATE TABLE IF NOT EXISTS audit_job (
+    id                  BIGSERIAL PRIMARY KEY,
+    audit_id            BIGINT      NOT NULL REFERENCES audit (id) ON DELETE CASCADE,
+    status              VARCHAR(50) NOT NULL,
+    total_documents     INTEGER     NOT NULL DEFAULT 0,
+    processed_documents INTEGER     NOT NULL DEFAULT 0,
+    failed_documents    INTEGER     NOT NULL DEFAULT 0,
+    error_message       TEXT,
+    created_at          TIMESTAMP,
+    started_at          TIMESTAMP,
+    finished_at         TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_audit_job_audit_id ON audit_job (audit_id);
+CREATE INDEX IF NOT EXISTS idx_audit_job_status ON audit_job (status);
+
+-- Au plus un job actif par audit (deux soumissions simultanées : la seconde échoue)
+CREATE UNIQUE INDEX IF NOT EXISTS uq_audit_job_active_audit ON audit_job (audit_id)
+    WHERE status IN ('PENDING', 'IN_PROGRESS');
@@ -0,0 +1,6 @@
+-- Ré-audit incrémental : empreinte du contenu et de la dernière analyse réussie de chaque document
+ALTER TABLE auditdocument ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+ALTER TABLE auditdocument ADD COLUMN IF NOT EXISTS analysis_fingerprint VARCHAR(64);
+
+-- Mode du job : analyse complète ou seulement des documents modifiés
+ALTER TABLE audit_job ADD COLUMN IF NOT EXISTS incremental BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,2 @@
+-- Règles vérifiées localement avant l'appel à l'IA (JSON : sections obligatoires, motifs, formats...)
+ALTER TABLE audit_template ADD COLUMN IF NOT EXISTS rules TEXT;
@@ -0,0 +1,3 @@
+-- Problèmes récurrents : lien vers la première occurrence du même problème dans un audit précédent du projet
+ALTER TABLE audit_issue ADD COLUMN IF NOT EXISTS recurrence_of_id BIGINT;
+CREATE INDEX IF NOT EXISTS idx_audit_issue_recurrence_of ON audit_issue (recurrence_of_id);
@@ -0,0 +1,28 @@
+-- Identifiants par séquence à blocs de 50 (optimiseur pooled-lo, allocationSize = 50 sur les entités) :
+-- Hibernate réserve 50 identifiants par appel à nextval et peut regrouper les INSERT en lots JDBC,
+-- ce qui est impossible avec IDENTITY. Avec pooled-lo, nextval renvoie le début du bloc : les
+-- insertions hors Hibernate (DEFAULT nextval) restent compatibles, elles consomment un bloc entier.
+-- Fonctionne que la colonne id soit SERIAL / BIGSERIAL, IDENTITY, ou sans séquence.
+DO $$
+DECLARE
+    t   TEXT;
+    seq TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['projects', 'password_reset_tokens', 'app_users', 'notifications', 'audit',
+                             'auditdocument', 'audit_report', 'audit_template', 'audit_issue', 'audit_job']
+    LOOP
+        seq := pg_get_serial_sequence(t, 'id');
+        IF seq IS NULL THEN
+            seq := t || '_id_seq';
+            EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I', seq);
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', t, seq);
+            EXECUTE format('ALTER SEQUENCE %I OWNED BY %I.id', seq, t);
+        ELSIF seq <> 'public.' || t || '_id_seq' THEN
+            RAISE EXCEPTION 'Séquence inattendue pour %.id : % (attendu public.%_id_seq)', t, seq, t;
+        END IF;
+
+        EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', seq);
+        -- Prochain bloc au-delà des identifiants existants
+        EXECUTE format('SELECT setval(%L, COALESCE((SELECT MAX(id) FROM %I), 0) + 1, false)', seq, t);
+    END LOOP;
+END $$;
@@ -0,0 +1,2 @@
+-- Type MIME détecté au stockage : l'extracteur est choisi d'après lui plutôt que d'après l'extension
+ALTER TABLE auditdocument ADD COLUMN IF NOT EXISTS mime_type VARCHAR(255);